@@ -1,6 +1,7 @@
 plugins {
     java
     application
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "org.example"
@@ -47,6 +48,63 @@ tasks.register<Jar>("fatJar") {
     })
 }
 
+// AppCDS-архив классов для быстрого старта: ./gradlew cdsArchive
+// Обучающий запуск fatJar в режиме startup (сервер поднимается, прогревается и завершается),
+// классы, загруженные за запуск, сохраняются в архив. Запуск с архивом:
+// java -XX:SharedArchiveFile=build/libs/shortlink.jsa -jar build/libs/java_shortlink-1.0.0-all.jar server
+tasks.register<JavaExec>("cdsArchive") {
+    group = "distribution"
+    description = "Создаёт AppCDS-архив классов fatJar для ускорения старта"
+
+    val fatJar = tasks.named<Jar>("fatJar")
+    val archive = layout.buildDirectory.file("libs/shortlink.jsa")
+    val workDir = layout.buildDirectory.dir("cds")
+
+    dependsOn(fatJar)
+    inputs.files(fatJar)
+    outputs.file(archive)
+
+    // путь к jar при обучении и при запуске должен совпадать
+    classpath = files(fatJar.flatMap { it.archiveFile })
+    mainClass.set("org.example.Shortlink.App.Main")
+    args("startup")
+    jvmArgs("-XX:ArchiveClassesAtExit=${archive.get().asFile.absolutePath}")
+    // свободные порты и отдельный каталог: обучающий запуск не мешает работающему сервису
+    systemProperty("http.port", "0")
+    systemProperty("metrics.port", "0")
+    workingDir = workDir.get().asFile
+    // первый запуск без архива может не уложиться в бюджет старта — архив всё равно нужен
+    isIgnoreExitValue = true
+
+    doFirst { workDir.get().asFile.mkdirs() }
+}
+
+// Нагрузочный прогон HTTP-редиректов: ./gradlew redirectLoadTest --args="100 64 10"
+tasks.register<JavaExec>("redirectLoadTest") {
+    group = "verification"
+    description = "Измеряет redirects/sec и p99 задержки HTTP-сервера"
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.example.Shortlink.App.Http.RedirectLoadTest")
+}
+
+// Нагрузочный прогон LinkService с проверкой счётчиков переходов:
+// ./gradlew loadGenerator --args="storage=pooled threads=1,8,64,256 seconds=30"
+tasks.register<JavaExec>("loadGenerator") {
+    group = "verification"
+    description = "Смесь create/resolve/edit/delete по Ципфу: ops/sec, перцентили, потерянные переходы"
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.example.Shortlink.App.LoadGenerator")
+}
+
+// Микробенчмарки: ./gradlew jmh [-PjmhIncludes=StorageModeBenchmark]
+jmh {
+    jmhVersion.set("1.37")
+    // JSON-результаты для сравнения прогонов до и после обновлений
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    (project.findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+}
+
 tasks.test {
     useJUnitPlatform()
 }
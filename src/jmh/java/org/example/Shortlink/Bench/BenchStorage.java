@@ -0,0 +1,111 @@
+package org.example.Shortlink.Bench;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Хранилища для бенчмарков: SQLite во временном файле, SQLite в памяти
+ * и InMemoryLinkRepository
+ */
+final class BenchStorage implements AutoCloseable {
+
+    static final String SQLITE_FILE = "sqlite-file";
+    static final String SQLITE_MEMORY = "sqlite-memory";
+    static final String MEMORY = "memory";
+
+    private static final PrintStream NULL_OUT = new PrintStream(OutputStream.nullOutputStream());
+
+    final LinkRepository repository;
+    private final String backend;
+    private final Path db;
+    private final PrintStream originalOut;
+
+    private BenchStorage(String backend) throws Exception {
+        this.backend = backend;
+        this.db = SQLITE_FILE.equals(backend) ? Files.createTempFile("shortlinks-bench", ".db") : null;
+        this.repository = switch (backend) {
+            case SQLITE_FILE -> new SQLiteLinkRepository(db.toString());
+            case SQLITE_MEMORY -> new SQLiteLinkRepository(":memory:");
+            case MEMORY -> new InMemoryLinkRepository();
+            default -> throw new IllegalArgumentException("Неизвестное хранилище: " + backend);
+        };
+
+        // консольный вывод сервиса не должен попадать в замер
+        this.originalOut = System.out;
+        System.setOut(NULL_OUT);
+    }
+
+    static BenchStorage open(String backend) throws Exception {
+        return new BenchStorage(backend);
+    }
+
+    /**
+     * Заполняет таблицу count ссылками владельца с кодами prefix0..prefixN
+     */
+    void seed(UUID owner, String prefix, int count, Instant expiresAt) throws Exception {
+        if (db == null) {
+            for (int i = 0; i < count; i++) {
+                repository.save(link(owner, prefix + i, expiresAt));
+            }
+            return;
+        }
+
+        // для файла — одной транзакцией через отдельное соединение, иначе fsync на каждую строку
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + db);
+             PreparedStatement ps = c.prepareStatement("""
+                     INSERT INTO links (short_code, original_url, owner_id, max_clicks,
+                                        current_clicks, created_at, expires_at, active)
+                     VALUES (?, ?, ?, ?, 0, ?, ?, 1)
+                     """)) {
+            c.setAutoCommit(false);
+            byte[] ownerBytes = ByteBuffer.allocate(16)
+                    .putLong(owner.getMostSignificantBits())
+                    .putLong(owner.getLeastSignificantBits())
+                    .array();
+            long now = Instant.now().getEpochSecond();
+
+            for (int i = 0; i < count; i++) {
+                ps.setString(1, prefix + i);
+                ps.setString(2, "https://example.com/" + i);
+                ps.setBytes(3, ownerBytes);
+                ps.setInt(4, Integer.MAX_VALUE);
+                ps.setLong(5, now);
+                ps.setLong(6, expiresAt.getEpochSecond());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            c.commit();
+        }
+    }
+
+    private static ShortLink link(UUID owner, String code, Instant expiresAt) {
+        return new ShortLink(code, "https://example.com/" + code, owner, Integer.MAX_VALUE, expiresAt);
+    }
+
+    @Override
+    public void close() throws Exception {
+        System.setOut(originalOut);
+        repository.close();
+        if (db != null) {
+            Files.deleteIfExists(db);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return backend;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.Shortlink.Bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Удаление просроченных ссылок при разном размере таблицы.
+ * Перед каждым вызовом добавляется EXPIRED_PER_CALL просроченных строк
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeleteExpiredBenchmark {
+
+    private static final int EXPIRED_PER_CALL = 100;
+
+    @Param({BenchStorage.SQLITE_FILE, BenchStorage.SQLITE_MEMORY, BenchStorage.MEMORY})
+    public String backend;
+
+    @Param({"1000", "100000"})
+    public int tableSize;
+
+    private BenchStorage storage;
+    private final UUID owner = UUID.randomUUID();
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        storage = BenchStorage.open(backend);
+        storage.seed(owner, "live", tableSize, Instant.now().plus(1, ChronoUnit.DAYS));
+    }
+
+    @Setup(Level.Invocation)
+    public void addExpired() throws Exception {
+        storage.seed(owner, "exp" + (round++) + "_", EXPIRED_PER_CALL, Instant.now().minusSeconds(60));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        storage.close();
+    }
+
+    /**
+     * Одна порция очистки, как у ExpirySweeper: удалённые коды по владельцам
+     */
+    @Benchmark
+    public Map<UUID, List<String>> deleteExpiredByOwner() {
+        return storage.repository.deleteExpiredByOwner(EXPIRED_PER_CALL);
+    }
+}
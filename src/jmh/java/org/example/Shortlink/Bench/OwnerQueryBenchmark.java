@@ -0,0 +1,64 @@
+package org.example.Shortlink.Bench;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findAllByUser, первая страница и потоковый обход при разном числе ссылок у владельца.
+ * В таблице есть и чужие ссылки, чтобы был виден эффект индекса
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerQueryBenchmark {
+
+    private static final int OTHER_LINKS = 10_000;
+
+    @Param({BenchStorage.SQLITE_FILE, BenchStorage.SQLITE_MEMORY, BenchStorage.MEMORY})
+    public String backend;
+
+    @Param({"10", "1000", "100000"})
+    public int linksPerOwner;
+
+    private BenchStorage storage;
+    private final UUID owner = UUID.randomUUID();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+        storage = BenchStorage.open(backend);
+        storage.seed(UUID.randomUUID(), "x", OTHER_LINKS, expiresAt);
+        storage.seed(owner, "o", linksPerOwner, expiresAt);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        storage.close();
+    }
+
+    @Benchmark
+    public List<ShortLink> findAllByUser() {
+        return storage.repository.findAllByUser(owner);
+    }
+
+    @Benchmark
+    public List<ShortLink> firstPage() {
+        return storage.repository.findPageByUser(owner, null, 50);
+    }
+
+    @Benchmark
+    public long forEachByUser() {
+        long[] clicks = {0};
+        storage.repository.forEachByUser(owner, link -> clicks[0] += link.getCurrentClicks());
+        return clicks[0];
+    }
+}
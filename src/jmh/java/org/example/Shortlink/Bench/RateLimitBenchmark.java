@@ -0,0 +1,67 @@
+package org.example.Shortlink.Bench;
+
+import org.example.Shortlink.Core.Metrics.MetricsRegistry;
+import org.example.Shortlink.Core.Model.ResolveResult;
+import org.example.Shortlink.Core.Service.LimitExceededException;
+import org.example.Shortlink.Core.Service.LinkRateLimiter;
+import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Storage.Config.AppConfig;
+import org.example.Shortlink.Util.HashShortCodeStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена отказа по ограничениям владельца: ведро владельца и кода пусто,
+ * вызов должен завершиться без обращения к хранилищу
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    @Param({BenchStorage.SQLITE_FILE})
+    public String backend;
+
+    private BenchStorage storage;
+    private LinkService service;
+    private final UUID owner = UUID.randomUUID();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        storage = BenchStorage.open(backend);
+        storage.seed(owner, "r", 1, Instant.now().plus(1, ChronoUnit.DAYS));
+
+        // скорость ничтожна: после исчерпания ведра каждый вызов — отказ
+        LinkRateLimiter limiter = new LinkRateLimiter(storage.repository, 65_536, 1e-6, 1, 1e-6, 1, 0);
+        service = new LinkService(storage.repository, new AppConfig(24, Integer.MAX_VALUE, 60), null,
+                new HashShortCodeStrategy(), null, new MetricsRegistry(), limiter);
+        service.createLink(owner, "https://example.com/first", null);
+        service.tryResolve("r0");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        storage.close();
+    }
+
+    @Benchmark
+    public Object rejectedCreate() {
+        try {
+            return service.createLink(owner, "https://example.com/campaign", null);
+        } catch (LimitExceededException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public ResolveResult rejectedResolve() {
+        return service.tryResolve("r0");
+    }
+}
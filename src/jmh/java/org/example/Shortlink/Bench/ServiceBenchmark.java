@@ -0,0 +1,56 @@
+package org.example.Shortlink.Bench;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Storage.Config.AppConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути сервиса: создание ссылки и переход
+ * (findByShortCode + registerClick + update)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int RESOLVE_LINKS = 10_000;
+
+    @Param({BenchStorage.SQLITE_FILE, BenchStorage.SQLITE_MEMORY, BenchStorage.MEMORY})
+    public String backend;
+
+    private BenchStorage storage;
+    private LinkService service;
+    private final UUID owner = UUID.randomUUID();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        storage = BenchStorage.open(backend);
+        storage.seed(owner, "r", RESOLVE_LINKS, Instant.now().plus(1, ChronoUnit.DAYS));
+        service = new LinkService(storage.repository, new AppConfig(24, Integer.MAX_VALUE, 60));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        storage.close();
+    }
+
+    @Benchmark
+    public ShortLink createLink() {
+        return service.createLink(owner, "https://example.com/campaign", null);
+    }
+
+    @Benchmark
+    public ShortLink resolve() {
+        return service.resolve("r" + ThreadLocalRandom.current().nextInt(RESOLVE_LINKS));
+    }
+}
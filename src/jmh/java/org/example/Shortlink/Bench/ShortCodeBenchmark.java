@@ -0,0 +1,48 @@
+package org.example.Shortlink.Bench;
+
+import org.example.Shortlink.Util.HashShortCodeStrategy;
+import org.example.Shortlink.Util.SequenceShortCodeStrategy;
+import org.example.Shortlink.Util.ShortCodeStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Хэш-режим (SHA-256 + Base64) против последовательности в base62
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortCodeBenchmark {
+
+    @Param({"hash", "sequence"})
+    public String strategy;
+
+    private ShortCodeStrategy codes;
+    private final UUID userId = UUID.randomUUID();
+    private final String url = "https://example.com/some/long/path?utm_source=campaign";
+
+    @Setup(Level.Trial)
+    public void setup() {
+        AtomicLong ids = new AtomicLong();
+        codes = "sequence".equals(strategy)
+                ? new SequenceShortCodeStrategy(ids::getAndAdd, 1_000)
+                : new HashShortCodeStrategy();
+    }
+
+    @Benchmark
+    public String next() {
+        return codes.next(userId, url);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String nextContended() {
+        return codes.next(userId, url);
+    }
+}
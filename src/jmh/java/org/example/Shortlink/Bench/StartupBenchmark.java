@@ -0,0 +1,165 @@
+package org.example.Shortlink.Bench;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время от запуска процесса до первого успешного редиректа.
+ *
+ * Каждый вызов запускает отдельную JVM: Main server на базе с links ссылками.
+ * Замер идёт до первого GET, ответившего 302: строка "HTTP-сервер запущен" лишь
+ * сообщает порт, а с фоновым прогревом первый запрос ещё может ждать базу.
+ * Остановка процесса в замер не входит. fast — startup.fast (фильтр Блума строится в фоне),
+ * cds — запуск с AppCDS-архивом, записанным обучающим запуском в setup
+ * (классы из каталогов в архив не попадают: classpath должен состоять из jar,
+ * как при ./gradlew jmh)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String READY = "HTTP-сервер запущен на порту ";
+
+    /** Код из заполненной базы; лимита в 100 переходов хватает на все итерации */
+    private static final String CODE = "s0";
+
+    @Param({"true", "false"})
+    public boolean fast;
+
+    @Param({"off", "on"})
+    public String cds;
+
+    @Param({"200000"})
+    public int links;
+
+    private Path dir;
+    private Path archive;
+    private Process process;
+    private HttpClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("shortlinks-startup");
+        client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+
+        UUID owner = UUID.randomUUID();
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+        try (SQLiteLinkRepository repository = new SQLiteLinkRepository(dir.resolve("shortlinks.db").toString())) {
+            List<ShortLink> batch = new ArrayList<>();
+            for (int i = 0; i < links; i++) {
+                batch.add(new ShortLink("s" + i, "https://example.com/" + i, owner, 100, expiresAt));
+                if (batch.size() == 1_000) {
+                    repository.saveAll(batch);
+                    batch.clear();
+                }
+            }
+            repository.saveAll(batch);
+        }
+
+        if ("on".equals(cds)) {
+            archive = dir.resolve("shortlink.jsa");
+            Process training = launch("startup", "-XX:ArchiveClassesAtExit=" + archive);
+            training.getInputStream().transferTo(OutputStream.nullOutputStream());
+            training.waitFor();
+            if (!Files.exists(archive)) {
+                throw new IllegalStateException("AppCDS-архив не создан: в classpath есть каталоги?");
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void awaitExit() throws Exception {
+        if (process != null) {
+            process.destroy();
+            process.getInputStream().transferTo(OutputStream.nullOutputStream());
+            process.waitFor();
+            process = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private Process launch(String mode, String... jvmArgs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(jvmArgs));
+        command.add("-Dhttp.port=0");
+        command.add("-Dmetrics.port=0");
+        command.add("-Dstartup.fast=" + fast);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("org.example.Shortlink.App.Main");
+        command.add(mode);
+
+        return new ProcessBuilder(command)
+                .directory(dir.toFile())
+                .redirectErrorStream(true)
+                .start();
+    }
+
+    @Benchmark
+    public String startup() throws Exception {
+        process = archive != null ? launch("server", "-XX:SharedArchiveFile=" + archive) : launch("server");
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + awaitPort() + "/" + CODE))
+                .GET()
+                .build();
+        while (true) {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == 302) {
+                return response.headers().firstValue("Location").orElseThrow();
+            }
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Процесс завершился, не ответив редиректом");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return порт из строки о запуске сервера
+     */
+    private int awaitPort() throws IOException {
+        BufferedReader output = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.startsWith(READY)) {
+                return Integer.parseInt(line.substring(READY.length()).split(" ")[0]);
+            }
+        }
+        throw new IllegalStateException("Процесс завершился, не начав принимать запросы");
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.Shortlink.Bench;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.example.Shortlink.Storage.Repo.MappedLogLinkRepository;
+import org.example.Shortlink.Storage.Repo.OffHeapLinkRepository;
+import org.example.Shortlink.Storage.Repo.PooledSQLiteLinkRepository;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.example.Shortlink.Storage.Repo.ShardedLinkRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Одно соединение SQLite (single, с групповой фиксацией — group) против WAL-пула с кэшем запросов (pooled),
+ * и четырёх файлов со своими потоками записи (sharded), хранилища в памяти
+ * (memory — объекты в куче, offheap — записи вне кучи) и журнал в отображённых
+ * файлах (mmap) под конкурентным чтением, записью и смешанной нагрузкой
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageModeBenchmark {
+
+    @Param({"single", "group", "pooled", "sharded", "memory", "mmap", "offheap"})
+    public String mode;
+
+    @Param({"1000"})
+    public int links;
+
+    private static final int SHARDS = 4;
+    private static final int GROUP_COMMIT_BATCH = 256;
+
+    private Path db;
+    private Path logDir;
+    private LinkRepository repository;
+    private String[] codes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        db = Files.createTempFile("shortlinks-bench", ".db");
+        repository = switch (mode) {
+            case "group" -> new SQLiteLinkRepository(db.toString(), GROUP_COMMIT_BATCH, 0);
+            case "pooled" -> new PooledSQLiteLinkRepository(db.toString(), 4);
+            case "memory" -> new InMemoryLinkRepository();
+            case "sharded" -> new ShardedLinkRepository(db.toString(), SHARDS);
+            case "offheap" -> new OffHeapLinkRepository();
+            case "mmap" -> {
+                logDir = Files.createTempDirectory("shortlinks-bench-log");
+                yield new MappedLogLinkRepository(logDir);
+            }
+            default -> new SQLiteLinkRepository(db.toString());
+        };
+
+        UUID owner = UUID.randomUUID();
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+        codes = new String[links];
+        for (int i = 0; i < links; i++) {
+            codes[i] = "c" + i;
+            repository.save(new ShortLink(codes[i], "https://example.com/" + i, owner,
+                    Integer.MAX_VALUE, expiresAt));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        repository.close();
+        Files.deleteIfExists(db);
+        Files.deleteIfExists(Path.of(db + "-wal"));
+        Files.deleteIfExists(Path.of(db + "-shm"));
+        for (int i = 0; i < SHARDS; i++) {
+            Files.deleteIfExists(Path.of(ShardedLinkRepository.shardPath(db.toString(), i, SHARDS)));
+        }
+        if (logDir != null) {
+            try (Stream<Path> files = Files.list(logDir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(logDir);
+        }
+    }
+
+    private String randomCode() {
+        return codes[ThreadLocalRandom.current().nextInt(codes.length)];
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ShortLink read() {
+        return repository.findByShortCodeOrNull(randomCode());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void write() {
+        repository.addClicks(Map.of(randomCode(), 1));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public ShortLink mixedRead() {
+        return repository.findByShortCodeOrNull(randomCode());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedWrite() {
+        repository.addClicks(Map.of(randomCode(), 1));
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.Shortlink.App.Http;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.AsyncLinkService;
+import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Storage.Config.AppConfig;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.example.Shortlink.Util.ShortCodeGenerator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Нагрузочный прогон редиректов: поднимает RedirectServer на временной БД,
+ * создаёт набор ссылок и бьёт по ним из N виртуальных потоков.
+ * Печатает redirects/sec и перцентили задержки.
+ *
+ * Аргументы: [links=100] [concurrency=64] [durationSeconds=10]
+ */
+public class RedirectLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int linkCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Path db = Files.createTempFile("shortlinks-load", ".db");
+        AppConfig config = new AppConfig(24, Integer.MAX_VALUE, 60);
+
+        try (SQLiteLinkRepository repository = new SQLiteLinkRepository(db.toString());
+             AsyncLinkService service = new AsyncLinkService(new LinkService(repository, config));
+             RedirectServer server = new RedirectServer(service, 0)) {
+
+            UUID owner = UUID.randomUUID();
+            Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+            String[] codes = new String[linkCount];
+            for (int i = 0; i < linkCount; i++) {
+                String url = "https://example.com/" + i;
+                codes[i] = ShortCodeGenerator.generate(owner, url);
+                repository.save(new ShortLink(codes[i], url, owner, Integer.MAX_VALUE, expiresAt));
+            }
+
+            server.start();
+            URI[] targets = new URI[linkCount];
+            for (int i = 0; i < linkCount; i++) {
+                targets[i] = URI.create("http://127.0.0.1:" + server.getPort() + "/" + codes[i]);
+            }
+
+            System.out.println("Прогон: ссылок=" + linkCount + ", потоков=" + concurrency
+                    + ", длительность=" + durationSeconds + "с");
+
+            HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .build();
+
+            long deadline = System.nanoTime() + durationSeconds * 1_000_000_000L;
+            List<Future<Worker>> futures = new ArrayList<>();
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+            try {
+                for (int i = 0; i < concurrency; i++) {
+                    futures.add(executor.submit(() -> new Worker().run(client, targets, deadline)));
+                }
+
+                List<Worker> workers = new ArrayList<>();
+                for (Future<Worker> future : futures) {
+                    workers.add(future.get());
+                }
+                report(workers, durationSeconds);
+            } finally {
+                executor.shutdownNow();
+            }
+        } finally {
+            Files.deleteIfExists(db);
+        }
+    }
+
+    private static void report(List<Worker> workers, int durationSeconds) {
+        long ok = 0;
+        long errors = 0;
+        int total = 0;
+
+        for (Worker worker : workers) {
+            ok += worker.ok;
+            errors += worker.errors;
+            total += worker.count;
+        }
+
+        long[] all = new long[total];
+        int pos = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, all, pos, worker.count);
+            pos += worker.count;
+        }
+        Arrays.sort(all);
+
+        System.out.printf("Редиректов: %d, ошибок: %d, redirects/sec: %.0f%n",
+                ok, errors, ok / (double) durationSeconds);
+        System.out.printf("Задержка, мкс: p50=%d p90=%d p99=%d max=%d%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                all.length == 0 ? 0 : all[all.length - 1] / 1_000);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000;
+    }
+
+    /* ===================== WORKER ===================== */
+
+    private static final class Worker {
+
+        private long[] latencies = new long[1 << 14];
+        private int count;
+        private long ok;
+        private long errors;
+
+        private Worker run(HttpClient client, URI[] targets, long deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            while (System.nanoTime() < deadline) {
+                HttpRequest request = HttpRequest.newBuilder(targets[random.nextInt(targets.length)])
+                        .GET()
+                        .build();
+
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 302) {
+                        ok++;
+                    } else {
+                        errors++;
+                    }
+                } catch (Exception e) {
+                    errors++;
+                }
+                record(System.nanoTime() - start);
+            }
+            return this;
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+}
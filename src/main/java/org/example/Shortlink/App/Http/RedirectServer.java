@@ -0,0 +1,160 @@
+package org.example.Shortlink.App.Http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.example.Shortlink.Core.Model.LinkStatus;
+import org.example.Shortlink.Core.Model.ResolveResult;
+import org.example.Shortlink.Core.Service.AsyncLinkService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * HTTP-фронтенд: GET /{shortCode} → 302 на оригинальный URL.
+ * HEAD отвечает тем же статусом и Location, но переход не засчитывает.
+ * Запрос принимается виртуальным потоком, переход выполняется в пуле
+ * AsyncLinkService; при заполненной очереди пула сервер отвечает 503,
+ * при превышении частоты переходов по коду — 429
+ */
+public class RedirectServer implements AutoCloseable {
+
+    private static final int NO_BODY = -1;
+
+    private static final String LOCATION = "Location";
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String NO_STORE = "no-store";
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public RedirectServer(AsyncLinkService service, int port) {
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка запуска HTTP-сервера", e);
+        }
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", new RedirectHandler(service, executor));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /* ===================== HANDLER ===================== */
+
+    private static final class RedirectHandler implements HttpHandler {
+
+        private final AsyncLinkService service;
+        private final ExecutorService executor;
+
+        private RedirectHandler(AsyncLinkService service, ExecutorService executor) {
+            this.service = service;
+            this.executor = executor;
+        }
+
+        /**
+         * Ответ отправляется из колбэка future, exchange закрывается там же
+         */
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                respond(exchange, 405);
+                return;
+            }
+
+            String shortCode = extractShortCode(exchange.getRequestURI().getRawPath());
+            if (shortCode == null) {
+                respond(exchange, 404);
+                return;
+            }
+
+            CompletableFuture<ResolveResult> future = "HEAD".equals(method)
+                    ? service.peek(shortCode)
+                    : service.redirect(shortCode);
+            future.whenCompleteAsync((result, error) -> {
+                try {
+                    if (error != null) {
+                        respondFailure(exchange, error);
+                    } else {
+                        respondResult(exchange, result);
+                    }
+                } catch (IOException ignored) {
+                    // клиент закрыл соединение
+                } finally {
+                    exchange.close();
+                }
+            }, executor);
+        }
+
+        private static void respondResult(HttpExchange exchange, ResolveResult result) throws IOException {
+            if (result.getStatus() == LinkStatus.RATE_LIMITED) {
+                exchange.getResponseHeaders().set(RETRY_AFTER, "1");
+                exchange.sendResponseHeaders(429, NO_BODY);
+                return;
+            }
+            if (!result.isRedirect()) {
+                exchange.sendResponseHeaders(404, NO_BODY);
+                return;
+            }
+
+            Headers headers = exchange.getResponseHeaders();
+            headers.set(LOCATION, result.getOriginalUrl());
+            headers.set(CACHE_CONTROL, NO_STORE);
+            exchange.sendResponseHeaders(302, NO_BODY);
+        }
+
+        private static void respondFailure(HttpExchange exchange, Throwable error) throws IOException {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+
+            if (cause instanceof RejectedExecutionException) {
+                // очередь к базе заполнена: клиенту — повторить позже
+                exchange.getResponseHeaders().set(RETRY_AFTER, "1");
+                exchange.sendResponseHeaders(503, NO_BODY);
+            } else {
+                exchange.sendResponseHeaders(500, NO_BODY);
+            }
+        }
+
+        private static void respond(HttpExchange exchange, int status) throws IOException {
+            try {
+                exchange.sendResponseHeaders(status, NO_BODY);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        /**
+         * "/abc1234" → "abc1234"; вложенные пути и пустой код не маршрутизируются
+         */
+        private static String extractShortCode(String path) {
+            if (path == null || path.length() < 2 || path.indexOf('/', 1) >= 0) {
+                return null;
+            }
+            return path.substring(1);
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package org.example.Shortlink.App;
+
+import org.example.Shortlink.Core.Metrics.LatencyHistogram;
+import org.example.Shortlink.Core.Metrics.MetricsRegistry;
+import org.example.Shortlink.Core.Model.CreateLinkResult;
+import org.example.Shortlink.Core.Model.LinkStatus;
+import org.example.Shortlink.Core.Model.ResolveResult;
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Core.Service.WriteBehindClickCounter;
+import org.example.Shortlink.Storage.Config.AppConfig;
+import org.example.Shortlink.Storage.Repo.BloomFilterLinkRepository;
+import org.example.Shortlink.Storage.Repo.CachingLinkRepository;
+import org.example.Shortlink.Storage.Repo.InstrumentedLinkRepository;
+import org.example.Shortlink.Util.HashShortCodeStrategy;
+import org.example.Shortlink.Util.ZipfDistribution;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Нагрузочный и длительный прогон LinkService без HTTP.
+ *
+ * N виртуальных потоков выполняют смесь create / resolve / edit / delete над набором
+ * ссылок; ссылка для resolve, edit и delete выбирается по распределению Ципфа,
+ * create заменяет случайную ссылку набора новой. Хранилище — storage.mode в новом
+ * временном каталоге, над ним те же декораторы, что в Main: замеры, фильтр Блума,
+ * кэш и отложенная запись переходов (вне кучи — без кэша и отложенной записи);
+ * ограничения владельцев выключены. Печатает пропускную способность, перцентили
+ * задержки по операциям и число ошибок.
+ *
+ * В конце переходы сбрасываются, и для каждой неудалённой ссылки currentClicks
+ * в хранилище сверяется с числом допущенных переходов: потерянные и лишние
+ * переходы и превышение maxClicks — код выхода 1.
+ *
+ * Аргументы key=value: storage=single threads=64 seconds=10 links=10000
+ * mix=5/85/5/5 (create/resolve/edit/delete) zipf=0.99 maxClicks=1000000.
+ * Несколько значений threads через запятую (threads=1,8,64,256) — прогон на каждое
+ * на свежем хранилище: видно, на каком числе потоков перестаёт расти пропускная способность
+ */
+public class LoadGenerator {
+
+    private static final int OWNERS = 16;
+
+    private enum Operation { CREATE, RESOLVE, EDIT, DELETE }
+
+    /**
+     * Ссылка набора и её владелец — для edit и delete
+     */
+    private record Slot(String shortCode, UUID ownerId) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String storage = options.getOrDefault("storage", "single");
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int links = Integer.parseInt(options.getOrDefault("links", "10000"));
+        double zipf = Double.parseDouble(options.getOrDefault("zipf", "0.99"));
+        int maxClicks = Integer.parseInt(options.getOrDefault("maxClicks", "1000000"));
+        int[] mix = parseMix(options.getOrDefault("mix", "5/85/5/5"));
+
+        boolean consistent = true;
+        for (String threads : options.getOrDefault("threads", "64").split(",")) {
+            Run run = new Run(storage, Integer.parseInt(threads.trim()), seconds, links, mix, zipf, maxClicks);
+            consistent &= run.execute();
+        }
+
+        if (!consistent) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Аргумент должен иметь вид ключ=значение: " + arg);
+            }
+            options.put(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        return options;
+    }
+
+    private static int[] parseMix(String mix) {
+        String[] parts = mix.split("/");
+        if (parts.length != Operation.values().length) {
+            throw new IllegalArgumentException("mix — четыре веса create/resolve/edit/delete: " + mix);
+        }
+        int[] weights = new int[parts.length];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            weights[i] = Integer.parseInt(parts[i].trim());
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Вес операции не может быть отрицательным: " + mix);
+            }
+            total += weights[i];
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Сумма весов mix должна быть положительной");
+        }
+        return weights;
+    }
+
+    /* ===================== Прогон ===================== */
+
+    private static final class Run {
+
+        private final String storageMode;
+        private final int threads;
+        private final int seconds;
+        private final int linkCount;
+        private final int[] mix;
+        private final int mixTotal;
+        private final double zipfExponent;
+        private final int maxClicks;
+
+        private final LatencyHistogram[] latency = new LatencyHistogram[Operation.values().length];
+        private final LongAdder[] errors = new LongAdder[Operation.values().length];
+        private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        // допущенные переходы по коду: с ними сверяется currentClicks
+        private final Map<String, LongAdder> admitted = new ConcurrentHashMap<>();
+        private final Map<String, Boolean> deleted = new ConcurrentHashMap<>();
+        private final AtomicLong urlSequence = new AtomicLong();
+
+        private AtomicReferenceArray<Slot> slots;
+        private UUID[] owners;
+        private ZipfDistribution zipf;
+
+        private Run(String storageMode, int threads, int seconds, int linkCount, int[] mix,
+                    double zipfExponent, int maxClicks) {
+            this.storageMode = storageMode;
+            this.threads = threads;
+            this.seconds = seconds;
+            this.linkCount = linkCount;
+            this.mix = mix;
+            this.zipfExponent = zipfExponent;
+            this.maxClicks = maxClicks;
+
+            int total = 0;
+            for (int weight : mix) {
+                total += weight;
+            }
+            this.mixTotal = total;
+            for (int i = 0; i < latency.length; i++) {
+                latency[i] = new LatencyHistogram();
+                errors[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * @return true — счётчики переходов сошлись
+         */
+        private boolean execute() throws Exception {
+            Path dir = Files.createTempDirectory("shortlinks-soak");
+            System.setProperty("storage.mode", storageMode);
+            System.setProperty("storage.mmap.dir", dir.resolve("log").toString());
+            System.setProperty("console.output", "false");
+            AppConfig config = AppConfig.load();
+
+            // сборка как в Main; хранилище закрывается вместе с верхним декоратором
+            MetricsRegistry metrics = new MetricsRegistry();
+            LinkRepository storage = new InstrumentedLinkRepository(
+                    Main.openStorage(config, dir.resolve("shortlinks.db").toString()), metrics);
+            BloomFilterLinkRepository bloom = Main.openBloomFilter(config, storage, metrics);
+            if (bloom != null && !bloom.isBuilt()) {
+                // фонового прогрева здесь нет: прогон начинается с построенным фильтром
+                bloom.rebuild();
+            }
+            boolean offHeap = "offheap".equals(config.getStorageMode());
+            LinkRepository filtered = bloom != null ? bloom : storage;
+            try (LinkRepository repository = offHeap ? filtered
+                         : new CachingLinkRepository(filtered, config.getCacheMaxEntries());
+                 WriteBehindClickCounter clickCounter = config.getClickFlushIntervalMillis() > 0 && !offHeap
+                         ? new WriteBehindClickCounter(repository, config.getClickFlushIntervalMillis(),
+                         config.getClickHotThreshold())
+                         : null) {
+
+                LinkService service = new LinkService(repository, config, clickCounter,
+                        new HashShortCodeStrategy(), null, metrics, null);
+                populate(service);
+
+                System.out.printf("Прогон: storage=%s, потоков=%d, %dс, ссылок=%d, create/resolve/edit/delete=%d/%d/%d/%d, "
+                                + "zipf=%.2f (первая ссылка — %.1f%% обращений), отложенная запись=%s%n",
+                        storageMode, threads, seconds, linkCount, mix[0], mix[1], mix[2], mix[3], zipfExponent,
+                        zipf.probability(0) * 100, clickCounter != null ? config.getClickFlushIntervalMillis() + "мс" : "нет");
+
+                long started = System.nanoTime();
+                long deadline = started + seconds * 1_000_000_000L;
+                try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                    List<Future<?>> workers = new ArrayList<>(threads);
+                    for (int i = 0; i < threads; i++) {
+                        workers.add(executor.submit(() -> work(service, deadline)));
+                    }
+                    for (Future<?> worker : workers) {
+                        worker.get();
+                    }
+                }
+                double elapsed = (System.nanoTime() - started) / 1e9;
+
+                if (clickCounter != null) {
+                    clickCounter.flush();
+                }
+                report(elapsed);
+                return verify(storage);
+            } finally {
+                deleteRecursively(dir);
+            }
+        }
+
+        /**
+         * Начальный набор: ссылки поровну у OWNERS владельцев, пакетной вставкой
+         */
+        private void populate(LinkService service) {
+            owners = new UUID[OWNERS];
+            for (int i = 0; i < OWNERS; i++) {
+                owners[i] = UUID.randomUUID();
+            }
+
+            slots = new AtomicReferenceArray<>(linkCount);
+            int next = 0;
+            for (int o = 0; o < OWNERS && next < linkCount; o++) {
+                int share = (linkCount - next) / (OWNERS - o);
+                List<String> urls = new ArrayList<>(share);
+                for (int i = 0; i < share; i++) {
+                    urls.add(nextUrl());
+                }
+                for (CreateLinkResult result : service.createLinks(owners[o], urls, maxClicks)) {
+                    if (!result.isSuccess()) {
+                        throw new IllegalStateException("Не создана ссылка набора: " + result.getError());
+                    }
+                    slots.set(next++, new Slot(result.getLink().getShortCode(), owners[o]));
+                }
+            }
+            zipf = new ZipfDistribution(linkCount, zipfExponent);
+        }
+
+        private String nextUrl() {
+            return "https://example.com/soak/" + urlSequence.incrementAndGet();
+        }
+
+        private void work(LinkService service, long deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            while (System.nanoTime() < deadline) {
+                Operation operation = pick(random.nextInt(mixTotal));
+                long start = System.nanoTime();
+                try {
+                    switch (operation) {
+                        case CREATE -> create(service, random);
+                        case RESOLVE -> resolve(service, slots.get(zipf.next(random)));
+                        case EDIT -> edit(service, slots.get(zipf.next(random)));
+                        case DELETE -> delete(service, zipf.next(random), random);
+                    }
+                } catch (RuntimeException e) {
+                    errors[operation.ordinal()].increment();
+                    count(operation.name().toLowerCase() + " " + e.getClass().getSimpleName());
+                }
+                latency[operation.ordinal()].record(System.nanoTime() - start);
+            }
+        }
+
+        private Operation pick(int roll) {
+            for (Operation operation : Operation.values()) {
+                roll -= mix[operation.ordinal()];
+                if (roll < 0) {
+                    return operation;
+                }
+            }
+            return Operation.RESOLVE;
+        }
+
+        /**
+         * Новая ссылка случайного владельца занимает случайное место набора;
+         * вытесненная ссылка остаётся в хранилище и тоже сверяется в конце
+         */
+        private void create(LinkService service, ThreadLocalRandom random) {
+            UUID owner = owners[random.nextInt(owners.length)];
+            ShortLink link = service.createLink(owner, nextUrl(), maxClicks);
+            slots.set(random.nextInt(linkCount), new Slot(link.getShortCode(), owner));
+        }
+
+        private void resolve(LinkService service, Slot slot) {
+            ResolveResult result = service.tryResolve(slot.shortCode());
+            if (result.isRedirect()) {
+                admitted.computeIfAbsent(slot.shortCode(), code -> new LongAdder()).increment();
+            }
+            count("resolve " + result.getStatus());
+        }
+
+        private void edit(LinkService service, Slot slot) {
+            count("edit " + service.edit(slot.ownerId(), slot.shortCode(), 24L, null).getStatus());
+        }
+
+        /**
+         * Удалённая ссылка сразу заменяется новой того же владельца — набор не пустеет
+         */
+        private void delete(LinkService service, int index, ThreadLocalRandom random) {
+            Slot slot = slots.get(index);
+            LinkStatus status = service.delete(slot.ownerId(), slot.shortCode()).getStatus();
+            count("delete " + status);
+            if (status == LinkStatus.OK) {
+                deleted.put(slot.shortCode(), Boolean.TRUE);
+                ShortLink replacement = service.createLink(slot.ownerId(), nextUrl(), maxClicks);
+                slots.compareAndSet(index, slot, new Slot(replacement.getShortCode(), slot.ownerId()));
+            }
+        }
+
+        private void count(String outcome) {
+            statuses.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        }
+
+        /* ===================== Итоги ===================== */
+
+        private void report(double elapsed) {
+            long operations = 0;
+            long failed = 0;
+            for (Operation operation : Operation.values()) {
+                operations += latency[operation.ordinal()].snapshot().getCount();
+                failed += errors[operation.ordinal()].sum();
+            }
+            System.out.printf("Операций: %d, ops/sec: %.0f, ошибок: %d%n", operations, operations / elapsed, failed);
+
+            for (Operation operation : Operation.values()) {
+                LatencyHistogram.Snapshot snapshot = latency[operation.ordinal()].snapshot();
+                if (snapshot.getCount() == 0) {
+                    continue;
+                }
+                System.out.printf("  %-8s n=%d, ops/sec=%.0f, мкс: p50=%d p90=%d p99=%d p999=%d max=%d, ошибок: %d%n",
+                        operation.name().toLowerCase(), snapshot.getCount(), snapshot.getCount() / elapsed,
+                        snapshot.valueAt(0.50) / 1_000, snapshot.valueAt(0.90) / 1_000,
+                        snapshot.valueAt(0.99) / 1_000, snapshot.valueAt(0.999) / 1_000,
+                        snapshot.getMax() / 1_000, errors[operation.ordinal()].sum());
+            }
+
+            System.out.println("Исходы:");
+            statuses.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                    .forEach(entry -> System.out.println("  " + entry.getKey() + ": " + entry.getValue().sum()));
+        }
+
+        /**
+         * Сверяет currentClicks в хранилище (мимо кэша) с допущенными переходами
+         */
+        private boolean verify(LinkRepository storage) {
+            long checked = 0;
+            long lost = 0;
+            long extra = 0;
+            long overLimit = 0;
+            long missing = 0;
+
+            for (Map.Entry<String, LongAdder> entry : admitted.entrySet()) {
+                if (deleted.containsKey(entry.getKey())) {
+                    continue;
+                }
+                ShortLink stored = storage.findByShortCodeOrNull(entry.getKey());
+                if (stored == null) {
+                    missing++;
+                    continue;
+                }
+
+                checked++;
+                long expected = entry.getValue().sum();
+                lost += Math.max(0, expected - stored.getCurrentClicks());
+                extra += Math.max(0, stored.getCurrentClicks() - expected);
+                if (stored.getCurrentClicks() > stored.getMaxClicks()) {
+                    overLimit++;
+                }
+            }
+
+            System.out.printf("Сверка переходов: ссылок %d, потеряно %d, лишних %d, сверх лимита %d, пропало ссылок %d%n%n",
+                    checked, lost, extra, overLimit, missing);
+            return lost == 0 && extra == 0 && overLimit == 0 && missing == 0;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
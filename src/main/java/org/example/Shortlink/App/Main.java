@@ -1,18 +1,67 @@
 package org.example.Shortlink.App;
 
+import org.example.Shortlink.App.Http.MetricsServer;
+import org.example.Shortlink.App.Http.RedirectServer;
+import org.example.Shortlink.Core.Metrics.MetricsMBean;
+import org.example.Shortlink.Core.Metrics.MetricsRegistry;
+import org.example.Shortlink.Core.Model.ClickBucket;
+import org.example.Shortlink.Core.Model.ClickGranularity;
+import org.example.Shortlink.Core.Model.CreateLinkResult;
 import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.AsyncLinkService;
+import org.example.Shortlink.Core.Service.ClickEventPipeline;
+import org.example.Shortlink.Core.Service.ClickStatsRepository;
+import org.example.Shortlink.Core.Service.ExpirySweeper;
+import org.example.Shortlink.Core.Service.LimitExceededException;
+import org.example.Shortlink.Core.Service.LinkRateLimiter;
 import org.example.Shortlink.Core.Service.LinkRepository;
 import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Core.Service.WriteBehindClickCounter;
 import org.example.Shortlink.Storage.Config.AppConfig;
+import org.example.Shortlink.Storage.Repo.BloomFilterLinkRepository;
+import org.example.Shortlink.Storage.Repo.CachingLinkRepository;
+import org.example.Shortlink.Storage.Repo.InMemoryClickStatsRepository;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.example.Shortlink.Storage.Repo.InstrumentedLinkRepository;
+import org.example.Shortlink.Storage.Repo.LinkArchive;
+import org.example.Shortlink.Storage.Repo.MappedLogLinkRepository;
+import org.example.Shortlink.Storage.Repo.OffHeapLinkRepository;
+import org.example.Shortlink.Storage.Repo.PooledSQLiteLinkRepository;
+import org.example.Shortlink.Storage.Repo.SQLiteClickStatsRepository;
+import org.example.Shortlink.Storage.Repo.SQLiteIdBlockAllocator;
 import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.example.Shortlink.Storage.Repo.ShardedLinkRepository;
+import org.example.Shortlink.Util.FilteredShortCodeStrategy;
+import org.example.Shortlink.Util.HashShortCodeStrategy;
+import org.example.Shortlink.Util.SequenceShortCodeStrategy;
+import org.example.Shortlink.Util.ShortCodeStrategy;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
 
+    // время входа в main, если ОС не сообщает время запуска процесса
+    private static final Instant MAIN_ENTERED = Instant.now();
+
+    // код, которого нет в базе: прогревает путь поиска без побочных эффектов
+    private static final String WARMUP_CODE = "~warmup";
+
+    private static final long LINK_ROWS_TTL_MILLIS = 30_000;
+
     public static void main(String[] args) throws Exception {
         // UTF-8 для консоли
         System.setOut(new java.io.PrintStream(System.out, true, "UTF-8"));
@@ -26,10 +75,120 @@ public class Main {
 
         // Конфигурация и сервисы
         AppConfig config = AppConfig.load();
-        LinkRepository repository = new SQLiteLinkRepository("shortlinks.db");
-        LinkService service = new LinkService(repository, config);
 
-        Thread.sleep(3500);
+        // Перенос ссылок в другое число шардов: java -jar ... reshard <число шардов>
+        if (args.length > 1 && "reshard".equals(args[0])) {
+            reshard(config, Integer.parseInt(args[1]));
+            return;
+        }
+
+        // Выгрузка, загрузка и снимок: java -jar ... export <файл> [база] | import <файл> | snapshot <файл>
+        if (args.length > 1 && "export".equals(args[0])) {
+            exportLinks(config, Path.of(args[1]), args.length > 2 ? args[2] : "shortlinks.db");
+            return;
+        }
+        if (args.length > 1 && "import".equals(args[0])) {
+            importLinks(config, Path.of(args[1]));
+            return;
+        }
+        if (args.length > 1 && "snapshot".equals(args[0])) {
+            snapshot(config, Path.of(args[1]));
+            return;
+        }
+
+        MetricsRegistry metrics = new MetricsRegistry();
+        LinkRepository storage = new InstrumentedLinkRepository(openStorage(config, "shortlinks.db"), metrics);
+        BloomFilterLinkRepository bloom = openBloomFilter(config, storage, metrics);
+        // записи вне кучи читаются на месте: кэш ShortLink в куче и отложенная запись переходов
+        // вернули бы сборщику мусора то, от чего хранилище избавляет
+        boolean offHeap = "offheap".equals(config.getStorageMode());
+        CachingLinkRepository cache = offHeap ? null
+                : new CachingLinkRepository(bloom != null ? bloom : storage, config.getCacheMaxEntries());
+        LinkRepository repository = cache != null ? cache : bloom != null ? bloom : storage;
+
+        // закрываются в обратном порядке при выходе
+        Deque<AutoCloseable> resources = new ArrayDeque<>();
+        resources.push(repository);
+
+        WriteBehindClickCounter clickCounter = null;
+        if (config.getClickFlushIntervalMillis() > 0 && !offHeap) {
+            clickCounter = new WriteBehindClickCounter(repository, config.getClickFlushIntervalMillis(),
+                    config.getClickHotThreshold());
+            resources.push(clickCounter);
+            metrics.gauge("clicks.hot_links", clickCounter::getHotLinks);
+            metrics.gauge("clicks.hot_promotions", clickCounter::getPromotions);
+        }
+
+        LinkRateLimiter limiter = openRateLimiter(config, repository, metrics);
+
+        ShortCodeStrategy codeStrategy = openCodeStrategy(config, "shortlinks.db", resources);
+        if (bloom != null) {
+            // пока фильтр строится, он не отличает свободные коды от занятых
+            codeStrategy = new FilteredShortCodeStrategy(codeStrategy,
+                    code -> bloom.isBuilt() && bloom.mightContain(code), 3);
+        }
+        ClickEventPipeline analytics = openAnalytics(config, "shortlinks.db", resources);
+        LinkService service = new LinkService(repository, config, clickCounter, codeStrategy, analytics, metrics, limiter);
+
+        if (config.getCleanupIntervalSeconds() > 0) {
+            // очистка удаляет ссылки мимо сервиса: места владельцев, счётчики и аналитика
+            // освобождаются по её отчёту; закрывается раньше сервиса и аналитики
+            ExpirySweeper sweeper = new ExpirySweeper(repository,
+                    config.getCleanupIntervalSeconds(), config.getCleanupBatchSize(), service::expired);
+            resources.push(sweeper);
+            metrics.gauge("sweeper.removed", sweeper::getTotalRemoved);
+            metrics.gauge("sweeper.failures", sweeper::getFailureCount);
+            metrics.gauge("sweeper.last_removed", sweeper::getLastRemoved);
+            metrics.gauge("sweeper.last_duration_ms", sweeper::getLastSweepMillis);
+        }
+
+        // датчики читаются только при выгрузке метрик
+        if (cache != null) {
+            metrics.gauge("cache.size", cache::size);
+            metrics.gauge("cache.hits", cache::getHits);
+            metrics.gauge("cache.misses", cache::getMisses);
+        }
+        // count(*) обходит всю таблицу: не чаще раза в LINK_ROWS_TTL_MILLIS, сколько бы ни опрашивали
+        metrics.gauge("links.rows", storage::count, LINK_ROWS_TTL_MILLIS);
+        if (analytics != null) {
+            metrics.gauge("analytics.dropped", analytics::getDropped);
+        }
+        resources.push(new MetricsMBean(metrics));
+        if (config.getMetricsPort() > 0) {
+            MetricsServer metricsServer = new MetricsServer(metrics, config.getMetricsPort());
+            metricsServer.start();
+            resources.push(metricsServer);
+        }
+
+        // Прогрев: при startup.fast — в фоне, запросы принимаются сразу
+        StartupWarmup warmup = new StartupWarmup();
+        if (limiter != null) {
+            // первым: создания ждут подсчёта ссылок владельцев
+            warmup.add(limiter::seedOwnerCounts);
+        }
+        if (bloom != null && !bloom.isBuilt()) {
+            warmup.add(bloom::rebuild);
+        }
+        warmup.add(() -> repository.findByShortCodeOrNull(WARMUP_CODE));
+        resources.push(warmup);
+        metrics.gauge("startup.warmup_ms", warmup::getDurationMillis);
+        warmup.start();
+        if (!config.isStartupFast()) {
+            warmup.await(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        // Режим HTTP-сервера редиректов: java -jar ... server
+        if (args.length > 0 && "server".equals(args[0])) {
+            runServer(service, resources, config, metrics);
+            return;
+        }
+
+        // Замер старта: сервер поднимается, ждёт прогрева и завершается; java -jar ... startup
+        if (args.length > 0 && "startup".equals(args[0])) {
+            runStartupCheck(service, resources, config, metrics, warmup);
+            return;
+        }
+
         clearConsole();
         // UUID пользователя
         UUID userId = UUID.randomUUID();
@@ -48,7 +207,7 @@ public class Main {
                     try {
                         ShortLink link = service.createLink(userId, url, null);
                         System.out.println("Короткая ссылка: " + link.getShortCode());
-                    } catch (IllegalArgumentException e) {
+                    } catch (IllegalArgumentException | LimitExceededException e) {
                         System.out.println("Ошибка: " + e.getMessage());
                     }
                     pause();
@@ -62,8 +221,15 @@ public class Main {
                     break;
 
                 case "3": // Список ссылок
-                    List<ShortLink> links = service.listUserLinks(userId);
-                    printLinks(links);
+                    // печать по мере чтения: список целиком в памяти не собирается
+                    int[] printed = {0};
+                    service.forEachUserLink(userId, l -> {
+                        printLink(l);
+                        printed[0]++;
+                    });
+                    if (printed[0] == 0) {
+                        System.out.println("Ссылок нет.");
+                    }
                     pause();
                     break;
 
@@ -142,13 +308,47 @@ public class Main {
                     pause();
                     break;
 
+                case "6": // Создать ссылки из файла
+                    System.out.print("Путь к файлу (один URL на строку): ");
+                    String file = scanner.nextLine().trim();
+                    try {
+                        List<String> urls = Files.readAllLines(Path.of(file)).stream()
+                                .map(String::trim)
+                                .filter(line -> !line.isEmpty())
+                                .toList();
+                        for (CreateLinkResult result : service.createLinks(userId, urls, null)) {
+                            System.out.println(result.isSuccess()
+                                    ? result.getLink().getShortCode() + " ← " + result.getOriginalUrl()
+                                    : "✖ " + result.getOriginalUrl() + ": " + result.getError());
+                        }
+                    } catch (IOException | InvalidPathException e) {
+                        System.out.println("Ошибка чтения файла: " + e.getMessage());
+                    }
+                    pause();
+                    break;
+
+                case "7": // История переходов
+                    System.out.print("Введите короткий код: ");
+                    String statsCode = scanner.nextLine().trim();
+                    Instant to = Instant.now();
+                    List<ClickBucket> history = service.clickHistory(userId, statsCode,
+                            ClickGranularity.HOUR, to.minus(24, ChronoUnit.HOURS), to);
+                    if (history.isEmpty()) {
+                        System.out.println("Переходов за последние 24 часа нет.");
+                    }
+                    for (ClickBucket bucket : history) {
+                        System.out.println(bucket.getStart() + "  " + bucket.getClicks());
+                    }
+                    pause();
+                    break;
+
                 case "9": // Очистить консоль
                     clearConsole();
                     break;
 
                 case "0": // Выход
                     System.out.println("Выход...");
-                    repository.close();
+                    closeAll(resources);
                     return;
 
                 default:
@@ -158,6 +358,215 @@ public class Main {
         }
     }
 
+    private static void runServer(LinkService service, Deque<AutoCloseable> resources, AppConfig config,
+                                  MetricsRegistry metrics) throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            closeAll(resources);
+            stopped.countDown();
+        }));
+
+        startServer(service, resources, config, metrics);
+        stopped.await();
+    }
+
+    /**
+     * Поднимает сервер как в режиме server, дожидается прогрева и завершается.
+     * Код выхода 1 — старт не уложился в startup.budget.ms
+     */
+    private static void runStartupCheck(LinkService service, Deque<AutoCloseable> resources, AppConfig config,
+                                        MetricsRegistry metrics, StartupWarmup warmup) throws InterruptedException {
+        long readyMillis = startServer(service, resources, config, metrics);
+
+        if (warmup.await(60, TimeUnit.SECONDS)) {
+            System.out.println("Прогрев завершён за " + warmup.getDurationMillis() + " мс");
+        } else {
+            System.out.println("Прогрев не завершился за 60 с");
+        }
+        closeAll(resources);
+
+        if (readyMillis > config.getStartupBudgetMillis()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return миллисекунды от запуска процесса до приёма запросов
+     */
+    private static long startServer(LinkService service, Deque<AutoCloseable> resources, AppConfig config,
+                                    MetricsRegistry metrics) {
+        AsyncLinkService async = new AsyncLinkService(service, config.getAsyncThreads(), config.getAsyncQueueSize());
+        resources.push(async);
+        metrics.gauge("async.queue_depth", async::getQueueDepth);
+        metrics.gauge("async.rejected", async::getRejected);
+
+        RedirectServer server = new RedirectServer(async, config.getHttpPort());
+        resources.push(server);
+        server.start();
+
+        long readyMillis = millisSinceStart();
+        metrics.gauge("startup.ready_ms", () -> readyMillis);
+        System.out.println("HTTP-сервер запущен на порту " + server.getPort() + " за " + readyMillis + " мс");
+        if (readyMillis > config.getStartupBudgetMillis()) {
+            System.err.println("⚠ Старт дольше бюджета startup.budget.ms=" + config.getStartupBudgetMillis());
+        }
+        return readyMillis;
+    }
+
+    /**
+     * Время от запуска процесса; если ОС его не сообщает — от входа в main
+     */
+    private static long millisSinceStart() {
+        Instant started = ProcessHandle.current().info().startInstant().orElse(MAIN_ENTERED);
+        return Duration.between(started, Instant.now()).toMillis();
+    }
+
+    static LinkRepository openStorage(AppConfig config, String dbPath) {
+        return switch (config.getStorageMode()) {
+            case "single" -> new SQLiteLinkRepository(dbPath,
+                    config.getStorageCommitBatch(), config.getStorageCommitWaitMicros());
+            case "pooled" -> new PooledSQLiteLinkRepository(dbPath, config.getStorageReaders());
+            case "memory" -> new InMemoryLinkRepository();
+            case "mmap" -> new MappedLogLinkRepository(Path.of(config.getStorageMmapDir()));
+            case "offheap" -> new OffHeapLinkRepository();
+            case "sharded" -> new ShardedLinkRepository(dbPath, config.getStorageShards());
+            default -> throw new IllegalArgumentException("Неизвестный storage.mode: " + config.getStorageMode());
+        };
+    }
+
+    /**
+     * Фильтр Блума между кэшем и хранилищем
+     *
+     * @return null, если фильтр выключен
+     */
+    static BloomFilterLinkRepository openBloomFilter(AppConfig config, LinkRepository storage,
+                                                     MetricsRegistry metrics) {
+        if (config.getBloomFalsePositiveRate() <= 0) {
+            return null;
+        }
+
+        // при быстром старте фильтр строит фоновый прогрев
+        BloomFilterLinkRepository filtered = new BloomFilterLinkRepository(storage,
+                config.getBloomFalsePositiveRate(), !config.isStartupFast());
+        metrics.gauge("bloom.rejected", filtered::getRejected);
+        metrics.gauge("bloom.false_positives", filtered::getFalsePositives);
+        metrics.gauge("bloom.fpp_ppm", () -> Math.round(filtered.getFalsePositiveRate() * 1_000_000));
+        metrics.gauge("bloom.expected_fpp_ppm", () -> Math.round(filtered.getExpectedFalsePositiveRate() * 1_000_000));
+        return filtered;
+    }
+
+    /**
+     * Ограничения владельцев: частота создания, частота переходов по коду, число ссылок
+     *
+     * @return null, если все ограничения выключены
+     */
+    private static LinkRateLimiter openRateLimiter(AppConfig config, LinkRepository repository,
+                                                   MetricsRegistry metrics) {
+        if (config.getLimitsCreatesPerSecond() <= 0 && config.getLimitsResolvesPerSecond() <= 0
+                && config.getLimitsMaxLinksPerOwner() <= 0) {
+            return null;
+        }
+
+        LinkRateLimiter limiter = new LinkRateLimiter(repository, config.getLimitsStripes(),
+                config.getLimitsCreatesPerSecond(), config.getLimitsCreateBurst(),
+                config.getLimitsResolvesPerSecond(), config.getLimitsResolveBurst(),
+                config.getLimitsMaxLinksPerOwner());
+        metrics.gauge("limits.create_rejected", limiter::getRejectedCreates);
+        metrics.gauge("limits.resolve_rejected", limiter::getRejectedResolves);
+        metrics.gauge("limits.quota_rejected", limiter::getRejectedByQuota);
+        metrics.gauge("limits.tracked_owners", limiter::getTrackedOwners);
+        return limiter;
+    }
+
+    /**
+     * Текущая раскладка — storage.shards в режиме sharded, иначе один файл
+     */
+    private static void reshard(AppConfig config, int toShards) throws Exception {
+        int fromShards = "sharded".equals(config.getStorageMode()) ? config.getStorageShards() : 1;
+        long moved = ShardedLinkRepository.reshard("shortlinks.db", fromShards, toShards);
+
+        System.out.println("Перенесено ссылок: " + moved + " (" + fromShards + " → " + toShards + " шардов)");
+        System.out.println("Укажите storage.mode=sharded и storage.shards=" + toShards
+                + "; старые файлы можно удалить после проверки");
+    }
+
+    /**
+     * @param dbPath база-источник: shortlinks.db или снимок, сделанный командой snapshot
+     */
+    private static void exportLinks(AppConfig config, Path file, String dbPath) throws Exception {
+        try (LinkRepository storage = openStorage(config, dbPath)) {
+            long exported = LinkArchive.export(storage, file);
+            System.out.println("Выгружено ссылок: " + exported + " → " + file);
+        }
+    }
+
+    private static void importLinks(AppConfig config, Path file) throws Exception {
+        try (LinkRepository storage = openStorage(config, "shortlinks.db")) {
+            LinkArchive.ImportResult result = LinkArchive.importInto(storage, file);
+            System.out.println("Загружено ссылок: " + result.imported() + " из " + result.read()
+                    + (result.skipped() > 0 ? " (код уже занят: " + result.skipped() + ")" : ""));
+        }
+    }
+
+    /**
+     * Согласованная копия базы, пока сервис работает; только для режимов на файлах SQLite
+     */
+    private static void snapshot(AppConfig config, Path target) {
+        switch (config.getStorageMode()) {
+            case "single", "pooled" -> SQLiteLinkRepository.snapshot("shortlinks.db", target);
+            case "sharded" -> ShardedLinkRepository.snapshot("shortlinks.db", config.getStorageShards(), target);
+            default -> throw new IllegalArgumentException(
+                    "Снимок доступен только для SQLite (single, pooled, sharded); для storage.mode="
+                            + config.getStorageMode() + " используйте export");
+        }
+        System.out.println("Снимок базы записан: " + target);
+    }
+
+    private static ShortCodeStrategy openCodeStrategy(AppConfig config, String dbPath,
+                                                      Deque<AutoCloseable> resources) {
+        return switch (config.getShortCodeStrategy()) {
+            case "hash" -> new HashShortCodeStrategy();
+            case "sequence" -> {
+                SQLiteIdBlockAllocator allocator = new SQLiteIdBlockAllocator(dbPath);
+                resources.push(allocator);
+                yield new SequenceShortCodeStrategy(allocator, config.getShortCodeBlockSize());
+            }
+            default -> throw new IllegalArgumentException("Неизвестный shortcode.strategy: " + config.getShortCodeStrategy());
+        };
+    }
+
+    /**
+     * @return null, если аналитика выключена
+     */
+    private static ClickEventPipeline openAnalytics(AppConfig config, String dbPath,
+                                                    Deque<AutoCloseable> resources) {
+        if (config.getAnalyticsFlushIntervalMillis() <= 0) {
+            return null;
+        }
+
+        boolean volatileStorage = "memory".equals(config.getStorageMode())
+                || "offheap".equals(config.getStorageMode());
+        ClickStatsRepository stats = volatileStorage
+                ? new InMemoryClickStatsRepository()
+                : new SQLiteClickStatsRepository(dbPath);
+        resources.push(stats);
+
+        ClickEventPipeline analytics = new ClickEventPipeline(stats, config.getAnalyticsBufferSize(),
+                config.getAnalyticsFlushIntervalMillis(), config.getAnalyticsMinuteRetentionHours());
+        resources.push(analytics);
+        return analytics;
+    }
+
+    private static void closeAll(Deque<AutoCloseable> resources) {
+        while (!resources.isEmpty()) {
+            try {
+                resources.pop().close();
+            } catch (Exception e) {
+                System.err.println("Ошибка при завершении: " + e.getMessage());
+            }
+        }
+    }
+
     private static void printMenu() {
         System.out.println("===== ShortLink Menu =====");
         System.out.println("1. Создать ссылку");
@@ -165,26 +574,22 @@ public class Main {
         System.out.println("3. Список ссылок");
         System.out.println("4. Редактировать ссылку");
         System.out.println("5. Удалить ссылку");
+        System.out.println("6. Создать ссылки из файла");
+        System.out.println("7. История переходов");
         System.out.println("9. Очистить консоль");
         System.out.println("0. Выход");
         System.out.println("==========================");
     }
 
-    private static void printLinks(List<ShortLink> links) {
-        if (links.isEmpty()) {
-            System.out.println("Ссылок нет.");
-            return;
-        }
-        for (ShortLink l : links) {
-            String maxClicks = (l.getMaxClicks() == null) ? "∞" : l.getMaxClicks().toString();
-            System.out.printf("%s -> %s [Переходов: %d/%s, TTL: %s, Активна: %s]%n",
-                    l.getShortCode(),
-                    l.getOriginalUrl(),
-                    l.getCurrentClicks(),
-                    maxClicks,
-                    l.getExpiresAt(),
-                    l.isActive());
-        }
+    private static void printLink(ShortLink l) {
+        String maxClicks = (l.getMaxClicks() == null) ? "∞" : l.getMaxClicks().toString();
+        System.out.printf("%s -> %s [Переходов: %d/%s, TTL: %s, Активна: %s]%n",
+                l.getShortCode(),
+                l.getOriginalUrl(),
+                l.getCurrentClicks(),
+                maxClicks,
+                l.getExpiresAt(),
+                l.isActive());
     }
 
     private static void pause() {
@@ -0,0 +1,75 @@
+package org.example.Shortlink.App;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прогрев после старта в отдельном потоке.
+ *
+ * Сервис принимает запросы сразу, а медленные подготовительные шаги
+ * (построение фильтра Блума, первые запросы через драйвер SQLite) идут параллельно.
+ * Ошибка шага печатается и не мешает остальным: без прогрева сервис работает, только медленнее
+ */
+public class StartupWarmup implements AutoCloseable {
+
+    private final List<Runnable> steps = new ArrayList<>();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final Thread thread;
+    private volatile long durationMillis = -1;
+
+    public StartupWarmup() {
+        this.thread = new Thread(this::run, "startup-warmup");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Шаги выполняются по порядку добавления; добавлять до start
+     */
+    public void add(Runnable step) {
+        steps.add(step);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            for (Runnable step : steps) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                try {
+                    step.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Ошибка прогрева: " + e.getMessage());
+                }
+            }
+        } finally {
+            durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            done.countDown();
+        }
+    }
+
+    /**
+     * @return false, если прогрев не закончился за timeout
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    /**
+     * Длительность прогрева; -1 — ещё идёт
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+    }
+}
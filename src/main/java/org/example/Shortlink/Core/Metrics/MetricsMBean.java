@@ -0,0 +1,114 @@
+package org.example.Shortlink.Core.Metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Публикация реестра метрик через JMX (jconsole, VisualVM).
+ *
+ * Атрибуты строятся из текущего набора метрик при каждом запросе:
+ * для задержек — count, mean, p50…p999 и max в микросекундах,
+ * для счётчиков и датчиков — значение
+ */
+public class MetricsMBean implements DynamicMBean, AutoCloseable {
+
+    public static final String OBJECT_NAME = "org.example.Shortlink:type=Metrics";
+
+    private final MetricsRegistry registry;
+    private final ObjectName name;
+
+    public MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+        try {
+            this.name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка регистрации метрик в JMX", e);
+        }
+    }
+
+    private Map<String, Object> values() {
+        Map<String, Object> values = new LinkedHashMap<>();
+
+        registry.timerSnapshots().forEach((metric, snapshot) -> {
+            values.put(metric + ".count", snapshot.getCount());
+            values.put(metric + ".meanMicros", snapshot.getMean() / 1_000);
+            for (int i = 0; i < MetricsRegistry.QUANTILES.length; i++) {
+                values.put(metric + "." + MetricsRegistry.QUANTILE_LABELS[i] + "Micros",
+                        snapshot.valueAt(MetricsRegistry.QUANTILES[i]) / 1_000.0);
+            }
+            values.put(metric + ".maxMicros", snapshot.getMax() / 1_000.0);
+        });
+        values.putAll(registry.counterValues());
+        values.putAll(registry.gaugeValues());
+
+        return values;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Object value = values().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Object> values = values();
+        AttributeList result = new AttributeList();
+        for (String attribute : attributes) {
+            Object value = values.get(attribute);
+            if (value != null) {
+                result.add(new Attribute(attribute, value));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        values().forEach((attribute, value) -> attributes.add(new MBeanAttributeInfo(
+                attribute, value.getClass().getName(), attribute, true, false, false)));
+
+        return new MBeanInfo(getClass().getName(), "Метрики сервиса коротких ссылок",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) {
+        throw new UnsupportedOperationException("Метрики только для чтения");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException("Операции не поддерживаются");
+    }
+
+    @Override
+    public void close() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.Shortlink.Core.Metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Реестр метрик приложения: гистограммы задержек, счётчики и датчики.
+ *
+ * Имена — через точку ("service.resolve"); в текстовом формате
+ * они превращаются в shortlink_service_resolve_seconds и т.п.
+ * Метрика создаётся при первом обращении, повторные вызовы возвращают ту же
+ */
+public class MetricsRegistry {
+
+    static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    static final String[] QUANTILE_LABELS = {"p50", "p90", "p99", "p999"};
+
+    private static final String PREFIX = "shortlink_";
+
+    private final ConcurrentHashMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Значение читается в момент выгрузки метрик, не на пути запроса
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Дорогой датчик (например, count(*) по таблице): значение запоминается на ttlMillis,
+     * частые выгрузки не повторяют запрос. Ошибка не запоминается
+     */
+    public void gauge(String name, LongSupplier value, long ttlMillis) {
+        gauges.put(name, new CachedGauge(value, TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+    }
+
+    /* ===================== Чтение ===================== */
+
+    public Map<String, LatencyHistogram.Snapshot> timerSnapshots() {
+        Map<String, LatencyHistogram.Snapshot> result = new TreeMap<>();
+        timers.forEach((name, histogram) -> result.put(name, histogram.snapshot()));
+        return result;
+    }
+
+    public Map<String, Long> counterValues() {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((name, counter) -> result.put(name, counter.sum()));
+        return result;
+    }
+
+    /**
+     * Ошибка датчика не ломает выгрузку остальных метрик: значение -1
+     */
+    public Map<String, Long> gaugeValues() {
+        Map<String, Long> result = new TreeMap<>();
+        gauges.forEach((name, gauge) -> {
+            long value;
+            try {
+                value = gauge.getAsLong();
+            } catch (RuntimeException e) {
+                value = -1;
+            }
+            result.put(name, value);
+        });
+        return result;
+    }
+
+    /* ===================== Текстовый формат ===================== */
+
+    /**
+     * Текстовый формат в стиле Prometheus: задержки — summary в секундах
+     */
+    public String render() {
+        StringBuilder out = new StringBuilder(4096);
+
+        timerSnapshots().forEach((name, snapshot) -> {
+            String metric = PREFIX + sanitize(name) + "_seconds";
+            out.append("# TYPE ").append(metric).append(" summary\n");
+            for (double quantile : QUANTILES) {
+                out.append(metric).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(snapshot.valueAt(quantile))).append('\n');
+            }
+            out.append(metric).append("_sum ").append(seconds(snapshot.getSum())).append('\n');
+            out.append(metric).append("_count ").append(snapshot.getCount()).append('\n');
+            out.append(metric).append("_max ").append(seconds(snapshot.getMax())).append('\n');
+        });
+
+        counterValues().forEach((name, value) -> {
+            String metric = PREFIX + sanitize(name) + "_total";
+            out.append("# TYPE ").append(metric).append(" counter\n");
+            out.append(metric).append(' ').append(value).append('\n');
+        });
+
+        gaugeValues().forEach((name, value) -> {
+            String metric = PREFIX + sanitize(name);
+            out.append("# TYPE ").append(metric).append(" gauge\n");
+            out.append(metric).append(' ').append(value).append('\n');
+        });
+
+        return out.toString();
+    }
+
+    static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    /* ===================== Датчик с кэшем ===================== */
+
+    private static final class CachedGauge implements LongSupplier {
+
+        private final LongSupplier source;
+        private final long ttlNanos;
+        private long value;
+        private long readAt;
+        private boolean read;
+
+        private CachedGauge(LongSupplier source, long ttlNanos) {
+            this.source = source;
+            this.ttlNanos = ttlNanos;
+        }
+
+        /**
+         * Параллельные выгрузки ждут одно чтение, а не выполняют каждая своё
+         */
+        @Override
+        public synchronized long getAsLong() {
+            long now = System.nanoTime();
+            if (!read || now - readAt >= ttlNanos) {
+                value = source.getAsLong();
+                readAt = now;
+                read = true;
+            }
+            return value;
+        }
+    }
+}
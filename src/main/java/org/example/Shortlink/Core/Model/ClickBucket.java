@@ -0,0 +1,37 @@
+package org.example.Shortlink.Core.Model;
+
+import java.time.Instant;
+
+/**
+ * Число переходов по ссылке за один интервал
+ */
+public class ClickBucket {
+
+    private final String shortCode;
+    private final ClickGranularity granularity;
+    private final Instant start;
+    private final long clicks;
+
+    public ClickBucket(String shortCode, ClickGranularity granularity, Instant start, long clicks) {
+        this.shortCode = shortCode;
+        this.granularity = granularity;
+        this.start = start;
+        this.clicks = clicks;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public ClickGranularity getGranularity() {
+        return granularity;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.Shortlink.Core.Model;
+
+/**
+ * Шаг агрегации переходов
+ */
+public enum ClickGranularity {
+
+    MINUTE(60),
+    HOUR(3600);
+
+    private final int seconds;
+
+    ClickGranularity(int seconds) {
+        this.seconds = seconds;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * Начало интервала, в который попадает момент epochSecond
+     */
+    public long bucketStart(long epochSecond) {
+        return Math.floorDiv(epochSecond, seconds) * seconds;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.Shortlink.Core.Model;
+
+/**
+ * Итог создания одной ссылки в пакете: ссылка или причина отказа
+ */
+public class CreateLinkResult {
+
+    private final String originalUrl;
+    private final ShortLink link;
+    private final String error;
+
+    private CreateLinkResult(String originalUrl, ShortLink link, String error) {
+        this.originalUrl = originalUrl;
+        this.link = link;
+        this.error = error;
+    }
+
+    public static CreateLinkResult created(ShortLink link) {
+        return new CreateLinkResult(link.getOriginalUrl(), link, null);
+    }
+
+    public static CreateLinkResult failed(String originalUrl, String error) {
+        return new CreateLinkResult(originalUrl, null, error);
+    }
+
+    public boolean isSuccess() {
+        return link != null;
+    }
+
+    public String getOriginalUrl() {
+        return originalUrl;
+    }
+
+    public ShortLink getLink() {
+        return link;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.Shortlink.Core.Model;
+
+/**
+ * Итог редактирования или удаления ссылки владельцем
+ */
+public class LinkChangeResult {
+
+    private final LinkStatus status;
+    private final ShortLink before;
+    private final ShortLink after;
+
+    private LinkChangeResult(LinkStatus status, ShortLink before, ShortLink after) {
+        this.status = status;
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * @param before снимок ссылки до изменения
+     * @param after  ссылка после изменения; null — ссылка удалена
+     */
+    public static LinkChangeResult changed(ShortLink before, ShortLink after) {
+        return new LinkChangeResult(LinkStatus.OK, before, after);
+    }
+
+    public static LinkChangeResult failed(LinkStatus status) {
+        return new LinkChangeResult(status, null, null);
+    }
+
+    public boolean isSuccess() {
+        return status == LinkStatus.OK;
+    }
+
+    public LinkStatus getStatus() {
+        return status;
+    }
+
+    public ShortLink getBefore() {
+        return before;
+    }
+
+    public ShortLink getAfter() {
+        return after;
+    }
+}
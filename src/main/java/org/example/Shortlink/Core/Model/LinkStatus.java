@@ -0,0 +1,21 @@
+package org.example.Shortlink.Core.Model;
+
+/**
+ * Исход операции над ссылкой по коду
+ */
+public enum LinkStatus {
+
+    // операция выполнена
+    OK,
+    NOT_FOUND,
+    // ссылка принадлежит другому пользователю
+    FORBIDDEN,
+    // срок истёк, ссылка удалена
+    EXPIRED,
+    // лимит переходов исчерпан или ссылка деактивирована
+    LIMIT_REACHED,
+    // слишком частые запросы владельца или переходы по коду
+    RATE_LIMITED,
+    // у владельца уже максимум ссылок
+    QUOTA_EXCEEDED
+}
@@ -0,0 +1,89 @@
+package org.example.Shortlink.Core.Model;
+
+/**
+ * Итог перехода по короткому коду: засчитанный переход или причина отказа
+ */
+public class ResolveResult {
+
+    private static final ResolveResult NOT_FOUND = new ResolveResult(LinkStatus.NOT_FOUND, null, 0);
+    private static final ResolveResult FORBIDDEN = new ResolveResult(LinkStatus.FORBIDDEN, null, 0);
+    private static final ResolveResult RATE_LIMITED = new ResolveResult(LinkStatus.RATE_LIMITED, null, 0);
+
+    private final LinkStatus status;
+    private final ShortLink link;
+    private final String originalUrl;
+    private final int currentClicks;
+
+    private ResolveResult(LinkStatus status, ShortLink link, int currentClicks) {
+        this(status, link, link != null ? link.getOriginalUrl() : null, currentClicks);
+    }
+
+    private ResolveResult(LinkStatus status, ShortLink link, String originalUrl, int currentClicks) {
+        this.status = status;
+        this.link = link;
+        this.originalUrl = originalUrl;
+        this.currentClicks = currentClicks;
+    }
+
+    /**
+     * @param currentClicks счётчик с учётом этого перехода, включая ещё не записанные в БД
+     */
+    public static ResolveResult redirect(ShortLink link, int currentClicks) {
+        return new ResolveResult(LinkStatus.OK, link, currentClicks);
+    }
+
+    /**
+     * Переход засчитан хранилищем без сборки ссылки: известен только URL, счётчик не читался
+     */
+    public static ResolveResult redirect(String originalUrl) {
+        return new ResolveResult(LinkStatus.OK, null, originalUrl, 0);
+    }
+
+    public static ResolveResult notFound() {
+        return NOT_FOUND;
+    }
+
+    /**
+     * Ссылка чужая — наружу она не отдаётся
+     */
+    public static ResolveResult forbidden() {
+        return FORBIDDEN;
+    }
+
+    /**
+     * Переходов по коду слишком много; ссылка не читалась
+     */
+    public static ResolveResult rateLimited() {
+        return RATE_LIMITED;
+    }
+
+    public static ResolveResult rejected(LinkStatus status, ShortLink link) {
+        return new ResolveResult(status, link, link.getCurrentClicks());
+    }
+
+    public boolean isRedirect() {
+        return status == LinkStatus.OK;
+    }
+
+    public LinkStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * null для NOT_FOUND, FORBIDDEN и RATE_LIMITED и для перехода, засчитанного по одному URL
+     */
+    public ShortLink getLink() {
+        return link;
+    }
+
+    /**
+     * Куда перенаправлять; null, если ссылка не читалась
+     */
+    public String getOriginalUrl() {
+        return originalUrl;
+    }
+
+    public int getCurrentClicks() {
+        return currentClicks;
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.Shortlink.Core.Service;
+
+import org.example.Shortlink.Core.Model.CreateLinkResult;
+import org.example.Shortlink.Core.Model.LinkChangeResult;
+import org.example.Shortlink.Core.Model.ResolveResult;
+import org.example.Shortlink.Core.Model.ShortLink;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Неблокирующий фасад LinkService.
+ *
+ * Вызовы выполняются в собственном пуле потоков базы с ограниченной очередью:
+ * вызывающий поток (например, поток HTTP-сервера) не ждёт SQLite и получает
+ * CompletableFuture. Когда очередь заполнена, задача не ставится в ожидание,
+ * а future сразу завершается RejectedExecutionException — сигнал вызывающему
+ * ответить "занято", а не копить запросы без предела
+ */
+public class AsyncLinkService implements AutoCloseable {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_024;
+
+    private final LinkService service;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+
+    public AsyncLinkService(LinkService service) {
+        this(service, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param threads       потоков, одновременно работающих с хранилищем
+     * @param queueCapacity сколько вызовов может ждать свободного потока
+     */
+    public AsyncLinkService(LinkService service, int threads, int queueCapacity) {
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Число потоков и размер очереди должны быть положительными");
+        }
+        this.service = service;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "db-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /* ===================== CREATE ===================== */
+
+    public CompletableFuture<ShortLink> createLink(UUID userId, String originalUrl, Integer maxClicks) {
+        return submit(() -> service.createLink(userId, originalUrl, maxClicks));
+    }
+
+    public CompletableFuture<List<CreateLinkResult>> createLinks(UUID userId, List<String> originalUrls,
+                                                                 Integer maxClicks) {
+        return submit(() -> service.createLinks(userId, originalUrls, maxClicks));
+    }
+
+    /* ===================== OPEN ===================== */
+
+    public CompletableFuture<ResolveResult> open(UUID userId, String shortCode) {
+        return submit(() -> service.open(userId, shortCode));
+    }
+
+    /**
+     * Публичный переход без проверки владельца (HTTP-редирект)
+     */
+    public CompletableFuture<ResolveResult> resolve(String shortCode) {
+        return submit(() -> service.tryResolve(shortCode));
+    }
+
+    /**
+     * HTTP-редирект: в результате гарантирован только URL (tryRedirect)
+     */
+    public CompletableFuture<ResolveResult> redirect(String shortCode) {
+        return submit(() -> service.tryRedirect(shortCode));
+    }
+
+    /**
+     * HTTP HEAD: результат редиректа без учёта перехода (peek)
+     */
+    public CompletableFuture<ResolveResult> peek(String shortCode) {
+        return submit(() -> service.peek(shortCode));
+    }
+
+    /* ===================== LIST ===================== */
+
+    public CompletableFuture<List<ShortLink>> listUserLinks(UUID userId, ShortLink after, int limit) {
+        return submit(() -> service.listUserLinks(userId, after, limit));
+    }
+
+    /* ===================== EDIT / DELETE ===================== */
+
+    public CompletableFuture<LinkChangeResult> editLink(UUID userId, String shortCode,
+                                                        Long newTtlHours, Integer newMaxClicks) {
+        return submit(() -> service.edit(userId, shortCode, newTtlHours, newMaxClicks));
+    }
+
+    public CompletableFuture<LinkChangeResult> deleteLink(UUID userId, String shortCode) {
+        return submit(() -> service.delete(userId, shortCode));
+    }
+
+    /* ===================== Очередь ===================== */
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Вызовы, отклонённые из-за заполненной очереди
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Вызовы, ждущие свободного потока
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Новые вызовы отклоняются, уже принятые дорабатываются
+     */
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.Shortlink.Core.Service;
+
+import org.example.Shortlink.Core.Model.ClickBucket;
+import org.example.Shortlink.Core.Model.ClickGranularity;
+import org.example.Shortlink.Util.ClickRingBuffer;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Конвейер событий переходов для аналитики.
+ *
+ * Путь редиректа только кладёт событие в кольцевой буфер. Фоновый поток
+ * часто вычерпывает буфер и суммирует события по минутам и часам в памяти,
+ * а раз в flushIntervalMillis пишет накопленные интервалы одной пачкой.
+ * Если буфер полон, событие отбрасывается и учитывается в getDropped().
+ * Интервалы удалённой ссылки удаляются вместе с ней (forget), минутные интервалы
+ * старше срока хранения раз в час удаляет фоновый проход (prune)
+ */
+public class ClickEventPipeline implements AutoCloseable {
+
+    private static final long DRAIN_INTERVAL_MILLIS = 50;
+    private static final int DRAIN_BATCH = 4096;
+    private static final long PRUNE_INTERVAL_MINUTES = 60;
+    private static final ClickGranularity[] GRANULARITIES = ClickGranularity.values();
+
+    private record BucketKey(String shortCode, ClickGranularity granularity, long start) {
+    }
+
+    private final ClickRingBuffer buffer;
+    private final ClickStatsRepository stats;
+    private final ScheduledExecutorService scheduler;
+    private final int minuteRetentionHours;
+
+    // изменяются только под synchronized
+    private final Map<BucketKey, Long> pending = new HashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public ClickEventPipeline(ClickStatsRepository stats, int bufferSize, long flushIntervalMillis) {
+        this(stats, bufferSize, flushIntervalMillis, 0);
+    }
+
+    /**
+     * @param minuteRetentionHours сколько часов хранить минутные интервалы; 0 — без ограничения
+     */
+    public ClickEventPipeline(ClickStatsRepository stats, int bufferSize, long flushIntervalMillis,
+                              int minuteRetentionHours) {
+        this.stats = stats;
+        this.minuteRetentionHours = minuteRetentionHours;
+        this.buffer = new ClickRingBuffer(bufferSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "click-analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::drainQuietly,
+                DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        if (minuteRetentionHours > 0) {
+            scheduler.scheduleWithFixedDelay(this::pruneQuietly,
+                    PRUNE_INTERVAL_MINUTES, PRUNE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        }
+    }
+
+    /* ===================== ЗАПИСЬ СОБЫТИЯ ===================== */
+
+    /**
+     * Регистрирует переход; не блокирует и не обращается к БД
+     */
+    public void record(String shortCode) {
+        if (buffer.offer(shortCode, System.currentTimeMillis())) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /* ===================== АГРЕГАЦИЯ ===================== */
+
+    /**
+     * Переносит события из буфера в интервалы в памяти
+     *
+     * @return число перенесённых событий
+     */
+    public synchronized int drain() {
+        int total = 0;
+        int drained;
+        do {
+            drained = buffer.drain(this::aggregate, DRAIN_BATCH);
+            total += drained;
+        } while (drained == DRAIN_BATCH);
+        return total;
+    }
+
+    private void aggregate(String shortCode, long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000);
+        for (ClickGranularity granularity : GRANULARITIES) {
+            BucketKey key = new BucketKey(shortCode, granularity, granularity.bucketStart(epochSecond));
+            pending.merge(key, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Вычерпывает буфер и записывает накопленные интервалы
+     *
+     * @return число записанных интервалов
+     */
+    public synchronized int flush() {
+        drain();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<ClickBucket> batch = new ArrayList<>(pending.size());
+        pending.forEach((key, clicks) -> batch.add(new ClickBucket(
+                key.shortCode(), key.granularity(), Instant.ofEpochSecond(key.start()), clicks)));
+
+        // при ошибке записи интервалы остаются в памяти до следующего сброса
+        stats.addBuckets(batch);
+        pending.clear();
+        return batch.size();
+    }
+
+    /* ===================== УДАЛЕНИЕ ===================== */
+
+    /**
+     * Ссылки удалены: их интервалы удаляются из памяти и из хранилища
+     */
+    public synchronized void forget(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+
+        drain();
+        Set<String> codes = new HashSet<>(shortCodes);
+        pending.keySet().removeIf(key -> codes.contains(key.shortCode()));
+        try {
+            stats.deleteBuckets(codes);
+        } catch (RuntimeException e) {
+            // ссылка уже удалена; историю прежнего владельца скрывает фильтр по дате создания
+            System.err.println("Ошибка удаления аналитики переходов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет минутные интервалы старше срока хранения
+     *
+     * @return число удалённых интервалов
+     */
+    public int prune() {
+        if (minuteRetentionHours <= 0) {
+            return 0;
+        }
+        Instant before = Instant.now().minus(minuteRetentionHours, ChronoUnit.HOURS);
+        return stats.deleteBucketsBefore(ClickGranularity.MINUTE, before);
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка обработки событий переходов: " + e.getMessage());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка записи аналитики переходов: " + e.getMessage());
+        }
+    }
+
+    private void pruneQuietly() {
+        try {
+            prune();
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка удаления устаревшей аналитики переходов: " + e.getMessage());
+        }
+    }
+
+    /* ===================== ЗАПРОСЫ ===================== */
+
+    /**
+     * Интервалы, пересекающиеся с [from, to), с учётом ещё не записанных событий
+     */
+    public List<ClickBucket> history(String shortCode, ClickGranularity granularity, Instant from, Instant to) {
+        flush();
+        Instant alignedFrom = Instant.ofEpochSecond(granularity.bucketStart(from.getEpochSecond()));
+        return stats.findBuckets(shortCode, granularity, alignedFrom, to);
+    }
+
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
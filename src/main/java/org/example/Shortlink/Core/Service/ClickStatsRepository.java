@@ -0,0 +1,38 @@
+package org.example.Shortlink.Core.Service;
+
+import org.example.Shortlink.Core.Model.ClickBucket;
+import org.example.Shortlink.Core.Model.ClickGranularity;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Хранилище агрегатов переходов по интервалам
+ */
+public interface ClickStatsRepository extends AutoCloseable {
+
+    /**
+     * Прибавляет переходы к интервалам; отсутствующие интервалы создаются
+     */
+    void addBuckets(Collection<ClickBucket> buckets);
+
+    /**
+     * Интервалы ссылки с началом в [from, to), по возрастанию времени.
+     * Интервалы без переходов не возвращаются
+     */
+    List<ClickBucket> findBuckets(String shortCode, ClickGranularity granularity, Instant from, Instant to);
+
+    /**
+     * Удаляет все интервалы ссылок — вместе с самими ссылками,
+     * чтобы выданный заново код не унаследовал чужую историю
+     */
+    void deleteBuckets(Collection<String> shortCodes);
+
+    /**
+     * Удаляет интервалы шага granularity с началом раньше before
+     *
+     * @return число удалённых интервалов
+     */
+    int deleteBucketsBefore(ClickGranularity granularity, Instant before);
+}
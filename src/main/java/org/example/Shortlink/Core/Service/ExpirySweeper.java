@@ -0,0 +1,130 @@
+package org.example.Shortlink.Core.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Фоновая очистка просроченных ссылок раз в cleanup.interval.seconds.
+ *
+ * Удаление идёт порциями по batchSize строк, каждая порция — отдельная
+ * короткая транзакция, поэтому блокировка записи не удерживается надолго.
+ * Результаты доступны через счётчики, а не через консоль
+ */
+public class ExpirySweeper implements AutoCloseable {
+
+    private final LinkRepository repository;
+    private final int batchSize;
+    // вызывается после прохода, удалившего хотя бы одну ссылку: коды удалённых по владельцам
+    private final Consumer<Map<UUID, List<String>>> onRemoved;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong sweeps = new AtomicLong();
+    private final AtomicLong totalRemoved = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long lastRemoved;
+    private volatile long lastSweepNanos;
+
+    public ExpirySweeper(LinkRepository repository, int intervalSeconds, int batchSize) {
+        this(repository, intervalSeconds, batchSize, removed -> { });
+    }
+
+    /**
+     * @param onRemoved получает коды удалённых за проход ссылок по владельцам, — например,
+     *                  чтобы уменьшить число ссылок владельцев и удалить их аналитику
+     */
+    public ExpirySweeper(LinkRepository repository, int intervalSeconds, int batchSize,
+                         Consumer<Map<UUID, List<String>>> onRemoved) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер порции очистки должен быть положительным");
+        }
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.onRemoved = onRemoved;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "expiry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Один проход очистки
+     *
+     * @return число удалённых ссылок
+     */
+    public long sweep() {
+        long start = System.nanoTime();
+        long removed = 0;
+        Map<UUID, List<String>> removedByOwner = new HashMap<>();
+
+        int deleted;
+        do {
+            deleted = 0;
+            for (Map.Entry<UUID, List<String>> entry : repository.deleteExpiredByOwner(batchSize).entrySet()) {
+                removedByOwner.computeIfAbsent(entry.getKey(), owner -> new ArrayList<>()).addAll(entry.getValue());
+                deleted += entry.getValue().size();
+            }
+            removed += deleted;
+            // шардированное хранилище может удалить больше порции за вызов
+        } while (deleted >= batchSize && !Thread.currentThread().isInterrupted());
+
+        lastSweepNanos = System.nanoTime() - start;
+        lastRemoved = removed;
+        totalRemoved.addAndGet(removed);
+        sweeps.incrementAndGet();
+        if (removed > 0) {
+            onRemoved.accept(removedByOwner);
+        }
+        return removed;
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            // следующий проход повторит очистку
+            failures.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* ===================== Метрики ===================== */
+
+    public long getSweepCount() {
+        return sweeps.get();
+    }
+
+    public long getTotalRemoved() {
+        return totalRemoved.get();
+    }
+
+    public long getLastRemoved() {
+        return lastRemoved;
+    }
+
+    public long getLastSweepMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastSweepNanos);
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+}
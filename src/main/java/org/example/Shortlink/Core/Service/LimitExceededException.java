@@ -0,0 +1,31 @@
+package org.example.Shortlink.Core.Service;
+
+import org.example.Shortlink.Core.Model.LinkStatus;
+
+/**
+ * Создание ссылки отклонено ограничениями владельца.
+ *
+ * Экземпляры общие и без стека вызовов: отказ не должен стоить дороже
+ * самой проверки, а место отказа всегда одно — LinkService.createLink
+ */
+public class LimitExceededException extends RuntimeException {
+
+    static final LimitExceededException RATE_LIMITED =
+            new LimitExceededException(LinkStatus.RATE_LIMITED, "Слишком много новых ссылок, повторите позже");
+    static final LimitExceededException QUOTA_EXCEEDED =
+            new LimitExceededException(LinkStatus.QUOTA_EXCEEDED, "Достигнут лимит ссылок владельца");
+
+    private final LinkStatus status;
+
+    private LimitExceededException(LinkStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    /**
+     * RATE_LIMITED или QUOTA_EXCEEDED
+     */
+    public LinkStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.Shortlink.Core.Service;
+
+import org.example.Shortlink.Core.Model.LinkStatus;
+import org.example.Shortlink.Util.TokenBucketTable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничения владельцев: частота создания ссылок на владельца, частота
+ * переходов на короткий код и число ссылок у владельца.
+ *
+ * Частоты — ведра токенов TokenBucketTable. Число ссылок всех владельцев читается
+ * из хранилища один раз, одним сгруппированным запросом при прогреве (seedOwnerCounts),
+ * и дальше ведётся в памяти: создание резервирует место, удаление освобождает.
+ * Запрос создания в базу не ходит: до конца подсчёта он ждёт его, после — решает по памяти.
+ * В памяти только владельцы, у которых есть ссылки: опустевший счётчик удаляется.
+ * Фоновая очистка удаляет ссылки мимо сервиса и сообщает, чьи (removed), —
+ * счётчики уменьшаются по владельцам, а не перечитываются
+ */
+public class LinkRateLimiter {
+
+    private final LinkRepository repository;
+    // null — ограничение выключено
+    private final TokenBucketTable createBuckets;
+    private final TokenBucketTable resolveBuckets;
+    // 0 — без ограничения числа ссылок
+    private final int maxLinksPerOwner;
+    // только владельцы с ссылками; заполняется seedOwnerCounts
+    private final ConcurrentHashMap<UUID, Integer> ownedLinks = new ConcurrentHashMap<>();
+    private volatile boolean seeded;
+
+    private final LongAdder rejectedCreates = new LongAdder();
+    private final LongAdder rejectedResolves = new LongAdder();
+    private final LongAdder rejectedByQuota = new LongAdder();
+
+    /**
+     * Нулевая частота или нулевой лимит выключают соответствующее ограничение
+     *
+     * @param stripes полос в каждой таблице ведер
+     */
+    public LinkRateLimiter(LinkRepository repository, int stripes,
+                           double createsPerSecond, int createBurst,
+                           double resolvesPerSecond, int resolveBurst,
+                           int maxLinksPerOwner) {
+        if (maxLinksPerOwner < 0) {
+            throw new IllegalArgumentException("Лимит ссылок владельца не может быть отрицательным");
+        }
+        this.repository = repository;
+        this.createBuckets = createsPerSecond > 0 ? new TokenBucketTable(stripes, createsPerSecond, createBurst) : null;
+        this.resolveBuckets = resolvesPerSecond > 0 ? new TokenBucketTable(stripes, resolvesPerSecond, resolveBurst) : null;
+        this.maxLinksPerOwner = maxLinksPerOwner;
+    }
+
+    /* ===================== СОЗДАНИЕ ===================== */
+
+    /**
+     * Допуск одной новой ссылки владельца. При OK место под ссылку зарезервировано:
+     * если сохранить её не удалось, вызывающий возвращает его через released
+     *
+     * @return OK, RATE_LIMITED или QUOTA_EXCEEDED
+     */
+    public LinkStatus admitCreate(UUID ownerId) {
+        if (createBuckets != null && !createBuckets.tryAcquire(ownerId)) {
+            rejectedCreates.increment();
+            return LinkStatus.RATE_LIMITED;
+        }
+        if (reserve(ownerId, 1) == 0) {
+            rejectedByQuota.increment();
+            return LinkStatus.QUOTA_EXCEEDED;
+        }
+        return LinkStatus.OK;
+    }
+
+    /**
+     * Допуск пакета: выдаётся столько мест, сколько позволяют частота и лимит
+     *
+     * @return сколько ссылок из count можно создать; места под них зарезервированы
+     */
+    public int admitCreates(UUID ownerId, int count) {
+        int granted = count;
+        if (createBuckets != null) {
+            granted = createBuckets.tryAcquire(ownerId, count);
+            if (granted < count) {
+                rejectedCreates.add(count - granted);
+            }
+        }
+        int reserved = reserve(ownerId, granted);
+        if (reserved < granted) {
+            rejectedByQuota.add(granted - reserved);
+        }
+        return reserved;
+    }
+
+    /**
+     * Ссылки владельца удалены или не были сохранены
+     */
+    public void released(UUID ownerId, int count) {
+        if (maxLinksPerOwner > 0 && count > 0) {
+            ownedLinks.computeIfPresent(ownerId, (id, owned) -> owned > count ? owned - count : null);
+        }
+    }
+
+    /**
+     * Ссылки удалены мимо сервиса (очистка просроченных): коды удалённых по владельцам
+     */
+    public void removed(Map<UUID, List<String>> removedByOwner) {
+        removedByOwner.forEach((ownerId, codes) -> released(ownerId, codes.size()));
+    }
+
+    /**
+     * Читает число ссылок всех владельцев одним запросом к хранилищу — шаг прогрева.
+     * Повторный вызов ничего не делает; создания, пришедшие раньше, ждут подсчёта.
+     * Ссылки, удалённые во время подсчёта, могут остаться учтёнными: лимит тогда строже на них
+     */
+    public synchronized void seedOwnerCounts() {
+        if (maxLinksPerOwner == 0 || seeded) {
+            return;
+        }
+        repository.countByOwner().forEach((ownerId, links) -> {
+            if (links > 0) {
+                ownedLinks.put(ownerId, links);
+            }
+        });
+        seeded = true;
+    }
+
+    private int reserve(UUID ownerId, int count) {
+        if (maxLinksPerOwner == 0 || count == 0) {
+            return count;
+        }
+        if (!seeded) {
+            // прогрев не успел или не запускался: ждём его подсчёт либо считаем сами, один раз
+            seedOwnerCounts();
+        }
+
+        int[] granted = new int[1];
+        ownedLinks.compute(ownerId, (id, owned) -> {
+            int current = owned == null ? 0 : owned;
+            granted[0] = Math.max(0, Math.min(count, maxLinksPerOwner - current));
+            return granted[0] > 0 ? current + granted[0] : owned;
+        });
+        return granted[0];
+    }
+
+    /**
+     * Владельцев, у которых сейчас учтены ссылки, — размер счётчиков в памяти
+     */
+    public int getTrackedOwners() {
+        return ownedLinks.size();
+    }
+
+    /* ===================== ПЕРЕХОДЫ ===================== */
+
+    /**
+     * @return false — переходов по коду слишком много, отвечать отказом без обращения к базе
+     */
+    public boolean admitResolve(String shortCode) {
+        if (resolveBuckets == null || resolveBuckets.tryAcquire(shortCode)) {
+            return true;
+        }
+        rejectedResolves.increment();
+        return false;
+    }
+
+    /* ===================== Метрики ===================== */
+
+    public long getRejectedCreates() {
+        return rejectedCreates.sum();
+    }
+
+    public long getRejectedResolves() {
+        return rejectedResolves.sum();
+    }
+
+    public long getRejectedByQuota() {
+        return rejectedByQuota.sum();
+    }
+}
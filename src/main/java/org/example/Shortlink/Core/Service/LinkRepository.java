@@ -2,25 +2,161 @@ package org.example.Shortlink.Core.Service;
 
 import org.example.Shortlink.Core.Model.ShortLink;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface LinkRepository extends AutoCloseable {
 
     void save(ShortLink link);
 
+    /**
+     * Сохраняет набор ссылок. Занятый код не прерывает остальные вставки.
+     * SQLite-хранилища пишут пачками, одной транзакцией на пачку
+     *
+     * @return коды ссылок, которые не сохранены, потому что код уже занят
+     */
+    default Set<String> saveAll(Collection<ShortLink> links) {
+        Set<String> rejected = new LinkedHashSet<>();
+        for (ShortLink link : links) {
+            if (findByShortCodeOrNull(link.getShortCode()) != null) {
+                rejected.add(link.getShortCode());
+            } else {
+                save(link);
+            }
+        }
+        return rejected;
+    }
+
     Optional<ShortLink> findByShortCode(String shortCode);
 
+    /**
+     * Поиск без обёртки Optional — для горячего пути редиректа
+     */
+    default ShortLink findByShortCodeOrNull(String shortCode) {
+        return findByShortCode(shortCode).orElse(null);
+    }
+
+    /**
+     * Обходит коды всех ссылок — для построения фильтров при старте
+     */
+    void forEachShortCode(Consumer<String> action);
+
+    /**
+     * Обходит все ссылки, не загружая таблицу в память целиком — для выгрузки.
+     * По умолчанию — поиском по каждому коду из forEachShortCode;
+     * ссылки, удалённые во время обхода, пропускаются
+     */
+    default void forEachLink(Consumer<ShortLink> action) {
+        forEachShortCode(code -> {
+            ShortLink link = findByShortCodeOrNull(code);
+            if (link != null) {
+                action.accept(link);
+            }
+        });
+    }
+
     List<ShortLink> findAllByUser(UUID userId);
 
-    void delete(String shortCode);
+    /**
+     * Страница ссылок владельца в порядке (created_at, short_code).
+     * Для следующей страницы в after передаётся последняя ссылка предыдущей
+     *
+     * @param after последняя ссылка предыдущей страницы или null для первой
+     */
+    List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit);
+
+    /**
+     * Обходит ссылки владельца в порядке (created_at, short_code), не загружая их все в память.
+     * По умолчанию — страницами findPageByUser
+     */
+    default void forEachByUser(UUID userId, Consumer<ShortLink> action) {
+        int pageSize = 500;
+        ShortLink after = null;
+        while (true) {
+            List<ShortLink> page = findPageByUser(userId, after, pageSize);
+            page.forEach(action);
+            if (page.size() < pageSize) {
+                return;
+            }
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    /**
+     * Число ссылок каждого владельца — для лимита ссылок владельца, один раз при прогреве.
+     * По умолчанию — обходом forEachLink; SQLite-хранилища считают одним GROUP BY
+     */
+    default Map<UUID, Integer> countByOwner() {
+        Map<UUID, Integer> counts = new HashMap<>();
+        forEachLink(link -> counts.merge(link.getOwnerId(), 1, Integer::sum));
+        return counts;
+    }
+
+    /**
+     * @return false — кода уже нет: ссылку удалил другой вызов или очистка
+     */
+    boolean delete(String shortCode);
 
     void deleteAllLinks() throws Exception;
 
-    void deleteExpired();
+    /**
+     * Удаляет не больше limit просроченных ссылок одной короткой транзакцией и сообщает,
+     * какие ссылки и чьи удалены, — чтобы число ссылок владельцев уменьшалось точно,
+     * без перечитывания из хранилища, и вместе со ссылками удалялась их аналитика
+     *
+     * @return коды удалённых ссылок по владельцам; всего меньше limit — просроченных больше нет
+     */
+    Map<UUID, List<String>> deleteExpiredByOwner(int limit);
 
     void deleteAll();
 
+    /**
+     * Число ссылок в хранилище, включая просроченные, но ещё не удалённые
+     */
+    long count();
+
     void update(ShortLink link);
+
+    /**
+     * Меняет лимит и срок ссылки, не трогая счётчик переходов:
+     * активность пересчитывается по текущему счётчику (current_clicks < max_clicks).
+     * В отличие от update, не затирает переходы, записанные после чтения ссылки
+     *
+     * @return ссылка после изменения или null, если кода нет
+     */
+    ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt);
+
+    /**
+     * Пакетно прибавляет накопленные переходы (shortCode → число кликов).
+     * Ссылка деактивируется, если счётчик достиг лимита
+     */
+    void addClicks(Map<String, Integer> clicks);
+
+    /**
+     * Засчитывает один переход одной операцией хранилища: проверка активности,
+     * срока и лимита и прибавление счётчика атомарны, предварительное чтение не нужно.
+     * Ссылка деактивируется, если счётчик достиг лимита
+     *
+     * @return ссылка после перехода или null — кода нет, ссылка неактивна, просрочена или лимит исчерпан
+     */
+    ShortLink tryRegisterClick(String shortCode);
+
+    /**
+     * То же, что tryRegisterClick, но наружу отдаётся только URL: хранилище вне кучи
+     * засчитывает переход, не собирая ShortLink
+     *
+     * @return оригинальный URL или null — переход невозможен
+     */
+    default String tryRegisterClickUrl(String shortCode) {
+        ShortLink clicked = tryRegisterClick(shortCode);
+        return clicked == null ? null : clicked.getOriginalUrl();
+    }
 }
\ No newline at end of file
@@ -1,32 +1,156 @@
 package org.example.Shortlink.Core.Service;
 
+import org.example.Shortlink.Core.Metrics.LatencyHistogram;
+import org.example.Shortlink.Core.Metrics.MetricsRegistry;
+import org.example.Shortlink.Core.Model.ClickBucket;
+import org.example.Shortlink.Core.Model.ClickGranularity;
+import org.example.Shortlink.Core.Model.CreateLinkResult;
+import org.example.Shortlink.Core.Model.LinkChangeResult;
+import org.example.Shortlink.Core.Model.LinkStatus;
+import org.example.Shortlink.Core.Model.ResolveResult;
 import org.example.Shortlink.Core.Model.ShortLink;
 import org.example.Shortlink.Storage.Config.AppConfig;
-import org.example.Shortlink.Util.ShortCodeGenerator;
+import org.example.Shortlink.Util.HashShortCodeStrategy;
+import org.example.Shortlink.Util.ShortCodeStrategy;
 
 import java.awt.Desktop;
 import java.net.URI;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class LinkService {
 
+    // попытки подобрать свободный код при пакетном создании
+    private static final int MAX_CODE_ATTEMPTS = 3;
+
     private final LinkRepository repository;
     private final AppConfig config;
 
+    // null — каждый переход сразу пишется в БД через update
+    private final WriteBehindClickCounter clickCounter;
+    private final ShortCodeStrategy codeStrategy;
+    // null — аналитика переходов выключена
+    private final ClickEventPipeline analytics;
+    // null — ограничения владельцев выключены
+    private final LinkRateLimiter limiter;
+
+    private final LatencyHistogram createTimer;
+    private final LatencyHistogram resolveTimer;
+    private final LatencyHistogram updateTimer;
+    private final LatencyHistogram deleteTimer;
+    private final LongAdder notFound;
+    private final LongAdder expired;
+    private final LongAdder limitReached;
+
     public LinkService(LinkRepository repository, AppConfig config) {
+        this(repository, config, null);
+    }
+
+    public LinkService(LinkRepository repository, AppConfig config, WriteBehindClickCounter clickCounter) {
+        this(repository, config, clickCounter, new HashShortCodeStrategy());
+    }
+
+    public LinkService(LinkRepository repository, AppConfig config,
+                       WriteBehindClickCounter clickCounter, ShortCodeStrategy codeStrategy) {
+        this(repository, config, clickCounter, codeStrategy, null);
+    }
+
+    public LinkService(LinkRepository repository, AppConfig config,
+                       WriteBehindClickCounter clickCounter, ShortCodeStrategy codeStrategy,
+                       ClickEventPipeline analytics) {
+        this(repository, config, clickCounter, codeStrategy, analytics, new MetricsRegistry());
+    }
+
+    public LinkService(LinkRepository repository, AppConfig config,
+                       WriteBehindClickCounter clickCounter, ShortCodeStrategy codeStrategy,
+                       ClickEventPipeline analytics, MetricsRegistry metrics) {
+        this(repository, config, clickCounter, codeStrategy, analytics, metrics, null);
+    }
+
+    public LinkService(LinkRepository repository, AppConfig config,
+                       WriteBehindClickCounter clickCounter, ShortCodeStrategy codeStrategy,
+                       ClickEventPipeline analytics, MetricsRegistry metrics, LinkRateLimiter limiter) {
         this.repository = repository;
         this.config = config;
+        this.clickCounter = clickCounter;
+        this.codeStrategy = codeStrategy;
+        this.analytics = analytics;
+        this.limiter = limiter;
+
+        this.createTimer = metrics.timer("service.create");
+        this.resolveTimer = metrics.timer("service.resolve");
+        this.updateTimer = metrics.timer("service.update");
+        this.deleteTimer = metrics.timer("service.delete");
+        this.notFound = metrics.counter("links.not_found");
+        this.expired = metrics.counter("links.expired");
+        this.limitReached = metrics.counter("links.limit_reached");
     }
 
     /* ===================== CREATE ===================== */
 
+    /**
+     * @throws LimitExceededException владелец создаёт ссылки слишком часто или их у него уже максимум
+     */
     public ShortLink createLink(UUID userId, String originalUrl, Integer maxClicks) {
-        validateUrl(originalUrl);
+        long start = System.nanoTime();
+        try {
+            // отказ по ограничениям — до проверки URL и генерации кода
+            admitCreate(userId);
+
+            int clicksLimit = maxClicks != null
+                    ? maxClicks
+                    : config.getDefaultMaxClicks();
+
+            Instant expiresAt = Instant.now()
+                    .plus(config.getTtlHours(), ChronoUnit.HOURS);
+
+            ShortLink link;
+            try {
+                validateUrl(originalUrl);
+
+                String shortCode = codeStrategy.next(userId, originalUrl);
+
+                link = new ShortLink(
+                        shortCode,
+                        originalUrl,
+                        userId,
+                        clicksLimit,
+                        expiresAt
+                );
+
+                repository.save(link);
+            } catch (RuntimeException e) {
+                released(userId, 1);
+                throw e;
+            }
 
+            say("✔ Ссылка создана");
+            say("  TTL до: " + expiresAt);
+            say("  Лимит переходов: " + clicksLimit);
+
+            return link;
+        } finally {
+            createTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Пакетное создание ссылок одного владельца.
+     * URL проверяются параллельно, вставка идёт пачками через saveAll;
+     * некорректный URL или занятый код не прерывают остальные.
+     * Ссылки сверх ограничений владельца не создаются — с конца списка
+     *
+     * @return результаты в порядке входного списка
+     */
+    public List<CreateLinkResult> createLinks(UUID userId, List<String> originalUrls, Integer maxClicks) {
         int clicksLimit = maxClicks != null
                 ? maxClicks
                 : config.getDefaultMaxClicks();
@@ -34,156 +158,569 @@ public class LinkService {
         Instant expiresAt = Instant.now()
                 .plus(config.getTtlHours(), ChronoUnit.HOURS);
 
-        String shortCode = ShortCodeGenerator.generate(userId, originalUrl);
+        List<CreateLinkResult> results = originalUrls.parallelStream()
+                .map(url -> isValidUrl(url)
+                        ? CreateLinkResult.created(new ShortLink(
+                                codeStrategy.next(userId, url), url, userId, clicksLimit, expiresAt))
+                        : CreateLinkResult.failed(url, "Некорректный URL"))
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        int valid = (int) results.stream().filter(CreateLinkResult::isSuccess).count();
+        int admitted = limiter != null ? limiter.admitCreates(userId, valid) : valid;
+        for (int i = results.size() - 1; i >= 0 && valid > admitted; i--) {
+            if (results.get(i).isSuccess()) {
+                results.set(i, CreateLinkResult.failed(results.get(i).getOriginalUrl(), "Превышены ограничения владельца"));
+                valid--;
+            }
+        }
 
-        ShortLink link = new ShortLink(
-                shortCode,
-                originalUrl,
-                userId,
-                clicksLimit,
-                expiresAt
-        );
+        // код → позиция в results; повтор кода внутри пакета сразу уходит на перегенерацию
+        Map<String, Integer> pending = new LinkedHashMap<>();
+        List<Integer> retry = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isSuccess()) {
+                retry.add(i);
+            }
+        }
 
-        repository.save(link);
+        for (int attempt = 0; attempt < MAX_CODE_ATTEMPTS && !retry.isEmpty(); attempt++) {
+            pending.clear();
+            for (int i : retry) {
+                ShortLink link = results.get(i).getLink();
+                if (attempt > 0) {
+                    link = regenerate(link);
+                }
+                while (pending.containsKey(link.getShortCode())) {
+                    link = regenerate(link);
+                }
+                results.set(i, CreateLinkResult.created(link));
+                pending.put(link.getShortCode(), i);
+            }
+            retry.clear();
 
-        System.out.println("✔ Ссылка создана");
-        System.out.println("  TTL до: " + expiresAt);
-        System.out.println("  Лимит переходов: " + clicksLimit);
+            List<ShortLink> batch = new ArrayList<>(pending.size());
+            for (int i : pending.values()) {
+                batch.add(results.get(i).getLink());
+            }
+            for (String rejected : repository.saveAll(batch)) {
+                retry.add(pending.get(rejected));
+            }
+        }
 
-        return link;
-    }
+        for (int i : retry) {
+            results.set(i, CreateLinkResult.failed(results.get(i).getOriginalUrl(), "Не удалось подобрать свободный код"));
+        }
+        released(userId, retry.size());
 
-    /* ===================== OPEN ===================== */
+        long created = results.stream().filter(CreateLinkResult::isSuccess).count();
+        say("✔ Создано ссылок: " + created + " из " + results.size());
+        say("  TTL до: " + expiresAt);
+        say("  Лимит переходов: " + clicksLimit);
 
-    public void openLink(UUID userId, String shortCode) {
-        Optional<ShortLink> optional = repository.findByShortCode(shortCode);
+        return results;
+    }
+
+    private ShortLink regenerate(ShortLink link) {
+        return new ShortLink(
+                codeStrategy.next(link.getOwnerId(), link.getOriginalUrl()),
+                link.getOriginalUrl(),
+                link.getOwnerId(),
+                link.getMaxClicks(),
+                link.getExpiresAt()
+        );
+    }
 
-        if (optional.isEmpty()) {
-            System.out.println("✖ Ссылка не найдена");
+    /**
+     * Проверка ограничений владельца перед созданием: только память, без обращения к базе
+     */
+    private void admitCreate(UUID userId) {
+        if (limiter == null) {
             return;
         }
+        switch (limiter.admitCreate(userId)) {
+            case RATE_LIMITED -> throw LimitExceededException.RATE_LIMITED;
+            case QUOTA_EXCEEDED -> throw LimitExceededException.QUOTA_EXCEEDED;
+            default -> {
+            }
+        }
+    }
 
-        ShortLink link = optional.get();
+    private void released(UUID userId, int count) {
+        if (limiter != null && count > 0) {
+            limiter.released(userId, count);
+        }
+    }
+
+    /* ===================== OPEN ===================== */
+
+    /**
+     * Переход владельца по своей ссылке: проверки и учёт перехода без вывода в консоль
+     */
+    public ResolveResult open(UUID userId, String shortCode) {
+        if (limiter != null && !limiter.admitResolve(shortCode)) {
+            return ResolveResult.rateLimited();
+        }
+
+        ShortLink link = repository.findByShortCodeOrNull(shortCode);
+
+        if (link == null) {
+            notFound.increment();
+            return ResolveResult.notFound();
+        }
 
         // Проверка владельца
         if (!link.getOwnerId().equals(userId)) {
-            System.out.println("✖ Нет прав на открытие этой ссылки");
-            return;
+            return ResolveResult.forbidden();
         }
 
+        return admit(link);
+    }
+
+    /**
+     * Консольный переход: open и открытие URL в браузере
+     */
+    public void openLink(UUID userId, String shortCode) {
+        ResolveResult result = open(userId, shortCode);
+
+        switch (result.getStatus()) {
+            case NOT_FOUND -> say("✖ Ссылка не найдена");
+            case FORBIDDEN -> say("✖ Нет прав на открытие этой ссылки");
+            case EXPIRED -> say("⚠ Ссылка устарела и была удалена");
+            case LIMIT_REACHED -> say("⚠ Ссылка недоступна (лимит исчерпан)");
+            case RATE_LIMITED -> say("⚠ Слишком много переходов по ссылке, повторите позже");
+            case OK -> {
+                ShortLink link = result.getLink();
+                try {
+                    Desktop.getDesktop().browse(new URI(link.getOriginalUrl()));
+
+                    say("⮕ Переход выполнен (" +
+                            result.getCurrentClicks() + "/" + link.getMaxClicks() + ")");
+
+                } catch (Exception e) {
+                    throw new RuntimeException("Ошибка при открытии ссылки", e);
+                }
+            }
+        }
+    }
+
+    /* ===================== REDIRECT ===================== */
+
+    /**
+     * Публичный переход по короткому коду (HTTP-редирект).
+     * Без проверки владельца и без вывода в консоль.
+     *
+     * Без отложенной записи переход засчитывается одним запросом к хранилищу
+     * (tryRegisterClick); ссылка читается отдельно, только чтобы объяснить отказ.
+     * Переходы по коду сверх ограничения отклоняются до обращения к хранилищу.
+     * Горячая ссылка читается из копии счётчика отложенной записи, мимо кэша
+     */
+    public ResolveResult tryResolve(String shortCode) {
+        long start = System.nanoTime();
+        try {
+            if (limiter != null && !limiter.admitResolve(shortCode)) {
+                return ResolveResult.rateLimited();
+            }
+
+            if (clickCounter == null) {
+                ShortLink clicked = repository.tryRegisterClick(shortCode);
+                if (clicked != null) {
+                    return redirected(clicked);
+                }
+            }
+
+            ShortLink link = clickCounter != null ? clickCounter.hotLink(shortCode) : null;
+            if (link == null) {
+                link = repository.findByShortCodeOrNull(shortCode);
+            }
+
+            if (link == null) {
+                notFound.increment();
+                return ResolveResult.notFound();
+            }
+
+            return clickCounter == null ? refuse(link) : admit(link);
+        } finally {
+            resolveTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Переход для HTTP-редиректа: нужен только URL. Без отложенной записи переход
+     * засчитывает tryRegisterClickUrl — хранилище вне кучи не собирает ShortLink;
+     * ссылка читается, только чтобы объяснить отказ
+     */
+    public ResolveResult tryRedirect(String shortCode) {
+        if (clickCounter != null) {
+            return tryResolve(shortCode);
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (limiter != null && !limiter.admitResolve(shortCode)) {
+                return ResolveResult.rateLimited();
+            }
+
+            String originalUrl = repository.tryRegisterClickUrl(shortCode);
+            if (originalUrl != null) {
+                if (analytics != null) {
+                    analytics.record(shortCode);
+                }
+                return ResolveResult.redirect(originalUrl);
+            }
+
+            ShortLink link = repository.findByShortCodeOrNull(shortCode);
+            if (link == null) {
+                notFound.increment();
+                return ResolveResult.notFound();
+            }
+            return refuse(link);
+        } finally {
+            resolveTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Проверка перехода без перехода (HTTP HEAD): куда вёл бы редирект.
+     * Переход не засчитывается, просроченная ссылка не удаляется
+     */
+    public ResolveResult peek(String shortCode) {
+        if (limiter != null && !limiter.admitResolve(shortCode)) {
+            return ResolveResult.rateLimited();
+        }
+
+        ShortLink link = clickCounter != null ? clickCounter.hotLink(shortCode) : null;
+        if (link == null) {
+            link = repository.findByShortCodeOrNull(shortCode);
+        }
+
+        if (link == null) {
+            return ResolveResult.notFound();
+        }
         if (link.isExpired()) {
-            repository.delete(shortCode);
-            System.out.println("⚠ Ссылка устарела и была удалена");
-            return;
+            return ResolveResult.rejected(LinkStatus.EXPIRED, link);
         }
 
-        if (!link.isActive()) {
-            System.out.println("⚠ Ссылка недоступна (лимит исчерпан)");
-            return;
+        // счётчик отложенной записи учитывает ещё не записанные переходы
+        int clicks = currentClicks(link);
+        if (!link.canBeUsed() || clicks >= link.getMaxClicks()) {
+            return ResolveResult.rejected(LinkStatus.LIMIT_REACHED, link);
         }
+        return ResolveResult.redirect(link, clicks);
+    }
 
+    /**
+     * @return ссылка, по которой засчитан переход, или null, если переход невозможен
+     */
+    public ShortLink resolve(String shortCode) {
+        ResolveResult result = tryResolve(shortCode);
+        return result.isRedirect() ? result.getLink() : null;
+    }
+
+    /**
+     * Общие проверки перехода: срок, лимит, учёт перехода
+     */
+    private ResolveResult admit(ShortLink link) {
         if (!link.canBeUsed()) {
-            System.out.println("⚠ Ссылка недоступна");
-            return;
+            return refuse(link);
         }
 
-        try {
-            Desktop.getDesktop().browse(new URI(link.getOriginalUrl()));
-            link.registerClick();
-            repository.update(link);
+        ShortLink clicked = admitClick(link);
+        return clicked == null ? refuse(link) : redirected(clicked);
+    }
 
-            System.out.println("⮕ Переход выполнен (" +
-                    link.getCurrentClicks() + "/" + link.getMaxClicks() + ")");
+    /**
+     * Засчитывает переход: через отложенную запись или атомарно в хранилище
+     *
+     * @return ссылка после перехода или null, если лимит уже исчерпан
+     */
+    private ShortLink admitClick(ShortLink link) {
+        if (clickCounter != null) {
+            return clickCounter.tryAdmit(link) ? link : null;
+        }
+        return repository.tryRegisterClick(link.getShortCode());
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Ошибка при открытии ссылки", e);
+    private ResolveResult redirected(ShortLink link) {
+        if (analytics != null) {
+            analytics.record(link.getShortCode());
+        }
+        return ResolveResult.redirect(link, currentClicks(link));
+    }
+
+    /**
+     * Причина отказа: просроченная ссылка удаляется, иначе исчерпан лимит
+     */
+    private ResolveResult refuse(ShortLink link) {
+        if (link.isExpired()) {
+            expired.increment();
+            removeLink(link);
+            return ResolveResult.rejected(LinkStatus.EXPIRED, link);
         }
+
+        limitReached.increment();
+        return ResolveResult.rejected(LinkStatus.LIMIT_REACHED, link);
+    }
+
+    private int currentClicks(ShortLink link) {
+        return clickCounter != null ? clickCounter.currentClicks(link) : link.getCurrentClicks();
+    }
+
+    /**
+     * Место владельца, счётчик и аналитика освобождаются, только если строку удалил
+     * этот вызов: параллельное удаление, переход и очистка не освобождают их повторно
+     *
+     * @return false — ссылку уже удалили
+     */
+    private boolean removeLink(ShortLink link) {
+        if (!repository.delete(link.getShortCode())) {
+            return false;
+        }
+        if (clickCounter != null) {
+            clickCounter.discard(link.getShortCode());
+        }
+        if (analytics != null) {
+            analytics.forget(List.of(link.getShortCode()));
+        }
+        released(link.getOwnerId(), 1);
+        return true;
     }
 
     /* ===================== LIST ===================== */
 
     public List<ShortLink> listUserLinks(UUID userId) {
+        if (clickCounter != null) {
+            clickCounter.flush();
+        }
         return repository.findAllByUser(userId);
     }
 
-    /* ===================== EDIT ===================== */
+    /**
+     * Страница ссылок пользователя в порядке создания
+     *
+     * @param after последняя ссылка предыдущей страницы или null для первой
+     */
+    public List<ShortLink> listUserLinks(UUID userId, ShortLink after, int limit) {
+        if (after == null && clickCounter != null) {
+            clickCounter.flush();
+        }
+        return repository.findPageByUser(userId, after, limit);
+    }
 
-    public void editLink(UUID userId, String shortCode, Long newTtlHours, Integer newMaxClicks) {
-        Optional<ShortLink> optional = repository.findByShortCode(shortCode);
+    /**
+     * Обход всех ссылок пользователя без загрузки списка целиком
+     */
+    public void forEachUserLink(UUID userId, Consumer<ShortLink> action) {
+        if (clickCounter != null) {
+            clickCounter.flush();
+        }
+        repository.forEachByUser(userId, action);
+    }
 
-        if (optional.isEmpty()) {
-            System.out.println("✖ Ссылка не найдена");
-            return;
+    /* ===================== ANALYTICS ===================== */
+
+    /**
+     * История переходов по своей ссылке за период [from, to)
+     *
+     * @return интервалы с переходами по возрастанию времени; пустой список, если истории нет
+     */
+    public List<ClickBucket> clickHistory(UUID userId, String shortCode, ClickGranularity granularity,
+                                         Instant from, Instant to) {
+        if (analytics == null) {
+            say("⚠ Аналитика переходов отключена");
+            return List.of();
         }
 
-        ShortLink link = optional.get();
+        ShortLink link = repository.findByShortCodeOrNull(shortCode);
+
+        if (link == null) {
+            say("✖ Ссылка не найдена");
+            return List.of();
+        }
 
         if (!link.getOwnerId().equals(userId)) {
-            System.out.println("✖ Нет прав на редактирование этой ссылки");
+            say("✖ Нет прав на просмотр статистики этой ссылки");
+            return List.of();
+        }
+
+        // код мог принадлежать удалённой ссылке: её переходы новому владельцу не показываются
+        Instant since = from.isBefore(link.getCreatedAt()) ? link.getCreatedAt() : from;
+        return analytics.history(shortCode, granularity, since, to);
+    }
+
+    /* ===================== EDIT ===================== */
+
+    /**
+     * Изменение срока и лимита своей ссылки; null — параметр не меняется
+     */
+    public LinkChangeResult edit(UUID userId, String shortCode, Long newTtlHours, Integer newMaxClicks) {
+        long start = System.nanoTime();
+        try {
+            // несброшенные переходы должны попасть в БД до чтения ссылки
+            if (clickCounter != null) {
+                clickCounter.flush();
+            }
+
+            ShortLink link = repository.findByShortCodeOrNull(shortCode);
+
+            if (link == null) {
+                return LinkChangeResult.failed(LinkStatus.NOT_FOUND);
+            }
+
+            if (!link.getOwnerId().equals(userId)) {
+                return LinkChangeResult.failed(LinkStatus.FORBIDDEN);
+            }
+
+            Instant expiresAt = newTtlHours != null
+                    ? Instant.now().plus(newTtlHours, ChronoUnit.HOURS)
+                    : link.getExpiresAt();
+            int maxClicks = newMaxClicks != null ? newMaxClicks : link.getMaxClicks();
+
+            // меняются только лимит и срок: переходы, записанные после чтения, не затираются
+            ShortLink after = repository.updateLimits(shortCode, maxClicks, expiresAt);
+            if (after == null) {
+                return LinkChangeResult.failed(LinkStatus.NOT_FOUND);
+            }
+            if (clickCounter != null) {
+                // счётчик остаётся: допущенные переходы сохраняются, меняются лимит и срок
+                clickCounter.refresh(after);
+            }
+            return LinkChangeResult.changed(link, after);
+        } finally {
+            updateTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    public void editLink(UUID userId, String shortCode, Long newTtlHours, Integer newMaxClicks) {
+        LinkChangeResult result = edit(userId, shortCode, newTtlHours, newMaxClicks);
+
+        if (!result.isSuccess()) {
+            say(result.getStatus() == LinkStatus.FORBIDDEN
+                    ? "✖ Нет прав на редактирование этой ссылки"
+                    : "✖ Ссылка не найдена");
             return;
         }
 
-        // Обновление TTL
+        ShortLink before = result.getBefore();
+        ShortLink after = result.getAfter();
         if (newTtlHours != null) {
-            Instant oldTtl = link.getExpiresAt();
-            link.setExpiresAt(Instant.now().plus(newTtlHours, ChronoUnit.HOURS));
-            System.out.println("✔ TTL обновлён: " + oldTtl + " → " + link.getExpiresAt());
+            say("✔ TTL обновлён: " + before.getExpiresAt() + " → " + after.getExpiresAt());
         }
-
-        // Обновление лимита кликов
         if (newMaxClicks != null) {
-            int oldLimit = link.getMaxClicks();
-            link.setMaxClicks(newMaxClicks);
-            System.out.println("✔ Лимит кликов обновлён: " + oldLimit + " → " + newMaxClicks);
+            say("✔ Лимит кликов обновлён: " + before.getMaxClicks() + " → " + after.getMaxClicks());
         }
-
-        repository.update(link);
-        System.out.println("✔ Ссылка обновлена");
+        say("✔ Ссылка обновлена");
     }
 
     /* ===================== DELETE ===================== */
 
+    public LinkChangeResult delete(UUID userId, String shortCode) {
+        long start = System.nanoTime();
+        try {
+            ShortLink link = repository.findByShortCodeOrNull(shortCode);
+
+            if (link == null) {
+                return LinkChangeResult.failed(LinkStatus.NOT_FOUND);
+            }
+
+            if (!link.getOwnerId().equals(userId)) {
+                return LinkChangeResult.failed(LinkStatus.FORBIDDEN);
+            }
+
+            if (!removeLink(link)) {
+                return LinkChangeResult.failed(LinkStatus.NOT_FOUND);
+            }
+            return LinkChangeResult.changed(link, null);
+        } finally {
+            deleteTimer.record(System.nanoTime() - start);
+        }
+    }
+
     public void deleteLink(UUID userId, String shortCode) {
-        Optional<ShortLink> optional = repository.findByShortCode(shortCode);
+        LinkChangeResult result = delete(userId, shortCode);
 
-        if (optional.isEmpty()) {
-            System.out.println("✖ Ссылка не найдена");
-            return;
+        switch (result.getStatus()) {
+            case OK -> say("✔ Ссылка удалена");
+            case FORBIDDEN -> say("✖ Нет прав на удаление этой ссылки");
+            default -> say("✖ Ссылка не найдена");
         }
+    }
 
-        ShortLink link = optional.get();
+    /* ===================== CLEANUP ===================== */
 
-        if (!link.getOwnerId().equals(userId)) {
-            System.out.println("✖ Нет прав на удаление этой ссылки");
+    /**
+     * @return число удалённых просроченных ссылок
+     */
+    public int cleanupExpiredLinks() {
+        Map<UUID, List<String>> removedByOwner = repository.deleteExpiredByOwner(Integer.MAX_VALUE);
+        expired(removedByOwner);
+
+        int removed = 0;
+        for (List<String> codes : removedByOwner.values()) {
+            removed += codes.size();
+        }
+        return removed;
+    }
+
+    /**
+     * Просроченные ссылки удалены мимо сервиса (ExpirySweeper): освобождаются места
+     * владельцев, счётчики отложенной записи и аналитика этих ссылок
+     *
+     * @param removedByOwner коды удалённых ссылок по владельцам
+     */
+    public void expired(Map<UUID, List<String>> removedByOwner) {
+        if (removedByOwner.isEmpty()) {
             return;
         }
+        if (limiter != null) {
+            limiter.removed(removedByOwner);
+        }
 
-        repository.delete(shortCode);
-        System.out.println("✔ Ссылка удалена");
+        List<String> codes = new ArrayList<>();
+        removedByOwner.values().forEach(codes::addAll);
+        if (clickCounter != null) {
+            codes.forEach(clickCounter::discard);
+        }
+        if (analytics != null) {
+            analytics.forget(codes);
+        }
     }
 
-    /* ===================== CLEANUP ===================== */
+    /* ===================== CONSOLE ===================== */
 
-    public void cleanupExpiredLinks() {
-        repository.deleteExpired();
+    /**
+     * Сообщение для пользователя консоли; в режиме сервера обычно выключено (console.output)
+     */
+    private void say(String message) {
+        if (config.isConsoleOutput()) {
+            System.out.println(message);
+        }
     }
 
     /* ===================== VALIDATION ===================== */
 
     private void validateUrl(String url) {
+        if (!isValidUrl(url)) {
+            throw new IllegalArgumentException("Некорректный URL");
+        }
+    }
+
+    private static boolean isValidUrl(String url) {
         try {
             URI uri = new URI(url);
-            if (uri.getScheme() == null || uri.getHost() == null) {
-                throw new IllegalArgumentException();
-            }
+            return uri.getScheme() != null && uri.getHost() != null;
         } catch (Exception e) {
-            throw new IllegalArgumentException("Некорректный URL");
+            return false;
         }
     }
 
     /* ===================== UPDATE ===================== */
 
     public void updateLink(ShortLink link) {
-        repository.update(link);
+        long start = System.nanoTime();
+        try {
+            repository.update(link);
+        } finally {
+            updateTimer.record(System.nanoTime() - start);
+        }
     }
 }
\ No newline at end of file
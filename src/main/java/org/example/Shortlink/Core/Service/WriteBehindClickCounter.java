@@ -0,0 +1,432 @@
+package org.example.Shortlink.Core.Service;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Util.CountMinSketch;
+import org.example.Shortlink.Util.LeasedQuota;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Отложенная запись переходов.
+ *
+ * Клик допускается в памяти (лимит maxClicks проверяется точно в момент допуска),
+ * а в БД накопленные переходы уходят пачкой раз в flushIntervalMillis.
+ * Окно потери при падении процесса — не больше одного интервала;
+ * close() выполняет финальный сброс.
+ *
+ * Горячие ссылки: выборочные допуски считаются в count-min sketch, и ссылка,
+ * у которой за окно набралось hotThreshold переходов, переводится на счётчик
+ * по полосам (LeasedQuota): остаток лимита переходит в общий запас, полосы
+ * арендуют его порциями, и потоки не борются за один AtomicInteger. Снимок
+ * ссылки на время перевода отдаётся копиями — переход читает её без кэша,
+ * и вызывающий код не может изменить снимок для других. При сбросе переходы
+ * записываются как обычно, а остывшая ссылка возвращается на общий счётчик:
+ * запас полос закрывается, и общий счётчик получает точное число выданных
+ *
+ * Счётчик снимается с карты (ссылка удалена, просрочена или давно без переходов)
+ * только закрытым: поток, успевший взять его до снятия, получает отказ CLOSED
+ * и повторяет допуск на новом счётчике, а не засчитывает переход в снятый
+ */
+public class WriteBehindClickCounter implements AutoCloseable {
+
+    // в sketch попадает один допуск из SAMPLE: сам sketch не должен стать общим счётчиком
+    private static final int SAMPLE = 8;
+    private static final int SKETCH_WIDTH = 4_096;
+    private static final int SKETCH_WINDOW = 65_536;
+    private static final int LEASE = 64;
+    // сбросов без новых переходов, после которых счётчик снимается с карты
+    private static final int IDLE_FLUSHES = 2;
+    // admitted снятого с карты счётчика
+    private static final int CLOSED = Integer.MIN_VALUE;
+
+    private final LinkRepository repository;
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    // 0 — горячие ссылки не выделяются
+    private final int hotThreshold;
+    private final CountMinSketch sketch;
+    private final int stripes = Runtime.getRuntime().availableProcessors();
+    private final LongAdder promotions = new LongAdder();
+
+    public WriteBehindClickCounter(LinkRepository repository, long flushIntervalMillis) {
+        this(repository, flushIntervalMillis, 0);
+    }
+
+    /**
+     * @param hotThreshold переходов по ссылке за окно sketch, после которых она считается горячей; 0 — выключено
+     */
+    public WriteBehindClickCounter(LinkRepository repository, long flushIntervalMillis, int hotThreshold) {
+        if (hotThreshold < 0) {
+            throw new IllegalArgumentException("Порог горячей ссылки не может быть отрицательным");
+        }
+        this.repository = repository;
+        this.hotThreshold = hotThreshold;
+        this.sketch = hotThreshold > 0 ? new CountMinSketch(SKETCH_WIDTH, SKETCH_WINDOW) : null;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "click-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /* ===================== ДОПУСК ===================== */
+
+    /**
+     * Пытается засчитать переход.
+     * Активность и срок действия ссылки проверяет вызывающий код
+     *
+     * @return false, если лимит переходов уже исчерпан
+     */
+    public boolean tryAdmit(ShortLink link) {
+        String shortCode = link.getShortCode();
+        while (true) {
+            Counter counter = counters.get(shortCode);
+            if (counter == null) {
+                counter = counters.computeIfAbsent(shortCode, code -> new Counter(link));
+            }
+
+            switch (admit(counter)) {
+                case ADMITTED -> {
+                    if (counter.hot == null) {
+                        detect(shortCode, counter, link);
+                    }
+                    return true;
+                }
+                case LIMIT_REACHED -> {
+                    return false;
+                }
+                // счётчик сняли с карты во время допуска: повторить на новом
+                case CLOSED -> Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Допуск на одном счётчике; повтор нужен, только если ссылку перевели
+     * между общим счётчиком и полосами во время допуска
+     */
+    private Admission admit(Counter counter) {
+        while (true) {
+            Hot hot = counter.hot;
+            if (hot == null) {
+                Admission result = counter.tryAdmit();
+                if (result != Admission.LIMIT_REACHED || counter.hot == null) {
+                    return result;
+                }
+            } else if (hot.tryAcquire()) {
+                return Admission.ADMITTED;
+            } else if (hot.retired) {
+                // запас забирается обратно на общий счётчик: дождаться и повторить там
+                while (counter.hot == hot) {
+                    Thread.onSpinWait();
+                }
+            } else if (counter.hot == hot) {
+                return Admission.LIMIT_REACHED;
+            }
+        }
+    }
+
+    /**
+     * Число переходов с учётом ещё не записанных в БД
+     */
+    public int currentClicks(ShortLink link) {
+        Counter counter = counters.get(link.getShortCode());
+        int clicks = counter == null ? CLOSED : counter.clicks();
+        return clicks == CLOSED ? link.getCurrentClicks() : clicks;
+    }
+
+    /**
+     * Ссылку изменили: новые лимит и срок применяются к счётчику на месте,
+     * допущенные переходы сохраняются. Горячая ссылка сначала возвращается
+     * на общий счётчик — запас полос был рассчитан на старый лимит
+     */
+    public void refresh(ShortLink link) {
+        Counter counter = counters.get(link.getShortCode());
+        if (counter == null) {
+            return;
+        }
+        synchronized (counter) {
+            demote(counter);
+            counter.maxClicks = link.getMaxClicks();
+            counter.expiresAt = link.getExpiresAt().getEpochSecond();
+        }
+    }
+
+    /* ===================== ГОРЯЧИЕ ССЫЛКИ ===================== */
+
+    /**
+     * Копия горячей ссылки для чтения без обращения к кэшу и хранилищу;
+     * своя на каждый вызов — снимок в счётчике не меняется
+     *
+     * @return null, если ссылка не горячая
+     */
+    public ShortLink hotLink(String shortCode) {
+        if (sketch == null) {
+            return null;
+        }
+        Counter counter = counters.get(shortCode);
+        Hot hot = counter == null ? null : counter.hot;
+        return hot == null ? null : copyOf(hot.link);
+    }
+
+    private void detect(String shortCode, Counter counter, ShortLink link) {
+        if (sketch == null || ThreadLocalRandom.current().nextInt(SAMPLE) != 0) {
+            return;
+        }
+        if (sketch.add(shortCode) * SAMPLE >= hotThreshold) {
+            promote(counter, link);
+        }
+    }
+
+    /**
+     * Переводит ссылку на счётчик по полосам: остаток лимита — в общий запас.
+     * Запас публикуется до переноса остатка, поэтому допуск, проигравший
+     * перенос на общем счётчике, повторяется уже на полосах (и ждёт ready)
+     */
+    private void promote(Counter counter, ShortLink link) {
+        synchronized (counter) {
+            // копия, прочитанная до refresh, не должна попасть в полосы
+            if (counter.hot != null || counter.admitted.get() == CLOSED || link.getMaxClicks() != counter.maxClicks
+                    || link.getExpiresAt().getEpochSecond() != counter.expiresAt) {
+                return;
+            }
+            Hot hot = new Hot(new LeasedQuota(stripes, LEASE), copyOf(link));
+            counter.hot = hot;
+            hot.base = counter.admitted.getAndSet(counter.maxClicks);
+            hot.quota.deposit(counter.maxClicks - hot.base);
+            hot.ready = true;
+        }
+        promotions.increment();
+    }
+
+    /**
+     * Возвращает остывшую ссылку на общий счётчик: запас закрывается,
+     * допущено ровно base + выданное полосами — порции в пути не теряются и не дублируются
+     */
+    private void demote(Counter counter) {
+        synchronized (counter) {
+            Hot hot = counter.hot;
+            if (hot == null) {
+                return;
+            }
+            hot.retired = true;
+            counter.admitted.set(hot.base + hot.quota.seal());
+            counter.hot = null;
+        }
+    }
+
+    private static ShortLink copyOf(ShortLink link) {
+        return new ShortLink(link.getShortCode(), link.getOriginalUrl(), link.getOwnerId(),
+                link.getMaxClicks(), link.getCurrentClicks(), link.getCreatedAt(), link.getExpiresAt(),
+                link.isActive());
+    }
+
+    /**
+     * Число горячих ссылок сейчас
+     */
+    public long getHotLinks() {
+        return counters.values().stream().filter(counter -> counter.hot != null).count();
+    }
+
+    public long getPromotions() {
+        return promotions.sum();
+    }
+
+    /* ===================== СБРОС В БД ===================== */
+
+    /**
+     * Записывает накопленные переходы одной транзакцией.
+     * Просроченные и простаивающие счётчики, у которых всё записано, снимаются с карты
+     *
+     * @return число записанных переходов
+     */
+    public synchronized int flush() {
+        Map<String, Integer> batch = new HashMap<>();
+        Map<Counter, Integer> flushed = new HashMap<>();
+        long now = Instant.now().getEpochSecond();
+
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+
+            int clicks = counter.clicks();
+            if (clicks > counter.written) {
+                batch.put(entry.getKey(), clicks - counter.written);
+                flushed.put(counter, clicks);
+                counter.idleFlushes = 0;
+            } else if (counter.expiresAt < now || ++counter.idleFlushes >= IDLE_FLUSHES) {
+                // новых кликов не будет или их давно не было; следующий допуск прочитает ссылку заново
+                evict(entry.getKey(), counter);
+            }
+            if (counter.hot != null && sketch.estimate(entry.getKey()) * SAMPLE < hotThreshold / 2) {
+                demote(counter);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // при ошибке written не сдвигается — разница запишется следующим сбросом
+        repository.addClicks(batch);
+        flushed.forEach((counter, clicks) -> counter.written = clicks);
+
+        int total = 0;
+        for (int clicks : batch.values()) {
+            total += clicks;
+        }
+        return total;
+    }
+
+    /**
+     * Ссылка удалена — накопленные переходы больше некуда писать
+     */
+    public synchronized void discard(String shortCode) {
+        Counter counter = counters.get(shortCode);
+        if (counter == null) {
+            return;
+        }
+        synchronized (counter) {
+            demote(counter);
+            counter.admitted.set(CLOSED);
+        }
+        counters.remove(shortCode, counter);
+    }
+
+    /**
+     * Снимает счётчик, только если с последнего сброса по нему не было допусков:
+     * закрытие сравнивает admitted с записанным, допуск в этот момент отменяет снятие
+     */
+    private void evict(String shortCode, Counter counter) {
+        synchronized (counter) {
+            if (counter.hot != null || !counter.admitted.compareAndSet(counter.written, CLOSED)) {
+                return;
+            }
+        }
+        counters.remove(shortCode, counter);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка отложенной записи переходов: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /* ===================== Счётчик ссылки ===================== */
+
+    private static final class Counter {
+
+        // записанное в БД + ещё не записанное: по нему проверяется лимит;
+        // у горячей ссылки равен maxClicks, остаток лежит в hot.quota; CLOSED — снят с карты
+        private final AtomicInteger admitted;
+        // сколько из допущенных уже записано в БД; меняется только в flush
+        private int written;
+        // сбросов подряд без новых переходов; меняется только в flush
+        private int idleFlushes;
+
+        // меняются только в refresh под монитором счётчика
+        private volatile int maxClicks;
+        private volatile long expiresAt;
+
+        // null — ссылка не горячая
+        private volatile Hot hot;
+
+        private Counter(ShortLink link) {
+            this.admitted = new AtomicInteger(link.getCurrentClicks());
+            this.written = link.getCurrentClicks();
+            this.maxClicks = link.getMaxClicks();
+            this.expiresAt = link.getExpiresAt().getEpochSecond();
+        }
+
+        private Admission tryAdmit() {
+            int current;
+            do {
+                current = admitted.get();
+                if (current == CLOSED) {
+                    return Admission.CLOSED;
+                }
+                if (current >= maxClicks) {
+                    return Admission.LIMIT_REACHED;
+                }
+            } while (!admitted.compareAndSet(current, current + 1));
+            return Admission.ADMITTED;
+        }
+
+        private int clicks() {
+            while (true) {
+                Hot current = hot;
+                if (current != null) {
+                    current.awaitReady();
+                    return current.base + current.quota.issued();
+                }
+                int clicks = admitted.get();
+                // между чтениями ссылку могли перевести на полосы: admitted уже равен maxClicks
+                if (hot == null) {
+                    return clicks;
+                }
+            }
+        }
+    }
+
+    private enum Admission {
+        ADMITTED,
+        LIMIT_REACHED,
+        // счётчик снят с карты
+        CLOSED
+    }
+
+    /**
+     * Счётчик горячей ссылки по полосам и снимок ссылки
+     */
+    private static final class Hot {
+
+        private final LeasedQuota quota;
+        // наружу не отдаётся: hotLink возвращает копии
+        private final ShortLink link;
+        // допущено на общем счётчике до перевода; пишется до ready
+        private int base;
+        // остаток лимита внесён в quota
+        private volatile boolean ready;
+        // ссылка возвращается на общий счётчик
+        private volatile boolean retired;
+
+        private Hot(LeasedQuota quota, ShortLink link) {
+            this.quota = quota;
+            this.link = link;
+        }
+
+        private boolean tryAcquire() {
+            awaitReady();
+            return quota.tryAcquire();
+        }
+
+        private void awaitReady() {
+            while (!ready) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
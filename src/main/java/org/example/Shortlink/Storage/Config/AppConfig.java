@@ -8,6 +8,35 @@ public class AppConfig {
     private int ttlHours;
     private int defaultMaxClicks;
     private int cleanupIntervalSeconds;
+    private int httpPort = 8080;
+    private int asyncThreads = Runtime.getRuntime().availableProcessors();
+    private int asyncQueueSize = 1_024;
+    private int cacheMaxEntries = 10_000;
+    private int clickFlushIntervalMillis = 1_000;
+    private int clickHotThreshold = 0;
+    private String storageMode = "single";
+    private int storageReaders = 4;
+    private String storageMmapDir = "shortlinks-log";
+    private int storageShards = 4;
+    private int storageCommitBatch = 256;
+    private int storageCommitWaitMicros = 0;
+    private int cleanupBatchSize = 500;
+    private String shortCodeStrategy = "hash";
+    private int shortCodeBlockSize = 1_000;
+    private int analyticsFlushIntervalMillis = 5_000;
+    private int analyticsBufferSize = 65_536;
+    private int analyticsMinuteRetentionHours = 48;
+    private int metricsPort = 9091;
+    private boolean consoleOutput = true;
+    private double bloomFalsePositiveRate = 0.01;
+    private boolean startupFast = true;
+    private int startupBudgetMillis = 2_000;
+    private int limitsStripes = 65_536;
+    private double limitsCreatesPerSecond = 0;
+    private int limitsCreateBurst = 100;
+    private double limitsResolvesPerSecond = 0;
+    private int limitsResolveBurst = 1_000;
+    private int limitsMaxLinksPerOwner = 0;
 
     public static AppConfig load() {
         try (InputStream is =
@@ -16,11 +45,46 @@ public class AppConfig {
 
             Properties props = new Properties();
             props.load(is);
+            overrideFromSystem(props);
 
             AppConfig config = new AppConfig(1, 3, 60);
             config.ttlHours = Integer.parseInt(props.getProperty("link.ttl.hours"));
             config.defaultMaxClicks = Integer.parseInt(props.getProperty("link.default.maxClicks"));
             config.cleanupIntervalSeconds = Integer.parseInt(props.getProperty("cleanup.interval.seconds"));
+            config.httpPort = intProperty(props, "http.port", config.httpPort);
+            config.asyncThreads = intProperty(props, "async.threads", config.asyncThreads);
+            config.asyncQueueSize = intProperty(props, "async.queue.size", config.asyncQueueSize);
+            config.cacheMaxEntries = intProperty(props, "cache.max.entries", config.cacheMaxEntries);
+            config.clickFlushIntervalMillis = intProperty(props, "clicks.flush.interval.ms", config.clickFlushIntervalMillis);
+            config.clickHotThreshold = intProperty(props, "clicks.hot.threshold", config.clickHotThreshold);
+            config.storageMode = props.getProperty("storage.mode", config.storageMode).trim();
+            config.storageReaders = intProperty(props, "storage.readers", config.storageReaders);
+            config.storageMmapDir = props.getProperty("storage.mmap.dir", config.storageMmapDir).trim();
+            config.storageShards = intProperty(props, "storage.shards", config.storageShards);
+            config.storageCommitBatch = intProperty(props, "storage.commit.batch", config.storageCommitBatch);
+            config.storageCommitWaitMicros = intProperty(props, "storage.commit.wait.us", config.storageCommitWaitMicros);
+            config.cleanupBatchSize = intProperty(props, "cleanup.batch.size", config.cleanupBatchSize);
+            config.shortCodeStrategy = props.getProperty("shortcode.strategy", config.shortCodeStrategy).trim();
+            config.shortCodeBlockSize = intProperty(props, "shortcode.block.size", config.shortCodeBlockSize);
+            config.analyticsFlushIntervalMillis = intProperty(props, "analytics.flush.interval.ms", config.analyticsFlushIntervalMillis);
+            config.analyticsBufferSize = intProperty(props, "analytics.buffer.size", config.analyticsBufferSize);
+            config.analyticsMinuteRetentionHours = intProperty(props, "analytics.minute.retention.hours", config.analyticsMinuteRetentionHours);
+            config.metricsPort = intProperty(props, "metrics.port", config.metricsPort);
+            config.consoleOutput = Boolean.parseBoolean(
+                    props.getProperty("console.output", String.valueOf(config.consoleOutput)).trim());
+            config.bloomFalsePositiveRate = Double.parseDouble(
+                    props.getProperty("bloom.fpp", String.valueOf(config.bloomFalsePositiveRate)).trim());
+            config.startupFast = Boolean.parseBoolean(
+                    props.getProperty("startup.fast", String.valueOf(config.startupFast)).trim());
+            config.startupBudgetMillis = intProperty(props, "startup.budget.ms", config.startupBudgetMillis);
+            config.limitsStripes = intProperty(props, "limits.stripes", config.limitsStripes);
+            config.limitsCreatesPerSecond = Double.parseDouble(
+                    props.getProperty("limits.create.per.second", String.valueOf(config.limitsCreatesPerSecond)).trim());
+            config.limitsCreateBurst = intProperty(props, "limits.create.burst", config.limitsCreateBurst);
+            config.limitsResolvesPerSecond = Double.parseDouble(
+                    props.getProperty("limits.resolve.per.second", String.valueOf(config.limitsResolvesPerSecond)).trim());
+            config.limitsResolveBurst = intProperty(props, "limits.resolve.burst", config.limitsResolveBurst);
+            config.limitsMaxLinksPerOwner = intProperty(props, "limits.owner.max.links", config.limitsMaxLinksPerOwner);
 
             return config;
 
@@ -29,6 +93,26 @@ public class AppConfig {
         }
     }
 
+    /**
+     * Ключ из файла переопределяется одноимённым системным свойством: java -Dhttp.port=0 ...
+     */
+    private static void overrideFromSystem(Properties props) {
+        for (String key : props.stringPropertyNames()) {
+            String value = System.getProperty(key);
+            if (value != null) {
+                props.setProperty(key, value);
+            }
+        }
+    }
+
+    /**
+     * Необязательный параметр: при отсутствии ключа остаётся значение по умолчанию
+     */
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
     public AppConfig(int ttlHours, int defaultMaxClicks, int cleanupIntervalSeconds) {
         this.ttlHours = ttlHours;
         this.defaultMaxClicks = defaultMaxClicks;
@@ -46,4 +130,196 @@ public class AppConfig {
     public int getCleanupIntervalSeconds() {
         return cleanupIntervalSeconds;
     }
+
+    public int getHttpPort() {
+        return httpPort;
+    }
+
+    /**
+     * Потоки пула базы в режиме server
+     */
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    /**
+     * Сколько переходов ждёт свободного потока; сверх этого сервер отвечает 503
+     */
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    /**
+     * 0 — отложенная запись переходов выключена
+     */
+    public int getClickFlushIntervalMillis() {
+        return clickFlushIntervalMillis;
+    }
+
+    /**
+     * Переходов по ссылке за недавнее окно, после которых её счётчик разносится по полосам;
+     * 0 — выключено. Действует только при отложенной записи переходов
+     */
+    public int getClickHotThreshold() {
+        return clickHotThreshold;
+    }
+
+    /**
+     * single — одно соединение; pooled — WAL, пул читателей и выделенный писатель;
+     * memory — всё в памяти, без сохранения между запусками;
+     * mmap — журнал только на добавление в файлах, отображённых в память;
+     * offheap — компактные записи вне кучи, без сохранения между запусками;
+     * sharded — storage.shards файлов SQLite по хэшу кода, у каждого свой поток записи
+     */
+    public String getStorageMode() {
+        return storageMode;
+    }
+
+    public int getStorageReaders() {
+        return storageReaders;
+    }
+
+    /**
+     * Каталог сегментов журнала в режиме mmap
+     */
+    public String getStorageMmapDir() {
+        return storageMmapDir;
+    }
+
+    /**
+     * Число файлов SQLite в режиме sharded; меняется только через reshard
+     */
+    public int getStorageShards() {
+        return storageShards;
+    }
+
+    /**
+     * Изменений в одной групповой транзакции в режиме single; 0 — каждое изменение своей транзакцией
+     */
+    public int getStorageCommitBatch() {
+        return storageCommitBatch;
+    }
+
+    /**
+     * Сколько микросекунд добирать групповую транзакцию после первого изменения;
+     * 0 — фиксировать то, что накопилось за время предыдущего commit
+     */
+    public int getStorageCommitWaitMicros() {
+        return storageCommitWaitMicros;
+    }
+
+    public int getCleanupBatchSize() {
+        return cleanupBatchSize;
+    }
+
+    /**
+     * hash — SHA-256, как раньше; sequence — блоки идентификаторов в base62
+     */
+    public String getShortCodeStrategy() {
+        return shortCodeStrategy;
+    }
+
+    public int getShortCodeBlockSize() {
+        return shortCodeBlockSize;
+    }
+
+    /**
+     * 0 — аналитика переходов выключена
+     */
+    public int getAnalyticsFlushIntervalMillis() {
+        return analyticsFlushIntervalMillis;
+    }
+
+    /**
+     * Ёмкость буфера событий; при переполнении события отбрасываются
+     */
+    public int getAnalyticsBufferSize() {
+        return analyticsBufferSize;
+    }
+
+    /**
+     * Сколько часов хранятся минутные интервалы аналитики; 0 — без ограничения
+     */
+    public int getAnalyticsMinuteRetentionHours() {
+        return analyticsMinuteRetentionHours;
+    }
+
+    /**
+     * Порт GET /metrics на 127.0.0.1; 0 — HTTP-выгрузка выключена (JMX остаётся)
+     */
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    /**
+     * Печатать ли сообщения LinkService в консоль
+     */
+    public boolean isConsoleOutput() {
+        return consoleOutput;
+    }
+
+    /**
+     * Заданная доля ложных срабатываний фильтра Блума по кодам; 0 — фильтр выключен
+     */
+    public double getBloomFalsePositiveRate() {
+        return bloomFalsePositiveRate;
+    }
+
+    /**
+     * true — фильтр Блума и первые запросы к хранилищу прогреваются в фоне,
+     * запросы принимаются до окончания прогрева
+     */
+    public boolean isStartupFast() {
+        return startupFast;
+    }
+
+    /**
+     * Допустимое время от запуска JVM до приёма запросов
+     */
+    public int getStartupBudgetMillis() {
+        return startupBudgetMillis;
+    }
+
+    /**
+     * Полос в таблицах ведер токенов; владельцы и коды с одной полосой делят ведро
+     */
+    public int getLimitsStripes() {
+        return limitsStripes;
+    }
+
+    /**
+     * Новых ссылок в секунду на владельца; 0 — без ограничения
+     */
+    public double getLimitsCreatesPerSecond() {
+        return limitsCreatesPerSecond;
+    }
+
+    /**
+     * Сколько ссылок владелец может создать подряд после простоя
+     */
+    public int getLimitsCreateBurst() {
+        return limitsCreateBurst;
+    }
+
+    /**
+     * Переходов в секунду по одному коду; 0 — без ограничения
+     */
+    public double getLimitsResolvesPerSecond() {
+        return limitsResolvesPerSecond;
+    }
+
+    public int getLimitsResolveBurst() {
+        return limitsResolveBurst;
+    }
+
+    /**
+     * Ссылок у одного владельца; 0 — без ограничения
+     */
+    public int getLimitsMaxLinksPerOwner() {
+        return limitsMaxLinksPerOwner;
+    }
 }
\ No newline at end of file
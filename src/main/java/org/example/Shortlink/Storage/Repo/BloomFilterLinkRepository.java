@@ -0,0 +1,304 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+import org.example.Shortlink.Util.BloomFilter;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Фильтр Блума по всем коротким кодам перед хранилищем.
+ *
+ * Код, которого точно нет, отсекается без запроса к базе: случайные коды
+ * сканеров и ботов не доходят до SQLite. Фильтр строится при старте обходом
+ * всех кодов и пополняется при save. Когда расчётная доля ложных срабатываний
+ * вырастает вдвое против заданной, фильтр перестраивается в фоне.
+ *
+ * Фильтр Блума, а не кукушкин: удаления фильтр не забывает, удалённый код
+ * остаётся ложным срабатыванием и стоит одного запроса к базе. Удаление из
+ * кукушкина фильтра снимает отпечаток, а не код: если удаление разминётся с
+ * перестройкой (код удалён до того, как обход дошёл до него) или код записан
+ * в общую базу другим процессом, снятым окажется отпечаток живого кода с тем
+ * же значением — и живая ссылка станет отвечать «не найдено».
+ *
+ * Ставится под кэшем: горячие коды отвечает кэш, сюда приходят промахи.
+ *
+ * Первое построение можно отложить (быстрый старт): пока фильтра нет,
+ * все запросы идут в хранилище, как без фильтра
+ */
+public class BloomFilterLinkRepository implements LinkRepository {
+
+    // запас под рост между перестройками
+    private static final int GROWTH_FACTOR = 2;
+    private static final long MIN_CAPACITY = 1 << 16;
+
+    private final LinkRepository delegate;
+    private final double falsePositiveRate;
+
+    // null — фильтр ещё не построен, запросы не отсекаются
+    private volatile BloomFilter filter;
+    // фильтр, который сейчас строится: новые коды пишутся и в него
+    private volatile BloomFilter building;
+
+    // перестройка по заполнению уже запущена
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public BloomFilterLinkRepository(LinkRepository delegate, double falsePositiveRate) {
+        this(delegate, falsePositiveRate, true);
+    }
+
+    /**
+     * @param buildNow false — фильтр строится позже вызовом rebuild (например, фоновым прогревом)
+     */
+    public BloomFilterLinkRepository(LinkRepository delegate, double falsePositiveRate, boolean buildNow) {
+        this.delegate = delegate;
+        this.falsePositiveRate = falsePositiveRate;
+        if (buildNow) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Строит новый фильтр обходом всех кодов хранилища и подменяет текущий.
+     * Коды, сохранённые во время обхода, попадают в оба фильтра
+     */
+    public synchronized void rebuild() {
+        long capacity = Math.max(MIN_CAPACITY, delegate.count() * GROWTH_FACTOR);
+        BloomFilter next = new BloomFilter(capacity, falsePositiveRate);
+
+        building = next;
+        delegate.forEachShortCode(next::add);
+        filter = next;
+        building = null;
+    }
+
+    /**
+     * Перестраивает заполненный фильтр в отдельном потоке: обход всех кодов
+     * не задерживает запись, вызвавшую перестройку
+     */
+    private void rebuildIfFilled(BloomFilter current) {
+        if (current.expectedFalsePositiveRate() <= falsePositiveRate * 2
+                || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка перестройки фильтра Блума: " + e.getMessage());
+            } finally {
+                rebuilding.set(false);
+            }
+        }, "bloom-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Запоминает код до и после записи: до — чтобы ссылка была видна сразу,
+     * после — чтобы её не потерял фильтр, начавший строиться в промежутке
+     */
+    private void remember(String shortCode) {
+        // building читается раньше filter: rebuild пишет их в обратном порядке
+        BloomFilter next = building;
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(shortCode);
+            rebuildIfFilled(current);
+        }
+        if (next != null) {
+            next.add(shortCode);
+        }
+    }
+
+    /* ===================== Статистика ===================== */
+
+    /**
+     * Запросы, отсечённые фильтром без обращения к хранилищу
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    /**
+     * Измеренная доля ложных срабатываний: среди кодов, пропущенных фильтром,
+     * какие не нашлись в хранилище
+     */
+    public double getFalsePositiveRate() {
+        long total = passed.sum();
+        return total == 0 ? 0 : (double) falsePositives.sum() / total;
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.expectedFalsePositiveRate();
+    }
+
+    public boolean isBuilt() {
+        return filter != null;
+    }
+
+    /* ===================== READ ===================== */
+
+    /**
+     * false — кода точно нет в хранилище
+     */
+    public boolean mightContain(String shortCode) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(shortCode);
+    }
+
+    @Override
+    public Optional<ShortLink> findByShortCode(String shortCode) {
+        return Optional.ofNullable(findByShortCodeOrNull(shortCode));
+    }
+
+    @Override
+    public ShortLink findByShortCodeOrNull(String shortCode) {
+        BloomFilter current = filter;
+        if (current == null) {
+            // до построения промахи не считаются ложными срабатываниями
+            return delegate.findByShortCodeOrNull(shortCode);
+        }
+        if (!current.mightContain(shortCode)) {
+            rejected.increment();
+            return null;
+        }
+
+        passed.increment();
+        ShortLink link = delegate.findByShortCodeOrNull(shortCode);
+        if (link == null) {
+            falsePositives.increment();
+        }
+        return link;
+    }
+
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        delegate.forEachShortCode(action);
+    }
+
+    @Override
+    public void forEachLink(Consumer<ShortLink> action) {
+        delegate.forEachLink(action);
+    }
+
+    @Override
+    public List<ShortLink> findAllByUser(UUID userId) {
+        return delegate.findAllByUser(userId);
+    }
+
+    @Override
+    public List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit) {
+        return delegate.findPageByUser(userId, after, limit);
+    }
+
+    @Override
+    public void forEachByUser(UUID userId, Consumer<ShortLink> action) {
+        delegate.forEachByUser(userId, action);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public Map<UUID, Integer> countByOwner() {
+        return delegate.countByOwner();
+    }
+
+    /* ===================== WRITE ===================== */
+
+    @Override
+    public void save(ShortLink link) {
+        remember(link.getShortCode());
+        delegate.save(link);
+        remember(link.getShortCode());
+    }
+
+    @Override
+    public Set<String> saveAll(Collection<ShortLink> links) {
+        links.forEach(link -> remember(link.getShortCode()));
+        Set<String> rejectedCodes = delegate.saveAll(links);
+        links.forEach(link -> remember(link.getShortCode()));
+        return rejectedCodes;
+    }
+
+    @Override
+    public void update(ShortLink link) {
+        delegate.update(link);
+    }
+
+    @Override
+    public ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt) {
+        return delegate.updateLimits(shortCode, maxClicks, expiresAt);
+    }
+
+    @Override
+    public void addClicks(Map<String, Integer> clicks) {
+        delegate.addClicks(clicks);
+    }
+
+    @Override
+    public ShortLink tryRegisterClick(String shortCode) {
+        if (!mightContain(shortCode)) {
+            rejected.increment();
+            return null;
+        }
+        return delegate.tryRegisterClick(shortCode);
+    }
+
+    @Override
+    public String tryRegisterClickUrl(String shortCode) {
+        if (!mightContain(shortCode)) {
+            rejected.increment();
+            return null;
+        }
+        return delegate.tryRegisterClickUrl(shortCode);
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        return delegate.delete(shortCode);
+    }
+
+    @Override
+    public Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+        return delegate.deleteExpiredByOwner(limit);
+    }
+
+    @Override
+    public void deleteAllLinks() throws Exception {
+        delegate.deleteAllLinks();
+        rebuild();
+    }
+
+    @Override
+    public void deleteAll() {
+        delegate.deleteAll();
+        rebuild();
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+}
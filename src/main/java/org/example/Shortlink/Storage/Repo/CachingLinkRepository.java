@@ -0,0 +1,299 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Read-through кэш поверх другого репозитория.
+ * Ограничен по размеру (вытеснение LRU), запись живёт не дольше expiresAt ссылки.
+ * save/update обновляют запись, delete удаляет — горячие коды не ходят в JDBC.
+ * Хранятся и отдаются копии, как в InMemoryLinkRepository: изменения объекта
+ * вызывающим кодом не попадают в кэш мимо хранилища
+ */
+public class CachingLinkRepository implements LinkRepository {
+
+    private final LinkRepository delegate;
+    private final int maxEntries;
+
+    // access-order: get() переставляет запись в хвост, голова — кандидат на вытеснение
+    private final LinkedHashMap<String, ShortLink> entries;
+
+    // растёт при каждой записи; загрузка из БД, начатая до записи, не попадёт в кэш
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public CachingLinkRepository(LinkRepository delegate, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным");
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ShortLink> eldest) {
+                if (size() > CachingLinkRepository.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /* ===================== READ ===================== */
+
+    @Override
+    public Optional<ShortLink> findByShortCode(String shortCode) {
+        return Optional.ofNullable(findByShortCodeOrNull(shortCode));
+    }
+
+    @Override
+    public ShortLink findByShortCodeOrNull(String shortCode) {
+        long loadGeneration;
+
+        synchronized (this) {
+            ShortLink cached = entries.get(shortCode);
+            if (cached != null) {
+                if (!cached.isExpired()) {
+                    hits.increment();
+                    return copy(cached);
+                }
+                entries.remove(shortCode);
+                expirations.increment();
+            }
+            loadGeneration = generation;
+        }
+
+        misses.increment();
+        ShortLink loaded = delegate.findByShortCodeOrNull(shortCode);
+
+        if (loaded != null && !loaded.isExpired()) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.putIfAbsent(shortCode, copy(loaded));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public List<ShortLink> findAllByUser(UUID userId) {
+        return delegate.findAllByUser(userId);
+    }
+
+    @Override
+    public List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit) {
+        return delegate.findPageByUser(userId, after, limit);
+    }
+
+    @Override
+    public void forEachByUser(UUID userId, Consumer<ShortLink> action) {
+        delegate.forEachByUser(userId, action);
+    }
+
+    /* ===================== WRITE ===================== */
+
+    @Override
+    public void save(ShortLink link) {
+        delegate.save(link);
+        refresh(link);
+    }
+
+    /**
+     * Новые ссылки в кэш не кладутся: большая пачка вытеснила бы горячие коды
+     */
+    @Override
+    public Set<String> saveAll(Collection<ShortLink> links) {
+        Set<String> rejected = delegate.saveAll(links);
+        for (ShortLink link : links) {
+            invalidate(link.getShortCode());
+        }
+        return rejected;
+    }
+
+    @Override
+    public void update(ShortLink link) {
+        delegate.update(link);
+        refresh(link);
+    }
+
+    @Override
+    public ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt) {
+        ShortLink changed = delegate.updateLimits(shortCode, maxClicks, expiresAt);
+        if (changed != null) {
+            refresh(changed);
+        } else {
+            invalidate(shortCode);
+        }
+        return changed;
+    }
+
+    @Override
+    public void addClicks(Map<String, Integer> clicks) {
+        delegate.addClicks(clicks);
+        for (String shortCode : clicks.keySet()) {
+            invalidate(shortCode);
+        }
+    }
+
+    /**
+     * Переход идёт в хранилище; кэш получает состояние после перехода,
+     * а при отказе запись вытесняется — она могла устареть
+     */
+    @Override
+    public ShortLink tryRegisterClick(String shortCode) {
+        ShortLink clicked = delegate.tryRegisterClick(shortCode);
+        if (clicked != null) {
+            refresh(clicked);
+        } else {
+            invalidate(shortCode);
+        }
+        return clicked;
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        boolean deleted = delegate.delete(shortCode);
+        invalidate(shortCode);
+        return deleted;
+    }
+
+    @Override
+    public Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+        Map<UUID, List<String>> removed = delegate.deleteExpiredByOwner(limit);
+        if (!removed.isEmpty()) {
+            purgeExpired();
+        }
+        return removed;
+    }
+
+    @Override
+    public void deleteAllLinks() throws Exception {
+        delegate.deleteAllLinks();
+        clear();
+    }
+
+    @Override
+    public void deleteAll() {
+        delegate.deleteAll();
+        clear();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public Map<UUID, Integer> countByOwner() {
+        return delegate.countByOwner();
+    }
+
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        delegate.forEachShortCode(action);
+    }
+
+    /**
+     * Мимо кэша: обход всей таблицы вытеснил бы горячие ссылки
+     */
+    @Override
+    public void forEachLink(Consumer<ShortLink> action) {
+        delegate.forEachLink(action);
+    }
+
+    @Override
+    public void close() throws Exception {
+        clear();
+        delegate.close();
+    }
+
+    /* ===================== CACHE ===================== */
+
+    private synchronized void refresh(ShortLink link) {
+        generation++;
+        if (link.isExpired()) {
+            entries.remove(link.getShortCode());
+        } else {
+            entries.put(link.getShortCode(), copy(link));
+        }
+    }
+
+    public synchronized void invalidate(String shortCode) {
+        generation++;
+        entries.remove(shortCode);
+    }
+
+    private synchronized void purgeExpired() {
+        generation++;
+        Instant now = Instant.now();
+        Iterator<ShortLink> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (now.isAfter(it.next().getExpiresAt())) {
+                it.remove();
+                expirations.increment();
+            }
+        }
+    }
+
+    private synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    /* ===================== Статистика ===================== */
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    private static ShortLink copy(ShortLink link) {
+        return new ShortLink(
+                link.getShortCode(),
+                link.getOriginalUrl(),
+                link.getOwnerId(),
+                link.getMaxClicks(),
+                link.getCurrentClicks(),
+                link.getCreatedAt(),
+                link.getExpiresAt(),
+                link.isActive()
+        );
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.Shortlink.Storage.Repo;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Групповая фиксация изменений на одном соединении SQLite.
+ *
+ * Вызывающий поток ставит изменение в очередь и ждёт. Поток записи забирает всё
+ * накопившееся (не больше maxBatch, добирая не дольше maxWait), выполняет одной
+ * транзакцией и фиксирует одним commit: одна синхронизация с диском на пачку,
+ * а не на каждое изменение. Вызов возвращается только после commit, поэтому
+ * "вернулось — записано" по-прежнему верно для каждого вызова.
+ *
+ * Каждое изменение идёт под своей точкой сохранения: ошибка (например, занятый
+ * код) откатывает только его и достаётся только его вызывающему. Ошибка commit
+ * достаётся всем изменениям пачки
+ */
+final class GroupCommitWriter implements AutoCloseable {
+
+    @FunctionalInterface
+    interface Mutation<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Connection connection;
+    private final Object lock;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+
+    private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder mutations = new LongAdder();
+
+    /**
+     * @param lock          монитор, под которым соединением пользуются остальные методы
+     * @param maxBatch      изменений в одной транзакции
+     * @param maxWaitMicros сколько добирать пачку после первого изменения; 0 — брать только накопившееся
+     */
+    GroupCommitWriter(Connection connection, Object lock, int maxBatch, long maxWaitMicros, String threadName) {
+        if (maxBatch <= 0 || maxWaitMicros < 0) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным, ожидание — неотрицательным");
+        }
+        this.connection = connection;
+        this.lock = lock;
+        this.maxBatch = maxBatch;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+
+        this.thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Выполняет изменение в ближайшей пачке и ждёт её фиксации
+     */
+    <T> T execute(Mutation<T> mutation) throws SQLException {
+        if (!running) {
+            throw new IllegalStateException("Поток записи остановлен");
+        }
+        Pending<T> pending = new Pending<>(mutation);
+        queue.add(pending);
+        // close мог вычистить очередь до add: тогда изменение снимается здесь же
+        if (!running && queue.remove(pending)) {
+            throw new IllegalStateException("Поток записи остановлен");
+        }
+        return pending.await();
+    }
+
+    long getCommits() {
+        return commits.sum();
+    }
+
+    long getMutations() {
+        return mutations.sum();
+    }
+
+    /* ===================== Поток записи ===================== */
+
+    private void run() {
+        List<Pending<?>> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<?> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Pending<?>> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatch - batch.size());
+        long deadline = System.nanoTime() + maxWaitNanos;
+
+        while (batch.size() < maxBatch) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return;
+            }
+            Pending<?> next = queue.poll(left, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatch - batch.size());
+        }
+    }
+
+    private void commit(List<Pending<?>> batch) {
+        SQLException failure = null;
+
+        synchronized (lock) {
+            try {
+                connection.setAutoCommit(false);
+                try {
+                    for (Pending<?> pending : batch) {
+                        pending.apply(connection);
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                failure = e;
+            }
+        }
+
+        commits.increment();
+        mutations.add(batch.size());
+        // вызывающие будятся вне блокировки соединения
+        for (Pending<?> pending : batch) {
+            pending.complete(failure);
+        }
+    }
+
+    /**
+     * Дожидается фиксации уже принятых изменений; новые отклоняются
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        thread.join();
+
+        Pending<?> left;
+        while ((left = queue.poll()) != null) {
+            left.future.completeExceptionally(new IllegalStateException("Поток записи остановлен"));
+        }
+    }
+
+    /* ===================== Изменение в очереди ===================== */
+
+    private static final class Pending<T> {
+
+        private final Mutation<T> mutation;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private T result;
+        private Exception error;
+
+        private Pending(Mutation<T> mutation) {
+            this.mutation = mutation;
+        }
+
+        private void apply(Connection connection) throws SQLException {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                result = mutation.apply(connection);
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback(savepoint);
+                error = e;
+            }
+        }
+
+        private void complete(SQLException commitFailure) {
+            if (commitFailure != null) {
+                future.completeExceptionally(commitFailure);
+            } else if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        private T await() throws SQLException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Ожидание записи прервано", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new RuntimeException("Ошибка групповой записи", e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ClickBucket;
+import org.example.Shortlink.Core.Model.ClickGranularity;
+import org.example.Shortlink.Core.Service.ClickStatsRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Агрегаты переходов в памяти — для режима хранения memory
+ */
+public class InMemoryClickStatsRepository implements ClickStatsRepository {
+
+    private record Series(String shortCode, ClickGranularity granularity) {
+    }
+
+    // начало интервала (epoch second) → переходы
+    private final ConcurrentHashMap<Series, ConcurrentSkipListMap<Long, Long>> series = new ConcurrentHashMap<>();
+
+    @Override
+    public void addBuckets(Collection<ClickBucket> buckets) {
+        for (ClickBucket bucket : buckets) {
+            series.computeIfAbsent(new Series(bucket.getShortCode(), bucket.getGranularity()),
+                            key -> new ConcurrentSkipListMap<>())
+                    .merge(bucket.getStart().getEpochSecond(), bucket.getClicks(), Long::sum);
+        }
+    }
+
+    @Override
+    public List<ClickBucket> findBuckets(String shortCode, ClickGranularity granularity, Instant from, Instant to) {
+        ConcurrentSkipListMap<Long, Long> buckets = series.get(new Series(shortCode, granularity));
+        List<ClickBucket> result = new ArrayList<>();
+        if (buckets == null) {
+            return result;
+        }
+
+        for (Map.Entry<Long, Long> entry
+                : buckets.subMap(from.getEpochSecond(), true, to.getEpochSecond(), false).entrySet()) {
+            result.add(new ClickBucket(shortCode, granularity, Instant.ofEpochSecond(entry.getKey()), entry.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public void deleteBuckets(Collection<String> shortCodes) {
+        for (String shortCode : shortCodes) {
+            for (ClickGranularity granularity : ClickGranularity.values()) {
+                series.remove(new Series(shortCode, granularity));
+            }
+        }
+    }
+
+    @Override
+    public int deleteBucketsBefore(ClickGranularity granularity, Instant before) {
+        int deleted = 0;
+        for (Map.Entry<Series, ConcurrentSkipListMap<Long, Long>> entry : series.entrySet()) {
+            if (entry.getKey().granularity() == granularity) {
+                Map<Long, Long> expired = entry.getValue().headMap(before.getEpochSecond());
+                deleted += expired.size();
+                expired.clear();
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void close() {
+        // ресурсов нет
+    }
+}
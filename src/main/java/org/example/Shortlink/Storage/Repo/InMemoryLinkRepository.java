@@ -0,0 +1,365 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Репозиторий целиком в памяти, без глобальной блокировки.
+ *
+ * Основная таблица — ConcurrentHashMap по короткому коду; все изменения одной
+ * ссылки идут через compute по её ключу, поэтому вторичные индексы
+ * (по владельцу и по сроку действия) обновляются согласованно с записью.
+ * Хранятся и отдаются копии: изменения объекта вызывающим кодом
+ * не видны до update, как и в SQLite
+ */
+public class InMemoryLinkRepository implements LinkRepository {
+
+    private record ExpiryKey(long expiresAt, String shortCode) implements Comparable<ExpiryKey> {
+
+        private static final Comparator<ExpiryKey> ORDER = Comparator
+                .comparingLong(ExpiryKey::expiresAt)
+                .thenComparing(ExpiryKey::shortCode);
+
+        private static ExpiryKey of(ShortLink link) {
+            return new ExpiryKey(link.getExpiresAt().getEpochSecond(), link.getShortCode());
+        }
+
+        @Override
+        public int compareTo(ExpiryKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static final Comparator<ShortLink> PAGE_ORDER = Comparator
+            .comparing(ShortLink::getCreatedAt)
+            .thenComparing(ShortLink::getShortCode);
+
+    private final ConcurrentHashMap<String, ShortLink> byCode = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Set<String>> byOwner = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<ExpiryKey> byExpiry = new ConcurrentSkipListSet<>();
+
+    /* ===================== READ ===================== */
+
+    @Override
+    public Optional<ShortLink> findByShortCode(String shortCode) {
+        return Optional.ofNullable(findByShortCodeOrNull(shortCode));
+    }
+
+    @Override
+    public ShortLink findByShortCodeOrNull(String shortCode) {
+        ShortLink stored = byCode.get(shortCode);
+        return stored == null ? null : copy(stored);
+    }
+
+    @Override
+    public List<ShortLink> findAllByUser(UUID userId) {
+        List<ShortLink> result = new ArrayList<>();
+        for (ShortLink stored : ownedBy(userId)) {
+            result.add(copy(stored));
+        }
+        result.sort(PAGE_ORDER);
+        return result;
+    }
+
+    @Override
+    public List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit) {
+        return ownedBy(userId).stream()
+                .filter(link -> after == null || PAGE_ORDER.compare(link, after) > 0)
+                .sorted(PAGE_ORDER)
+                .limit(limit)
+                .map(InMemoryLinkRepository::copy)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Один проход по отсортированному снимку вместо страниц: страница в памяти — тоже сортировка
+     */
+    @Override
+    public void forEachByUser(UUID userId, Consumer<ShortLink> action) {
+        List<ShortLink> owned = ownedBy(userId);
+        owned.sort(PAGE_ORDER);
+        for (ShortLink stored : owned) {
+            action.accept(copy(stored));
+        }
+    }
+
+    private List<ShortLink> ownedBy(UUID userId) {
+        Set<String> codes = byOwner.get(userId);
+        if (codes == null) {
+            return new ArrayList<>();
+        }
+
+        List<ShortLink> result = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            ShortLink stored = byCode.get(code);
+            if (stored != null) {
+                result.add(stored);
+            }
+        }
+        return result;
+    }
+
+    /* ===================== WRITE ===================== */
+
+    @Override
+    public void save(ShortLink link) {
+        if (!insert(link)) {
+            throw new RuntimeException("Ошибка сохранения ссылки: код " + link.getShortCode() + " уже занят");
+        }
+    }
+
+    @Override
+    public Set<String> saveAll(Collection<ShortLink> links) {
+        Set<String> rejected = new LinkedHashSet<>();
+        for (ShortLink link : links) {
+            if (!insert(link)) {
+                rejected.add(link.getShortCode());
+            }
+        }
+        return rejected;
+    }
+
+    private boolean insert(ShortLink link) {
+        ShortLink snapshot = copy(link);
+        boolean[] inserted = new boolean[1];
+
+        byCode.computeIfAbsent(link.getShortCode(), code -> {
+            index(snapshot);
+            inserted[0] = true;
+            return snapshot;
+        });
+        return inserted[0];
+    }
+
+    @Override
+    public void update(ShortLink link) {
+        byCode.computeIfPresent(link.getShortCode(), (code, stored) -> {
+            ShortLink updated = new ShortLink(
+                    code,
+                    stored.getOriginalUrl(),
+                    stored.getOwnerId(),
+                    link.getMaxClicks(),
+                    link.getCurrentClicks(),
+                    stored.getCreatedAt(),
+                    link.getExpiresAt(),
+                    link.isActive()
+            );
+            reindexExpiry(stored, updated);
+            return updated;
+        });
+    }
+
+    @Override
+    public ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt) {
+        ShortLink[] changed = new ShortLink[1];
+
+        byCode.computeIfPresent(shortCode, (code, stored) -> {
+            ShortLink updated = new ShortLink(
+                    code,
+                    stored.getOriginalUrl(),
+                    stored.getOwnerId(),
+                    maxClicks,
+                    stored.getCurrentClicks(),
+                    stored.getCreatedAt(),
+                    expiresAt,
+                    stored.getCurrentClicks() < maxClicks
+            );
+            reindexExpiry(stored, updated);
+            changed[0] = copy(updated);
+            return updated;
+        });
+        return changed[0];
+    }
+
+    /**
+     * Атомарно по каждой ссылке: блокируется только её ключ
+     */
+    @Override
+    public void addClicks(Map<String, Integer> clicks) {
+        for (Map.Entry<String, Integer> entry : clicks.entrySet()) {
+            int delta = entry.getValue();
+            byCode.computeIfPresent(entry.getKey(), (code, stored) -> {
+                int current = stored.getCurrentClicks() + delta;
+                return new ShortLink(
+                        code,
+                        stored.getOriginalUrl(),
+                        stored.getOwnerId(),
+                        stored.getMaxClicks(),
+                        current,
+                        stored.getCreatedAt(),
+                        stored.getExpiresAt(),
+                        stored.isActive() && current < stored.getMaxClicks()
+                );
+            });
+        }
+    }
+
+    @Override
+    public ShortLink tryRegisterClick(String shortCode) {
+        ShortLink[] clicked = new ShortLink[1];
+
+        byCode.computeIfPresent(shortCode, (code, stored) -> {
+            if (!stored.canBeUsed()) {
+                return stored;
+            }
+            int current = stored.getCurrentClicks() + 1;
+            ShortLink updated = new ShortLink(
+                    code,
+                    stored.getOriginalUrl(),
+                    stored.getOwnerId(),
+                    stored.getMaxClicks(),
+                    current,
+                    stored.getCreatedAt(),
+                    stored.getExpiresAt(),
+                    current < stored.getMaxClicks()
+            );
+            clicked[0] = copy(updated);
+            return updated;
+        });
+        return clicked[0];
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        boolean[] deleted = new boolean[1];
+        byCode.computeIfPresent(shortCode, (code, stored) -> {
+            unindex(stored);
+            deleted[0] = true;
+            return null;
+        });
+        return deleted[0];
+    }
+
+    /**
+     * Идёт по индексу сроков от самых ранних — без полного перебора
+     */
+    @Override
+    public Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+        Map<UUID, List<String>> removedByOwner = new HashMap<>();
+        long now = Instant.now().getEpochSecond();
+        int deleted = 0;
+
+        for (ExpiryKey key : byExpiry) {
+            if (key.expiresAt() >= now || deleted >= limit) {
+                break;
+            }
+
+            UUID[] removed = new UUID[1];
+            byCode.computeIfPresent(key.shortCode(), (code, stored) -> {
+                if (stored.getExpiresAt().getEpochSecond() != key.expiresAt()) {
+                    return stored;
+                }
+                unindex(stored);
+                removed[0] = stored.getOwnerId();
+                return null;
+            });
+            // ключ без записи — остаток гонки с delete
+            byExpiry.remove(key);
+
+            if (removed[0] != null) {
+                deleted++;
+                removedByOwner.computeIfAbsent(removed[0], owner -> new ArrayList<>()).add(key.shortCode());
+            }
+        }
+        return removedByOwner;
+    }
+
+    @Override
+    public void deleteAllLinks() {
+        deleteAll();
+    }
+
+    @Override
+    public void deleteAll() {
+        for (String code : byCode.keySet()) {
+            delete(code);
+        }
+    }
+
+    @Override
+    public void close() {
+        // ресурсов нет
+    }
+
+    public int size() {
+        return byCode.size();
+    }
+
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        byCode.keySet().forEach(action);
+    }
+
+    @Override
+    public void forEachLink(Consumer<ShortLink> action) {
+        byCode.values().forEach(stored -> action.accept(copy(stored)));
+    }
+
+    @Override
+    public long count() {
+        return byCode.mappingCount();
+    }
+
+    @Override
+    public Map<UUID, Integer> countByOwner() {
+        Map<UUID, Integer> counts = new HashMap<>();
+        byOwner.forEach((ownerId, codes) -> counts.put(ownerId, codes.size()));
+        return counts;
+    }
+
+    /* ===================== Индексы ===================== */
+
+    private void index(ShortLink link) {
+        // добавление внутри compute: не гоняется с удалением опустевшего набора
+        byOwner.compute(link.getOwnerId(), (owner, codes) -> {
+            Set<String> result = codes != null ? codes : ConcurrentHashMap.newKeySet();
+            result.add(link.getShortCode());
+            return result;
+        });
+        byExpiry.add(ExpiryKey.of(link));
+    }
+
+    private void unindex(ShortLink link) {
+        byOwner.computeIfPresent(link.getOwnerId(), (owner, codes) -> {
+            codes.remove(link.getShortCode());
+            return codes.isEmpty() ? null : codes;
+        });
+        byExpiry.remove(ExpiryKey.of(link));
+    }
+
+    private void reindexExpiry(ShortLink previous, ShortLink current) {
+        if (!previous.getExpiresAt().equals(current.getExpiresAt())) {
+            byExpiry.remove(ExpiryKey.of(previous));
+            byExpiry.add(ExpiryKey.of(current));
+        }
+    }
+
+    private static ShortLink copy(ShortLink link) {
+        return new ShortLink(
+                link.getShortCode(),
+                link.getOriginalUrl(),
+                link.getOwnerId(),
+                link.getMaxClicks(),
+                link.getCurrentClicks(),
+                link.getCreatedAt(),
+                link.getExpiresAt(),
+                link.isActive()
+        );
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Metrics.LatencyHistogram;
+import org.example.Shortlink.Core.Metrics.MetricsRegistry;
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Замеряет задержку каждого обращения к хранилищу.
+ *
+ * Ставится непосредственно над SQLite/памятью, под кэшем: попадания в кэш
+ * не попадают в гистограммы. Каждый метод — один SQL-запрос (или одна пачка),
+ * метрика называется storage.&lt;запрос&gt;
+ */
+public class InstrumentedLinkRepository implements LinkRepository {
+
+    private final LinkRepository delegate;
+
+    private final LatencyHistogram insert;
+    private final LatencyHistogram insertBatch;
+    private final LatencyHistogram selectByCode;
+    private final LatencyHistogram selectByOwner;
+    private final LatencyHistogram selectPage;
+    private final LatencyHistogram update;
+    private final LatencyHistogram addClicks;
+    private final LatencyHistogram registerClick;
+    private final LatencyHistogram delete;
+    private final LatencyHistogram deleteExpired;
+    private final LatencyHistogram deleteAll;
+    private final LatencyHistogram count;
+    private final LatencyHistogram countByOwner;
+    private final LatencyHistogram selectCodes;
+    private final LatencyHistogram selectAll;
+
+    public InstrumentedLinkRepository(LinkRepository delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.insert = metrics.timer("storage.insert");
+        this.insertBatch = metrics.timer("storage.insert_batch");
+        this.selectByCode = metrics.timer("storage.select_by_code");
+        this.selectByOwner = metrics.timer("storage.select_by_owner");
+        this.selectPage = metrics.timer("storage.select_page");
+        this.update = metrics.timer("storage.update");
+        this.addClicks = metrics.timer("storage.add_clicks");
+        this.registerClick = metrics.timer("storage.register_click");
+        this.delete = metrics.timer("storage.delete");
+        this.deleteExpired = metrics.timer("storage.delete_expired");
+        this.deleteAll = metrics.timer("storage.delete_all");
+        this.count = metrics.timer("storage.count");
+        this.countByOwner = metrics.timer("storage.count_by_owner");
+        this.selectCodes = metrics.timer("storage.select_codes");
+        this.selectAll = metrics.timer("storage.select_all");
+    }
+
+    /* ===================== READ ===================== */
+
+    @Override
+    public Optional<ShortLink> findByShortCode(String shortCode) {
+        return Optional.ofNullable(findByShortCodeOrNull(shortCode));
+    }
+
+    @Override
+    public ShortLink findByShortCodeOrNull(String shortCode) {
+        return timed(selectByCode, () -> delegate.findByShortCodeOrNull(shortCode));
+    }
+
+    @Override
+    public List<ShortLink> findAllByUser(UUID userId) {
+        return timed(selectByOwner, () -> delegate.findAllByUser(userId));
+    }
+
+    @Override
+    public List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit) {
+        return timed(selectPage, () -> delegate.findPageByUser(userId, after, limit));
+    }
+
+    /**
+     * Замеряется весь обход вместе с обработкой строк вызывающим кодом
+     */
+    @Override
+    public void forEachByUser(UUID userId, Consumer<ShortLink> action) {
+        timed(selectByOwner, () -> delegate.forEachByUser(userId, action));
+    }
+
+    @Override
+    public long count() {
+        return timed(count, delegate::count);
+    }
+
+    @Override
+    public Map<UUID, Integer> countByOwner() {
+        return timed(countByOwner, delegate::countByOwner);
+    }
+
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        timed(selectCodes, () -> delegate.forEachShortCode(action));
+    }
+
+    /**
+     * Замеряется весь обход вместе с обработкой строк вызывающим кодом
+     */
+    @Override
+    public void forEachLink(Consumer<ShortLink> action) {
+        timed(selectAll, () -> delegate.forEachLink(action));
+    }
+
+    /* ===================== WRITE ===================== */
+
+    @Override
+    public void save(ShortLink link) {
+        timed(insert, () -> delegate.save(link));
+    }
+
+    @Override
+    public Set<String> saveAll(Collection<ShortLink> links) {
+        return timed(insertBatch, () -> delegate.saveAll(links));
+    }
+
+    @Override
+    public void update(ShortLink link) {
+        timed(update, () -> delegate.update(link));
+    }
+
+    @Override
+    public ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt) {
+        return timed(update, () -> delegate.updateLimits(shortCode, maxClicks, expiresAt));
+    }
+
+    @Override
+    public void addClicks(Map<String, Integer> clicks) {
+        timed(addClicks, () -> delegate.addClicks(clicks));
+    }
+
+    @Override
+    public ShortLink tryRegisterClick(String shortCode) {
+        return timed(registerClick, () -> delegate.tryRegisterClick(shortCode));
+    }
+
+    @Override
+    public String tryRegisterClickUrl(String shortCode) {
+        return timed(registerClick, () -> delegate.tryRegisterClickUrl(shortCode));
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        return timed(delete, () -> delegate.delete(shortCode));
+    }
+
+    @Override
+    public Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+        return timed(deleteExpired, () -> delegate.deleteExpiredByOwner(limit));
+    }
+
+    @Override
+    public void deleteAllLinks() throws Exception {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAllLinks();
+        } finally {
+            deleteAll.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        timed(deleteAll, delegate::deleteAll);
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+
+    /* ===================== Замер ===================== */
+
+    private static <T> T timed(LatencyHistogram histogram, Supplier<T> operation) {
+        long start = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    private static void timed(LatencyHistogram histogram, Runnable operation) {
+        long start = System.nanoTime();
+        try {
+            operation.run();
+        } finally {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+}
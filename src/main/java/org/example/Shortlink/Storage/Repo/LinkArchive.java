@@ -0,0 +1,284 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Двоичная выгрузка и загрузка таблицы links.
+ *
+ * Формат: заголовок (MAGIC, VERSION), затем записи с префиксом длины —
+ * код (u16 + UTF-8), URL (int + UTF-8), владелец (2 long), max_clicks, current_clicks,
+ * created_at, expires_at (секунды), active (байт). В конце — длина -1 и число записей:
+ * обрезанный файл не загрузится молча.
+ *
+ * Выгрузка идёт через forEachLink и буфер канала — таблица не читается в память целиком.
+ * Загрузка пишет пачками по SAVE_BATCH_SIZE (транзакция на пачку), SQLite-хранилища
+ * на время загрузки переводятся в PRAGMA synchronous = OFF
+ */
+public final class LinkArchive {
+
+    // "SLNK"
+    private static final int MAGIC = 0x534C4E4B;
+    private static final short VERSION = 1;
+    private static final int END = -1;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * @param read     записей в файле
+     * @param imported сохранено; остальные пропущены — код уже занят
+     */
+    public record ImportResult(long read, long imported) {
+
+        public long skipped() {
+            return read - imported;
+        }
+    }
+
+    private LinkArchive() {
+    }
+
+    /* ===================== Выгрузка ===================== */
+
+    /**
+     * Пишет во временный файл рядом с file и переносит его на место целиком:
+     * прерванная выгрузка не оставляет полуфабрикат под именем file
+     *
+     * @return число выгруженных ссылок
+     */
+    public static long export(LinkRepository repository, Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        long written;
+
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putShort(VERSION);
+
+            long[] count = {0};
+            try {
+                repository.forEachLink(link -> {
+                    try {
+                        writeRecord(channel, buffer, link);
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            written = count[0];
+
+            ensureRoom(channel, buffer, Integer.BYTES + Long.BYTES);
+            buffer.putInt(END).putLong(written);
+            drain(channel, buffer);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    private static void writeRecord(FileChannel channel, ByteBuffer buffer, ShortLink link) throws IOException {
+        byte[] code = link.getShortCode().getBytes(StandardCharsets.UTF_8);
+        byte[] url = link.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+        if (code.length > 0xFFFF) {
+            throw new IllegalArgumentException("Слишком длинный код: " + link.getShortCode());
+        }
+
+        int length = Short.BYTES + code.length + Integer.BYTES + url.length
+                + 2 * Long.BYTES + 2 * Integer.BYTES + 2 * Long.BYTES + 1;
+
+        // запись длиннее буфера (огромный URL) собирается отдельно
+        ByteBuffer target = buffer;
+        if (Integer.BYTES + length > buffer.capacity()) {
+            drain(channel, buffer);
+            target = ByteBuffer.allocate(Integer.BYTES + length);
+        } else {
+            ensureRoom(channel, buffer, Integer.BYTES + length);
+        }
+
+        UUID owner = link.getOwnerId();
+        target.putInt(length)
+                .putShort((short) code.length).put(code)
+                .putInt(url.length).put(url)
+                .putLong(owner.getMostSignificantBits())
+                .putLong(owner.getLeastSignificantBits())
+                .putInt(link.getMaxClicks())
+                .putInt(link.getCurrentClicks())
+                .putLong(link.getCreatedAt().getEpochSecond())
+                .putLong(link.getExpiresAt().getEpochSecond())
+                .put((byte) (link.isActive() ? 1 : 0));
+
+        if (target != buffer) {
+            drain(channel, target);
+        }
+    }
+
+    private static void ensureRoom(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /* ===================== Загрузка ===================== */
+
+    /**
+     * Ссылки с уже занятым кодом пропускаются и не прерывают загрузку.
+     * Кэш и фильтр Блума работающего сервиса о загруженных ссылках не знают —
+     * загружать нужно при остановленном сервисе
+     */
+    public static ImportResult importInto(LinkRepository repository, Path file) throws IOException {
+        long read = 0;
+        long imported = 0;
+
+        setBulkLoad(repository, true);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            RecordReader reader = new RecordReader(channel);
+            reader.require(Integer.BYTES + Short.BYTES);
+            if (reader.buffer.getInt() != MAGIC) {
+                throw new IOException("Файл не является выгрузкой ссылок: " + file);
+            }
+            short version = reader.buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия выгрузки: " + version);
+            }
+
+            List<ShortLink> batch = new ArrayList<>(LinkRows.SAVE_BATCH_SIZE);
+            while (true) {
+                reader.require(Integer.BYTES);
+                int length = reader.buffer.getInt();
+                if (length == END) {
+                    reader.require(Long.BYTES);
+                    long expected = reader.buffer.getLong();
+                    if (expected != read) {
+                        throw new IOException("В выгрузке " + expected + " записей, прочитано " + read);
+                    }
+                    break;
+                }
+                if (length <= 0) {
+                    throw new IOException("Повреждённая запись выгрузки, длина " + length);
+                }
+
+                batch.add(readRecord(reader.record(length)));
+                read++;
+                if (batch.size() == LinkRows.SAVE_BATCH_SIZE) {
+                    imported += save(repository, batch);
+                }
+            }
+            imported += save(repository, batch);
+        } finally {
+            setBulkLoad(repository, false);
+        }
+        return new ImportResult(read, imported);
+    }
+
+    private static ShortLink readRecord(ByteBuffer record) {
+        byte[] code = new byte[Short.toUnsignedInt(record.getShort())];
+        record.get(code);
+        byte[] url = new byte[record.getInt()];
+        record.get(url);
+
+        return new ShortLink(
+                new String(code, StandardCharsets.UTF_8),
+                new String(url, StandardCharsets.UTF_8),
+                new UUID(record.getLong(), record.getLong()),
+                record.getInt(),
+                record.getInt(),
+                Instant.ofEpochSecond(record.getLong()),
+                Instant.ofEpochSecond(record.getLong()),
+                record.get() == 1
+        );
+    }
+
+    private static int save(LinkRepository repository, List<ShortLink> batch) {
+        int saved = batch.size() - repository.saveAll(batch).size();
+        batch.clear();
+        return saved;
+    }
+
+    private static void setBulkLoad(LinkRepository repository, boolean enabled) {
+        if (repository instanceof SQLiteLinkRepository sqlite) {
+            sqlite.setBulkLoad(enabled);
+        } else if (repository instanceof PooledSQLiteLinkRepository pooled) {
+            pooled.setBulkLoad(enabled);
+        } else if (repository instanceof ShardedLinkRepository sharded) {
+            sharded.setBulkLoad(enabled);
+        }
+    }
+
+    /**
+     * Чтение канала через буфер: require дочитывает, пока в буфере не окажется нужное число байт
+     */
+    private static final class RecordReader {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+
+        private RecordReader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Выгрузка обрезана");
+                }
+            }
+            buffer.flip();
+        }
+
+        /**
+         * Тело записи длины length; запись длиннее буфера читается в отдельный буфер
+         */
+        private ByteBuffer record(int length) throws IOException {
+            if (length <= buffer.capacity()) {
+                require(length);
+                ByteBuffer record = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                return record;
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(length);
+            int fromBuffer = buffer.remaining();
+            record.put(buffer);
+            for (int read = fromBuffer; read < length; ) {
+                int n = channel.read(record);
+                if (n < 0) {
+                    throw new IOException("Выгрузка обрезана");
+                }
+                read += n;
+            }
+            return record.flip();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * SQL и отображение строк таблицы links, общие для SQLite-репозиториев
+ */
+final class LinkRows {
+
+    static final String INSERT = """
+            INSERT INTO links (
+                short_code, original_url, owner_id,
+                max_clicks, current_clicks,
+                created_at, expires_at, active
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // занятый код не прерывает пакет: строка пропускается, счётчик в executeBatch = 0
+    static final String INSERT_OR_IGNORE = INSERT.replaceFirst("INSERT", "INSERT OR IGNORE");
+
+    static final int SAVE_BATCH_SIZE = 1000;
+
+    static final String SELECT_BY_CODE = "SELECT * FROM links WHERE short_code = ?";
+
+    static final String SELECT_BY_OWNER = "SELECT * FROM links WHERE owner_id = ?";
+
+    static final String SELECT_FIRST_PAGE_BY_OWNER = """
+            SELECT * FROM links WHERE owner_id = ?
+            ORDER BY created_at, short_code
+            LIMIT ?
+            """;
+
+    static final String SELECT_NEXT_PAGE_BY_OWNER = """
+            SELECT * FROM links WHERE owner_id = ? AND (created_at, short_code) > (?, ?)
+            ORDER BY created_at, short_code
+            LIMIT ?
+            """;
+
+    static final String STREAM_BY_OWNER = """
+            SELECT * FROM links WHERE owner_id = ?
+            ORDER BY created_at, short_code
+            """;
+
+    static final String UPDATE = """
+            UPDATE links SET
+                current_clicks = ?,
+                max_clicks = ?,
+                active = ?,
+                expires_at = ?
+            WHERE short_code = ?
+            """;
+
+    // правка владельцем: счётчик переходов берётся из строки, а не из прочитанной ранее копии
+    static final String UPDATE_LIMITS = """
+            UPDATE links SET
+                max_clicks = ?,
+                expires_at = ?,
+                active = CASE WHEN current_clicks < ? THEN 1 ELSE 0 END
+            WHERE short_code = ?
+            RETURNING *
+            """;
+
+    static final String ADD_CLICKS = """
+            UPDATE links SET
+                current_clicks = current_clicks + ?,
+                active = CASE WHEN current_clicks + ? >= max_clicks THEN 0 ELSE active END
+            WHERE short_code = ?
+            """;
+
+    // условие совпадает с ShortLink.canBeUsed: переход либо засчитан целиком, либо строка не тронута
+    static final String REGISTER_CLICK = """
+            UPDATE links SET
+                current_clicks = current_clicks + 1,
+                active = CASE WHEN current_clicks + 1 >= max_clicks THEN 0 ELSE 1 END
+            WHERE short_code = ? AND active = 1 AND current_clicks < max_clicks AND expires_at >= ?
+            RETURNING *
+            """;
+
+    static final String DELETE = "DELETE FROM links WHERE short_code = ?";
+
+    static final String DELETE_EXPIRED_CHUNK_RETURNING_OWNER = """
+            DELETE FROM links WHERE rowid IN (
+                SELECT rowid FROM links WHERE expires_at < ? LIMIT ?
+            )
+            RETURNING owner_id, short_code
+            """;
+
+    static final String DELETE_ALL = "DELETE FROM links";
+
+    static final String COUNT = "SELECT count(*) FROM links";
+
+    static final String COUNT_BY_OWNER = "SELECT owner_id, count(*) FROM links GROUP BY owner_id";
+
+    static final String SELECT_CODES = "SELECT short_code FROM links";
+
+    static final String SELECT_ALL = "SELECT * FROM links";
+
+    // выгрузка порциями по первичному ключу: между порциями соединение свободно
+    static final String SELECT_ALL_FIRST_PAGE = "SELECT * FROM links ORDER BY short_code LIMIT ?";
+
+    static final String SELECT_ALL_NEXT_PAGE = "SELECT * FROM links WHERE short_code > ? ORDER BY short_code LIMIT ?";
+
+    static final String SELECT_CODES_FIRST_PAGE = "SELECT short_code FROM links ORDER BY short_code LIMIT ?";
+
+    static final String SELECT_CODES_NEXT_PAGE = "SELECT short_code FROM links WHERE short_code > ? ORDER BY short_code LIMIT ?";
+
+    private LinkRows() {
+    }
+
+    /**
+     * Меняет PRAGMA synchronous соединения: 0 (OFF) на время массовой загрузки
+     *
+     * @return прежнее значение, чтобы вернуть его после загрузки
+     */
+    static int swapSynchronous(Connection connection, int mode) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            int previous;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA synchronous")) {
+                previous = rs.next() ? rs.getInt(1) : 2;
+            }
+            stmt.execute("PRAGMA synchronous = " + mode);
+            return previous;
+        }
+    }
+
+    static void bindInsert(PreparedStatement ps, ShortLink link) throws SQLException {
+        ps.setString(1, link.getShortCode());
+        ps.setString(2, link.getOriginalUrl());
+        ps.setBytes(3, ownerBytes(link.getOwnerId()));
+        ps.setInt(4, link.getMaxClicks());
+        ps.setInt(5, link.getCurrentClicks());
+        ps.setLong(6, link.getCreatedAt().getEpochSecond());
+        ps.setLong(7, link.getExpiresAt().getEpochSecond());
+        ps.setInt(8, link.isActive() ? 1 : 0);
+    }
+
+    /**
+     * Вставляет ссылки пачками по SAVE_BATCH_SIZE, по транзакции на пачку.
+     * Соединение должно принадлежать вызывающему потоку.
+     * Ошибка SQL откатывает текущую пачку; уже закоммиченные остаются
+     *
+     * @return коды, которые уже заняты
+     */
+    static Set<String> insertAll(Connection connection, PreparedStatement ps,
+                                 Collection<ShortLink> links) throws SQLException {
+        Set<String> rejected = new LinkedHashSet<>();
+        List<ShortLink> all = List.copyOf(links);
+
+        connection.setAutoCommit(false);
+        try {
+            for (int from = 0; from < all.size(); from += SAVE_BATCH_SIZE) {
+                List<ShortLink> batch = all.subList(from, Math.min(from + SAVE_BATCH_SIZE, all.size()));
+                try {
+                    for (ShortLink link : batch) {
+                        bindInsert(ps, link);
+                        ps.addBatch();
+                    }
+                    int[] counts = ps.executeBatch();
+                    connection.commit();
+
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0) {
+                            rejected.add(batch.get(i).getShortCode());
+                        }
+                    }
+                } catch (SQLException e) {
+                    ps.clearBatch();
+                    connection.rollback();
+                    throw e;
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return rejected;
+    }
+
+    /**
+     * Выполняет REGISTER_CLICK
+     *
+     * @return ссылка после перехода или null, если переход не засчитан
+     */
+    static ShortLink registerClick(PreparedStatement ps, String shortCode) throws SQLException {
+        ps.setString(1, shortCode);
+        ps.setLong(2, Instant.now().getEpochSecond());
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? map(rs) : null;
+        }
+    }
+
+    static String pageQuery(ShortLink after) {
+        return after == null ? SELECT_FIRST_PAGE_BY_OWNER : SELECT_NEXT_PAGE_BY_OWNER;
+    }
+
+    /**
+     * Параметры запроса из pageQuery: ключ (created_at, short_code) последней
+     * ссылки предыдущей страницы, after == null — первая страница
+     */
+    static void bindPage(PreparedStatement ps, UUID ownerId, ShortLink after, int limit) throws SQLException {
+        ps.setBytes(1, ownerBytes(ownerId));
+        if (after == null) {
+            ps.setInt(2, limit);
+            return;
+        }
+        ps.setLong(2, after.getCreatedAt().getEpochSecond());
+        ps.setString(3, after.getShortCode());
+        ps.setInt(4, limit);
+    }
+
+    static void bindUpdate(PreparedStatement ps, ShortLink link) throws SQLException {
+        ps.setInt(1, link.getCurrentClicks());
+        ps.setInt(2, link.getMaxClicks());
+        ps.setInt(3, link.isActive() ? 1 : 0);
+        ps.setLong(4, link.getExpiresAt().getEpochSecond());
+        ps.setString(5, link.getShortCode());
+    }
+
+    static ShortLink updateLimits(PreparedStatement ps, String shortCode, int maxClicks, Instant expiresAt)
+            throws SQLException {
+        ps.setInt(1, maxClicks);
+        ps.setLong(2, expiresAt.getEpochSecond());
+        ps.setInt(3, maxClicks);
+        ps.setString(4, shortCode);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? map(rs) : null;
+        }
+    }
+
+    static Map<UUID, List<String>> deleteExpiredByOwner(PreparedStatement ps, int limit) throws SQLException {
+        ps.setLong(1, Instant.now().getEpochSecond());
+        ps.setInt(2, limit);
+        Map<UUID, List<String>> removed = new HashMap<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                removed.computeIfAbsent(ownerId(rs.getBytes(1)), owner -> new ArrayList<>()).add(rs.getString(2));
+            }
+        }
+        return removed;
+    }
+
+    static void bindAddClicks(PreparedStatement ps, String shortCode, int clicks) throws SQLException {
+        ps.setInt(1, clicks);
+        ps.setInt(2, clicks);
+        ps.setString(3, shortCode);
+    }
+
+    /* ===================== owner_id: BLOB(16) ===================== */
+
+    static byte[] ownerBytes(UUID ownerId) {
+        return ByteBuffer.allocate(16)
+                .putLong(ownerId.getMostSignificantBits())
+                .putLong(ownerId.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID ownerId(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    static Map<UUID, Integer> ownerCounts(ResultSet rs) throws SQLException {
+        Map<UUID, Integer> counts = new HashMap<>();
+        while (rs.next()) {
+            counts.put(ownerId(rs.getBytes(1)), rs.getInt(2));
+        }
+        return counts;
+    }
+
+    static ShortLink map(ResultSet rs) throws SQLException {
+        return new ShortLink(
+                rs.getString("short_code"),
+                rs.getString("original_url"),
+                ownerId(rs.getBytes("owner_id")),
+                rs.getInt("max_clicks"),
+                rs.getInt("current_clicks"),
+                Instant.ofEpochSecond(rs.getLong("created_at")),
+                Instant.ofEpochSecond(rs.getLong("expires_at")),
+                rs.getInt("active") == 1
+        );
+    }
+}
@@ -0,0 +1,713 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Хранилище ссылок в журнале только на добавление, отображённом в память.
+ *
+ * Журнал — последовательность файлов-сегментов фиксированного размера
+ * (FileChannel.map). Новая ссылка дописывается в конец активного сегмента,
+ * а все изменяемые поля записи (счётчик, лимит, срок, активность) имеют
+ * фиксированную ширину и меняются на месте; удаление — пометка типа записи.
+ * Индексы "код → сегмент и смещение" и по сроку действия живут в памяти
+ * и при открытии восстанавливаются одним проходом по сегментам.
+ *
+ * Фоновое уплотнение переписывает живые записи из заполненных сегментов,
+ * где больше половины места занято удалёнными, в активный и удаляет старый файл.
+ * Чтения идут параллельно под read-lock, изменения — под write-lock.
+ * Данные попадают в page cache сразу, на диск — при уплотнении и close()
+ */
+public class MappedLogLinkRepository implements LinkRepository {
+
+    private record ExpiryKey(long expiresAt, String shortCode) implements Comparable<ExpiryKey> {
+
+        private static final Comparator<ExpiryKey> ORDER = Comparator
+                .comparingLong(ExpiryKey::expiresAt)
+                .thenComparing(ExpiryKey::shortCode);
+
+        @Override
+        public int compareTo(ExpiryKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    public static final long DEFAULT_COMPACT_INTERVAL_SECONDS = 60;
+
+    /* ===================== Формат записи ===================== */
+
+    // длина записи пишется последней: недописанная запись при сбое читается как конец сегмента
+    private static final int LENGTH = 0;
+    private static final int TYPE = 4;
+    private static final int ACTIVE = 5;
+    private static final int CODE_LENGTH = 6;
+    private static final int OWNER_MSB = 8;
+    private static final int OWNER_LSB = 16;
+    private static final int CREATED_AT = 24;
+    private static final int EXPIRES_AT = 32;
+    private static final int MAX_CLICKS = 40;
+    private static final int CLICKS = 44;
+    private static final int URL_LENGTH = 48;
+    private static final int HEADER = 52;
+
+    private static final byte TYPE_LINK = 1;
+    private static final byte TYPE_DELETED = 2;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /* ===================== Состояние ===================== */
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final OpenAddressingIndex index = new OpenAddressingIndex(1024);
+    private final Map<UUID, Set<String>> byOwner = new HashMap<>();
+    // очистка идёт от самых ранних сроков и не перебирает живые записи
+    private final TreeSet<ExpiryKey> byExpiry = new TreeSet<>();
+    private Segment active;
+
+    private final ScheduledExecutorService compactor;
+
+    public MappedLogLinkRepository(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_COMPACT_INTERVAL_SECONDS);
+    }
+
+    /**
+     * @param compactIntervalSeconds 0 — без фонового уплотнения, только compact()
+     */
+    public MappedLogLinkRepository(Path directory, int segmentBytes, long compactIntervalSeconds) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка открытия журнала ссылок " + directory, e);
+        }
+
+        if (compactIntervalSeconds > 0) {
+            this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "log-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactQuietly,
+                    compactIntervalSeconds, compactIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            this.compactor = null;
+        }
+    }
+
+    /* ===================== Открытие ===================== */
+
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+
+        for (Path file : files) {
+            Segment segment = Segment.open(file, segmentId(file), segmentBytes);
+            segments.put(segment.id, segment);
+        }
+
+        // по возрастанию номера: копия записи после уплотнения новее исходной
+        for (Segment segment : segments.values()) {
+            scan(segment);
+        }
+
+        active = segments.isEmpty() ? roll() : segments.lastEntry().getValue();
+    }
+
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+
+        while (offset + HEADER <= segment.capacity) {
+            int length = buffer.getInt(offset + LENGTH);
+            if (length < HEADER || offset + length > segment.capacity) {
+                break;
+            }
+
+            if (buffer.get(offset + TYPE) == TYPE_LINK) {
+                String code = readCode(buffer, offset);
+                long previous = index.put(code, address(segment.id, offset));
+                if (previous != OpenAddressingIndex.ABSENT) {
+                    // копия, оставшаяся от прерванного уплотнения
+                    markDeleted(previous);
+                } else {
+                    byOwner.computeIfAbsent(readOwner(buffer, offset), owner -> new HashSet<>()).add(code);
+                    byExpiry.add(new ExpiryKey(buffer.getLong(offset + EXPIRES_AT), code));
+                }
+            } else {
+                segment.garbage += length;
+            }
+            offset += length;
+        }
+        segment.position = offset;
+    }
+
+    private static int segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /* ===================== READ ===================== */
+
+    @Override
+    public Optional<ShortLink> findByShortCode(String shortCode) {
+        return Optional.ofNullable(findByShortCodeOrNull(shortCode));
+    }
+
+    @Override
+    public ShortLink findByShortCodeOrNull(String shortCode) {
+        lock.readLock().lock();
+        try {
+            long address = index.get(shortCode);
+            return address == OpenAddressingIndex.ABSENT ? null : read(shortCode, address);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ShortLink> findAllByUser(UUID userId) {
+        List<ShortLink> result = ownedBy(userId);
+        result.sort(PAGE_ORDER);
+        return result;
+    }
+
+    @Override
+    public List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit) {
+        return ownedBy(userId).stream()
+                .filter(link -> after == null || PAGE_ORDER.compare(link, after) > 0)
+                .sorted(PAGE_ORDER)
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static final Comparator<ShortLink> PAGE_ORDER = Comparator
+            .comparing(ShortLink::getCreatedAt)
+            .thenComparing(ShortLink::getShortCode);
+
+    private List<ShortLink> ownedBy(UUID userId) {
+        lock.readLock().lock();
+        try {
+            Set<String> codes = byOwner.get(userId);
+            List<ShortLink> result = new ArrayList<>(codes == null ? 0 : codes.size());
+            if (codes != null) {
+                for (String code : codes) {
+                    result.add(read(code, index.get(code)));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        List<String> codes = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            index.forEach((code, address) -> codes.add(code));
+        } finally {
+            lock.readLock().unlock();
+        }
+        codes.forEach(action);
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ===================== WRITE ===================== */
+
+    @Override
+    public void save(ShortLink link) {
+        byte[] code = link.getShortCode().getBytes(StandardCharsets.UTF_8);
+        byte[] url = link.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+        int length = align(HEADER + code.length + url.length);
+        if (length > segmentBytes) {
+            throw new RuntimeException("Ошибка сохранения ссылки: запись больше сегмента журнала");
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (index.get(link.getShortCode()) != OpenAddressingIndex.ABSENT) {
+                throw new RuntimeException("Ошибка сохранения ссылки: код " + link.getShortCode() + " уже занят");
+            }
+
+            Segment segment = reserve(length);
+            int offset = segment.position;
+            MappedByteBuffer buffer = segment.buffer;
+
+            buffer.put(offset + TYPE, TYPE_LINK);
+            buffer.putShort(offset + CODE_LENGTH, (short) code.length);
+            buffer.putLong(offset + OWNER_MSB, link.getOwnerId().getMostSignificantBits());
+            buffer.putLong(offset + OWNER_LSB, link.getOwnerId().getLeastSignificantBits());
+            buffer.putLong(offset + CREATED_AT, link.getCreatedAt().getEpochSecond());
+            buffer.putInt(offset + URL_LENGTH, url.length);
+            buffer.put(offset + HEADER, code);
+            buffer.put(offset + HEADER + code.length, url);
+            writeMutable(buffer, offset, link);
+            buffer.putInt(offset + LENGTH, length);
+
+            segment.position += length;
+            index.put(link.getShortCode(), address(segment.id, offset));
+            byOwner.computeIfAbsent(link.getOwnerId(), owner -> new HashSet<>()).add(link.getShortCode());
+            byExpiry.add(new ExpiryKey(link.getExpiresAt().getEpochSecond(), link.getShortCode()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Запись на месте: формат записи не меняется
+     */
+    @Override
+    public void update(ShortLink link) {
+        lock.writeLock().lock();
+        try {
+            long address = index.get(link.getShortCode());
+            if (address != OpenAddressingIndex.ABSENT) {
+                MappedByteBuffer buffer = segmentOf(address).buffer;
+                int offset = offsetOf(address);
+                reindexExpiry(link.getShortCode(), buffer.getLong(offset + EXPIRES_AT),
+                        link.getExpiresAt().getEpochSecond());
+                writeMutable(buffer, offset, link);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt) {
+        lock.writeLock().lock();
+        try {
+            long address = index.get(shortCode);
+            if (address == OpenAddressingIndex.ABSENT) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = segmentOf(address).buffer;
+            int offset = offsetOf(address);
+            reindexExpiry(shortCode, buffer.getLong(offset + EXPIRES_AT), expiresAt.getEpochSecond());
+            buffer.putInt(offset + MAX_CLICKS, maxClicks);
+            buffer.putLong(offset + EXPIRES_AT, expiresAt.getEpochSecond());
+            buffer.put(offset + ACTIVE, (byte) (buffer.getInt(offset + CLICKS) < maxClicks ? 1 : 0));
+            return read(shortCode, address);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addClicks(Map<String, Integer> clicks) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Integer> entry : clicks.entrySet()) {
+                long address = index.get(entry.getKey());
+                if (address == OpenAddressingIndex.ABSENT) {
+                    continue;
+                }
+
+                MappedByteBuffer buffer = segmentOf(address).buffer;
+                int offset = offsetOf(address);
+                int current = buffer.getInt(offset + CLICKS) + entry.getValue();
+                buffer.putInt(offset + CLICKS, current);
+                if (current >= buffer.getInt(offset + MAX_CLICKS)) {
+                    buffer.put(offset + ACTIVE, (byte) 0);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Счётчик и флаг активности пишутся на месте, как в addClicks
+     */
+    @Override
+    public ShortLink tryRegisterClick(String shortCode) {
+        lock.writeLock().lock();
+        try {
+            long address = index.get(shortCode);
+            if (address == OpenAddressingIndex.ABSENT) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = segmentOf(address).buffer;
+            int offset = offsetOf(address);
+            int current = buffer.getInt(offset + CLICKS);
+            int maxClicks = buffer.getInt(offset + MAX_CLICKS);
+            if (buffer.get(offset + ACTIVE) == 0
+                    || current >= maxClicks
+                    || buffer.getLong(offset + EXPIRES_AT) < Instant.now().getEpochSecond()) {
+                return null;
+            }
+
+            buffer.putInt(offset + CLICKS, current + 1);
+            if (current + 1 >= maxClicks) {
+                buffer.put(offset + ACTIVE, (byte) 0);
+            }
+            return read(shortCode, address);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        lock.writeLock().lock();
+        try {
+            return remove(shortCode);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean remove(String shortCode) {
+        long address = index.remove(shortCode);
+        if (address == OpenAddressingIndex.ABSENT) {
+            return false;
+        }
+
+        MappedByteBuffer buffer = segmentOf(address).buffer;
+        int offset = offsetOf(address);
+        UUID owner = readOwner(buffer, offset);
+        Set<String> codes = byOwner.get(owner);
+        if (codes != null && codes.remove(shortCode) && codes.isEmpty()) {
+            byOwner.remove(owner);
+        }
+        byExpiry.remove(new ExpiryKey(buffer.getLong(offset + EXPIRES_AT), shortCode));
+        markDeleted(address);
+        return true;
+    }
+
+    private void reindexExpiry(String shortCode, long previous, long current) {
+        if (previous != current) {
+            byExpiry.remove(new ExpiryKey(previous, shortCode));
+            byExpiry.add(new ExpiryKey(current, shortCode));
+        }
+    }
+
+    private void markDeleted(long address) {
+        Segment segment = segmentOf(address);
+        int offset = offsetOf(address);
+        segment.buffer.put(offset + TYPE, TYPE_DELETED);
+        segment.garbage += segment.buffer.getInt(offset + LENGTH);
+    }
+
+    /**
+     * Идёт по индексу сроков от самых ранних — без перебора живых записей
+     */
+    @Override
+    public Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+        Map<UUID, List<String>> removedByOwner = new HashMap<>();
+        long now = Instant.now().getEpochSecond();
+
+        lock.writeLock().lock();
+        try {
+            List<String> expired = new ArrayList<>();
+            for (ExpiryKey key : byExpiry) {
+                if (key.expiresAt() >= now || expired.size() >= limit) {
+                    break;
+                }
+                expired.add(key.shortCode());
+            }
+
+            for (String code : expired) {
+                long address = index.get(code);
+                removedByOwner.computeIfAbsent(readOwner(segmentOf(address).buffer, offsetOf(address)),
+                        owner -> new ArrayList<>()).add(code);
+                remove(code);
+            }
+            return removedByOwner;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllLinks() {
+        deleteAll();
+    }
+
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+                Files.deleteIfExists(segment.file);
+            }
+            segments.clear();
+            index.clear();
+            byOwner.clear();
+            byExpiry.clear();
+            active = roll();
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка очистки журнала ссылок", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* ===================== Уплотнение ===================== */
+
+    /**
+     * Переписывает живые записи заполненных сегментов, где удалённые занимают
+     * не меньше половины, и удаляет эти сегменты. Просроченные записи переносятся
+     * как живые: их удаляет очистка (deleteExpiredByOwner), которая сообщает, чьи они.
+     * Блокировка берётся на каждый сегмент отдельно
+     *
+     * @return число удалённых сегментов
+     */
+    public int compact() {
+        List<Integer> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment != active && segment.garbage * 2 >= segment.position) {
+                    candidates.add(segment.id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int compacted = 0;
+        for (int id : candidates) {
+            lock.writeLock().lock();
+            try {
+                Segment segment = segments.get(id);
+                if (segment != null && segment != active) {
+                    rewrite(segment);
+                    compacted++;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка уплотнения журнала ссылок", e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return compacted;
+    }
+
+    private void rewrite(Segment segment) throws IOException {
+        MappedByteBuffer source = segment.buffer;
+
+        int offset = 0;
+        while (offset < segment.position) {
+            int length = source.getInt(offset + LENGTH);
+            if (source.get(offset + TYPE) == TYPE_LINK) {
+                byte[] record = new byte[length];
+                source.get(offset, record);
+
+                Segment target = reserve(length);
+                int targetOffset = target.position;
+                // длина — последней, как и при обычной записи
+                target.buffer.put(targetOffset + 4, record, 4, length - 4);
+                target.buffer.putInt(targetOffset + LENGTH, length);
+                target.position += length;
+                index.put(readCode(source, offset), address(target.id, targetOffset));
+            }
+            offset += length;
+        }
+
+        // копии должны оказаться на диске раньше, чем исчезнет исходный сегмент
+        active.buffer.force();
+        segments.remove(segment.id);
+        segment.close();
+        Files.deleteIfExists(segment.file);
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка уплотнения журнала ссылок: " + e.getMessage());
+        }
+    }
+
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (compactor != null) {
+            compactor.shutdown();
+            compactor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+                segment.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* ===================== Сегменты и записи ===================== */
+
+    /**
+     * Активный сегмент с местом под запись; заполненный сменяется новым
+     */
+    private Segment reserve(int length) {
+        if (active.position + length > active.capacity) {
+            active.buffer.force();
+            active = roll();
+        }
+        return active;
+    }
+
+    private Segment roll() {
+        int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path file = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        try {
+            Segment segment = Segment.open(file, id, segmentBytes);
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка создания сегмента журнала " + file, e);
+        }
+    }
+
+    private Segment segmentOf(long address) {
+        return segments.get((int) (address >>> 32));
+    }
+
+    private static long address(int segmentId, int offset) {
+        return ((long) segmentId << 32) | offset;
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private static int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    private static void writeMutable(MappedByteBuffer buffer, int offset, ShortLink link) {
+        buffer.put(offset + ACTIVE, (byte) (link.isActive() ? 1 : 0));
+        buffer.putLong(offset + EXPIRES_AT, link.getExpiresAt().getEpochSecond());
+        buffer.putInt(offset + MAX_CLICKS, link.getMaxClicks());
+        buffer.putInt(offset + CLICKS, link.getCurrentClicks());
+    }
+
+    private static String readCode(MappedByteBuffer buffer, int offset) {
+        byte[] code = new byte[buffer.getShort(offset + CODE_LENGTH)];
+        buffer.get(offset + HEADER, code);
+        return new String(code, StandardCharsets.UTF_8);
+    }
+
+    private static UUID readOwner(MappedByteBuffer buffer, int offset) {
+        return new UUID(buffer.getLong(offset + OWNER_MSB), buffer.getLong(offset + OWNER_LSB));
+    }
+
+    private ShortLink read(String shortCode, long address) {
+        MappedByteBuffer buffer = segmentOf(address).buffer;
+        int offset = offsetOf(address);
+
+        byte[] url = new byte[buffer.getInt(offset + URL_LENGTH)];
+        buffer.get(offset + HEADER + buffer.getShort(offset + CODE_LENGTH), url);
+
+        return new ShortLink(
+                shortCode,
+                new String(url, StandardCharsets.UTF_8),
+                readOwner(buffer, offset),
+                buffer.getInt(offset + MAX_CLICKS),
+                buffer.getInt(offset + CLICKS),
+                Instant.ofEpochSecond(buffer.getLong(offset + CREATED_AT)),
+                Instant.ofEpochSecond(buffer.getLong(offset + EXPIRES_AT)),
+                buffer.get(offset + ACTIVE) == 1
+        );
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+
+        // конец последней записи
+        private int position;
+        // байты удалённых записей: по ним выбираются сегменты для уплотнения
+        private long garbage;
+
+        private Segment(int id, Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+        }
+
+        private static Segment open(Path file, int id, int segmentBytes) throws IOException {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // существующий сегмент открывается в своём размере, новый растёт до segmentBytes
+            long size = Math.max(channel.size(), segmentBytes);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(id, file, channel, buffer);
+        }
+
+        private void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,1054 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Хранилище ссылок вне кучи (Foreign Memory API).
+ *
+ * Запись — заголовок фиксированной ширины (владелец двумя long, время в секундах эпохи,
+ * счётчики int, флаги, соседи по владельцу и по сроку), за ним код и URL в UTF-8. Записи
+ * выкладываются подряд в куски по chunkBytes; индекс "код → адрес записи" тоже вне кучи —
+ * таблица long с открытой адресацией, ключ сверяется с байтами кода прямо в записи. Ссылки
+ * владельца связаны в двусвязный список через заголовки, голова списка — во второй такой же
+ * таблице. Ссылки с одной секундой истечения тоже связаны в список; головы этих списков —
+ * в TreeMap по секунде, поэтому очистка берёт только просроченные записи. В куче остаются
+ * дескрипторы кусков и по узлу на секунду истечения, сколько бы ссылок ни хранилось,
+ * и сборщику мусора почти нечего обходить.
+ *
+ * ShortLink собирается только на выходе из репозитория: проверка перехода читает поля
+ * на месте, tryRegisterClickUrl отдаёт только строку URL.
+ * Куски, наполовину занятые удалёнными записями, освобождает фоновое уплотнение
+ */
+public class OffHeapLinkRepository implements LinkRepository {
+
+    public static final int DEFAULT_CHUNK_BYTES = 16 * 1024 * 1024;
+    public static final long DEFAULT_COMPACT_INTERVAL_SECONDS = 60;
+
+    /* ===================== Формат записи ===================== */
+
+    private static final long OWNER_MSB = 0;
+    private static final long OWNER_LSB = 8;
+    private static final long CREATED_AT = 16;
+    private static final long EXPIRES_AT = 24;
+    private static final long MAX_CLICKS = 32;
+    private static final long CLICKS = 36;
+    private static final long HASH = 40;
+    private static final long URL_LENGTH = 44;
+    private static final long CODE_LENGTH = 48;
+    private static final long FLAGS = 50;
+    // адреса соседних ссылок того же владельца + 1; 0 — соседа нет
+    private static final long PREV_BY_OWNER = 56;
+    private static final long NEXT_BY_OWNER = 64;
+    // соседи в списке ссылок с той же секундой истечения, так же со сдвигом на 1
+    private static final long PREV_BY_EXPIRY = 72;
+    private static final long NEXT_BY_EXPIRY = 80;
+    private static final long HEADER = 88;
+
+    private static final byte FLAG_ACTIVE = 1;
+    private static final byte FLAG_DELETED = 2;
+
+    private static final long ABSENT = -1;
+    private static final int INITIAL_TABLE_SLOTS = 1024;
+
+    private static final Comparator<ShortLink> PAGE_ORDER = Comparator
+            .comparing(ShortLink::getCreatedAt)
+            .thenComparing(ShortLink::getShortCode);
+
+    /* ===================== Состояние ===================== */
+
+    private final int chunkBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // у каждого куска своя арена: уплотнённый кусок освобождается отдельно; null — номер свободен
+    private Arena[] chunkArenas;
+    private MemorySegment[] chunks;
+    private long[] chunkFill;
+    private long[] chunkGarbage;
+    private int chunkCount;
+    private int current;
+    private long allocatedBytes;
+    private long garbageBytes;
+
+    private final AddressTable codes = new AddressTable(this::codeHashAt);
+    private final AddressTable owners = new AddressTable(this::ownerHashAt);
+    // секунда истечения → адрес головы списка записей с этим сроком
+    private final TreeMap<Long, Long> expiryHeads = new TreeMap<>();
+    private boolean closed;
+
+    private final ScheduledExecutorService compactor;
+
+    public OffHeapLinkRepository() {
+        this(DEFAULT_CHUNK_BYTES, DEFAULT_COMPACT_INTERVAL_SECONDS);
+    }
+
+    /**
+     * @param compactIntervalSeconds 0 — без фонового уплотнения, только compact()
+     */
+    public OffHeapLinkRepository(int chunkBytes, long compactIntervalSeconds) {
+        this.chunkBytes = chunkBytes;
+        resetRecords();
+
+        if (compactIntervalSeconds > 0) {
+            this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "offheap-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactQuietly,
+                    compactIntervalSeconds, compactIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            this.compactor = null;
+        }
+    }
+
+    /* ===================== Окно на запись ===================== */
+
+    /**
+     * Окно на запись вне кучи: поля читаются на месте, без сборки ShortLink.
+     * Действительно только под блокировкой, в которой получен адрес
+     */
+    private final class LinkView {
+
+        private MemorySegment chunk;
+        private long offset;
+
+        private LinkView() {
+        }
+
+        private LinkView at(long address) {
+            this.chunk = chunkOf(address);
+            this.offset = offsetOf(address);
+            return this;
+        }
+
+        long getExpiresAtEpochSecond() {
+            return chunk.get(ValueLayout.JAVA_LONG, offset + EXPIRES_AT);
+        }
+
+        int getMaxClicks() {
+            return chunk.get(ValueLayout.JAVA_INT, offset + MAX_CLICKS);
+        }
+
+        int getCurrentClicks() {
+            return chunk.get(ValueLayout.JAVA_INT, offset + CLICKS);
+        }
+
+        boolean isActive() {
+            return (chunk.get(ValueLayout.JAVA_BYTE, offset + FLAGS) & FLAG_ACTIVE) != 0;
+        }
+
+        /**
+         * То же, что ShortLink.canBeUsed(), без сборки объекта
+         */
+        boolean canBeUsed(long nowEpochSecond) {
+            return isActive()
+                    && getExpiresAtEpochSecond() >= nowEpochSecond
+                    && getCurrentClicks() < getMaxClicks();
+        }
+
+        String getOriginalUrl() {
+            return readUrl(chunk, offset);
+        }
+
+        ShortLink toShortLink() {
+            return read(chunk, offset);
+        }
+    }
+
+    /**
+     * Выполняет reader над записью под блокировкой чтения
+     *
+     * @return null, если ссылки нет
+     */
+    private <T> T withLink(String shortCode, Function<LinkView, T> reader) {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(code);
+
+        lock.readLock().lock();
+        try {
+            long address = find(code, hash);
+            return address == ABSENT ? null : reader.apply(new LinkView().at(address));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ===================== READ ===================== */
+
+    @Override
+    public Optional<ShortLink> findByShortCode(String shortCode) {
+        return Optional.ofNullable(findByShortCodeOrNull(shortCode));
+    }
+
+    @Override
+    public ShortLink findByShortCodeOrNull(String shortCode) {
+        return withLink(shortCode, LinkView::toShortLink);
+    }
+
+    @Override
+    public List<ShortLink> findAllByUser(UUID userId) {
+        List<ShortLink> result = ownedBy(userId);
+        result.sort(PAGE_ORDER);
+        return result;
+    }
+
+    @Override
+    public List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit) {
+        return ownedBy(userId).stream()
+                .filter(link -> after == null || PAGE_ORDER.compare(link, after) > 0)
+                .sorted(PAGE_ORDER)
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Один проход и одна сортировка вместо постраничных проходов по списку владельца
+     */
+    @Override
+    public void forEachByUser(UUID userId, Consumer<ShortLink> action) {
+        findAllByUser(userId).forEach(action);
+    }
+
+    /**
+     * Проход по списку владельца: читаются только его записи
+     */
+    private List<ShortLink> ownedBy(UUID userId) {
+        List<ShortLink> result = new ArrayList<>();
+        long msb = userId.getMostSignificantBits();
+        long lsb = userId.getLeastSignificantBits();
+
+        lock.readLock().lock();
+        try {
+            long slot = owners.slotOf(ownerHash(msb, lsb), head -> isOwnedBy(head, msb, lsb));
+            if (slot == ABSENT) {
+                return result;
+            }
+            for (long address = owners.addressAt(slot); address != ABSENT;
+                 address = neighbour(address, NEXT_BY_OWNER)) {
+                result.add(read(chunkOf(address), offsetOf(address)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Коды собираются под блокировкой, action вызывается уже без неё
+     */
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        List<String> collected = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            forEachLive(address -> collected.add(
+                    new String(readCode(chunkOf(address), offsetOf(address)), StandardCharsets.UTF_8)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        collected.forEach(action);
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return codes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Байты записей вне кучи, включая ещё не уплотнённые удалённые
+     */
+    public long getAllocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return allocatedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ===================== WRITE ===================== */
+
+    @Override
+    public void save(ShortLink link) {
+        byte[] code = link.getShortCode().getBytes(StandardCharsets.UTF_8);
+        byte[] url = link.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+        long length = align(HEADER + code.length + url.length);
+        if (length > chunkBytes) {
+            throw new RuntimeException("Ошибка сохранения ссылки: запись больше куска памяти");
+        }
+        int hash = hash(code);
+
+        lock.writeLock().lock();
+        try {
+            if (find(code, hash) != ABSENT) {
+                throw new RuntimeException("Ошибка сохранения ссылки: код " + link.getShortCode() + " уже занят");
+            }
+
+            long address = reserve(length);
+            MemorySegment chunk = chunkOf(address);
+            long offset = offsetOf(address);
+
+            chunk.set(ValueLayout.JAVA_LONG, offset + OWNER_MSB, link.getOwnerId().getMostSignificantBits());
+            chunk.set(ValueLayout.JAVA_LONG, offset + OWNER_LSB, link.getOwnerId().getLeastSignificantBits());
+            chunk.set(ValueLayout.JAVA_LONG, offset + CREATED_AT, link.getCreatedAt().getEpochSecond());
+            chunk.set(ValueLayout.JAVA_INT, offset + HASH, hash);
+            chunk.set(ValueLayout.JAVA_INT, offset + URL_LENGTH, url.length);
+            chunk.set(ValueLayout.JAVA_SHORT, offset + CODE_LENGTH, (short) code.length);
+            MemorySegment.copy(code, 0, chunk, ValueLayout.JAVA_BYTE, offset + HEADER, code.length);
+            MemorySegment.copy(url, 0, chunk, ValueLayout.JAVA_BYTE, offset + HEADER + code.length, url.length);
+            writeMutable(chunk, offset, link);
+
+            codes.insert(address);
+            linkOwner(address);
+            linkExpiry(address);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void update(ShortLink link) {
+        byte[] code = link.getShortCode().getBytes(StandardCharsets.UTF_8);
+        int hash = hash(code);
+
+        lock.writeLock().lock();
+        try {
+            long address = find(code, hash);
+            if (address != ABSENT) {
+                unlinkExpiry(address);
+                writeMutable(chunkOf(address), offsetOf(address), link);
+                linkExpiry(address);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt) {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(code);
+
+        lock.writeLock().lock();
+        try {
+            long address = find(code, hash);
+            if (address == ABSENT) {
+                return null;
+            }
+
+            MemorySegment chunk = chunkOf(address);
+            long offset = offsetOf(address);
+            chunk.set(ValueLayout.JAVA_INT, offset + MAX_CLICKS, maxClicks);
+            unlinkExpiry(address);
+            chunk.set(ValueLayout.JAVA_LONG, offset + EXPIRES_AT, expiresAt.getEpochSecond());
+            linkExpiry(address);
+            byte flags = chunk.get(ValueLayout.JAVA_BYTE, offset + FLAGS);
+            boolean active = chunk.get(ValueLayout.JAVA_INT, offset + CLICKS) < maxClicks;
+            chunk.set(ValueLayout.JAVA_BYTE, offset + FLAGS, (byte) (active ? flags | FLAG_ACTIVE : flags & ~FLAG_ACTIVE));
+            return read(chunk, offset);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addClicks(Map<String, Integer> clicks) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Integer> entry : clicks.entrySet()) {
+                byte[] code = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                long address = find(code, hash(code));
+                if (address == ABSENT) {
+                    continue;
+                }
+
+                MemorySegment chunk = chunkOf(address);
+                long offset = offsetOf(address);
+                int current = chunk.get(ValueLayout.JAVA_INT, offset + CLICKS) + entry.getValue();
+                chunk.set(ValueLayout.JAVA_INT, offset + CLICKS, current);
+                if (current >= chunk.get(ValueLayout.JAVA_INT, offset + MAX_CLICKS)) {
+                    byte flags = chunk.get(ValueLayout.JAVA_BYTE, offset + FLAGS);
+                    chunk.set(ValueLayout.JAVA_BYTE, offset + FLAGS, (byte) (flags & ~FLAG_ACTIVE));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ShortLink tryRegisterClick(String shortCode) {
+        return registerClick(shortCode, LinkView::toShortLink);
+    }
+
+    /**
+     * Переход без сборки ShortLink: из кучи берётся только строка URL
+     */
+    @Override
+    public String tryRegisterClickUrl(String shortCode) {
+        return registerClick(shortCode, LinkView::getOriginalUrl);
+    }
+
+    /**
+     * Проверка и прибавление счётчика под блокировкой записи
+     *
+     * @return reader над записью после перехода или null, если переход невозможен
+     */
+    private <T> T registerClick(String shortCode, Function<LinkView, T> reader) {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(code);
+
+        lock.writeLock().lock();
+        try {
+            long address = find(code, hash);
+            if (address == ABSENT) {
+                return null;
+            }
+
+            LinkView view = new LinkView().at(address);
+            if (!view.canBeUsed(Instant.now().getEpochSecond())) {
+                return null;
+            }
+
+            MemorySegment chunk = chunkOf(address);
+            long offset = offsetOf(address);
+            int current = view.getCurrentClicks() + 1;
+            chunk.set(ValueLayout.JAVA_INT, offset + CLICKS, current);
+            if (current >= view.getMaxClicks()) {
+                byte flags = chunk.get(ValueLayout.JAVA_BYTE, offset + FLAGS);
+                chunk.set(ValueLayout.JAVA_BYTE, offset + FLAGS, (byte) (flags & ~FLAG_ACTIVE));
+            }
+            return reader.apply(view);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Запись только помечается удалённой; место освобождает уплотнение
+     */
+    @Override
+    public boolean delete(String shortCode) {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(code);
+
+        lock.writeLock().lock();
+        try {
+            long address = find(code, hash);
+            if (address == ABSENT) {
+                return false;
+            }
+            remove(address);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Проход по спискам просроченных секунд, от самых ранних: живые записи не читаются,
+     * ShortLink не собирается
+     */
+    @Override
+    public Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+        Map<UUID, List<String>> removedByOwner = new HashMap<>();
+        long now = Instant.now().getEpochSecond();
+        List<Long> expired = new ArrayList<>();
+
+        lock.writeLock().lock();
+        try {
+            for (long head : expiryHeads.headMap(now, false).values()) {
+                for (long address = head; address != ABSENT && expired.size() < limit;
+                     address = neighbour(address, NEXT_BY_EXPIRY)) {
+                    expired.add(address);
+                }
+                if (expired.size() >= limit) {
+                    break;
+                }
+            }
+
+            for (long address : expired) {
+                MemorySegment chunk = chunkOf(address);
+                long offset = offsetOf(address);
+                UUID owner = new UUID(chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_MSB),
+                        chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_LSB));
+                removedByOwner.computeIfAbsent(owner, id -> new ArrayList<>())
+                        .add(new String(readCode(chunk, offset), StandardCharsets.UTF_8));
+                remove(address);
+            }
+            return removedByOwner;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllLinks() {
+        deleteAll();
+    }
+
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            releaseRecords();
+            codes.close();
+            owners.close();
+            resetRecords();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                releaseRecords();
+                codes.close();
+                owners.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* ===================== Куски записей ===================== */
+
+    private void resetRecords() {
+        chunkArenas = new Arena[4];
+        chunks = new MemorySegment[4];
+        chunkFill = new long[4];
+        chunkGarbage = new long[4];
+        chunkCount = 0;
+        current = -1;
+        allocatedBytes = 0;
+        garbageBytes = 0;
+        codes.reset(INITIAL_TABLE_SLOTS);
+        owners.reset(INITIAL_TABLE_SLOTS);
+        expiryHeads.clear();
+    }
+
+    private void releaseRecords() {
+        for (int c = 0; c < chunkCount; c++) {
+            if (chunkArenas[c] != null) {
+                chunkArenas[c].close();
+            }
+        }
+    }
+
+    /**
+     * Место под запись в текущем куске; не влезает — новый кусок под свободным номером
+     */
+    private long reserve(long length) {
+        if (current < 0 || chunkFill[current] + length > chunkBytes) {
+            current = allocateChunk();
+        }
+
+        long offset = chunkFill[current];
+        chunkFill[current] += length;
+        allocatedBytes += length;
+        return address(current, offset);
+    }
+
+    private int allocateChunk() {
+        int c = 0;
+        while (c < chunkCount && chunks[c] != null) {
+            c++;
+        }
+        if (c == chunkCount) {
+            if (chunkCount == chunks.length) {
+                chunkArenas = Arrays.copyOf(chunkArenas, chunkCount * 2);
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+                chunkFill = Arrays.copyOf(chunkFill, chunkCount * 2);
+                chunkGarbage = Arrays.copyOf(chunkGarbage, chunkCount * 2);
+            }
+            chunkCount++;
+        }
+
+        chunkArenas[c] = Arena.ofShared();
+        chunks[c] = chunkArenas[c].allocate(chunkBytes, Long.BYTES);
+        chunkFill[c] = 0;
+        chunkGarbage[c] = 0;
+        return c;
+    }
+
+    private interface AddressVisitor {
+        void visit(long address);
+    }
+
+    private void forEachLive(AddressVisitor visitor) {
+        for (int c = 0; c < chunkCount; c++) {
+            MemorySegment chunk = chunks[c];
+            long offset = 0;
+            while (chunk != null && offset < chunkFill[c]) {
+                if ((chunk.get(ValueLayout.JAVA_BYTE, offset + FLAGS) & FLAG_DELETED) == 0) {
+                    visitor.visit(address(c, offset));
+                }
+                offset += recordLength(chunk, offset);
+            }
+        }
+    }
+
+    private void remove(long address) {
+        MemorySegment chunk = chunkOf(address);
+        long offset = offsetOf(address);
+
+        codes.remove(codes.slotOfAddress(address));
+        unlinkOwner(address);
+        unlinkExpiry(address);
+
+        byte flags = chunk.get(ValueLayout.JAVA_BYTE, offset + FLAGS);
+        chunk.set(ValueLayout.JAVA_BYTE, offset + FLAGS, (byte) (flags | FLAG_DELETED));
+        long length = recordLength(chunk, offset);
+        chunkGarbage[(int) (address >>> 32)] += length;
+        garbageBytes += length;
+    }
+
+    /* ===================== Уплотнение ===================== */
+
+    /**
+     * Переносит живые записи кусков, где удалённые занимают не меньше половины,
+     * в текущий кусок и освобождает эти куски. Блокировка записи берётся
+     * на каждый кусок отдельно, поэтому чтения не ждут копирования всего хранилища
+     *
+     * @return число освобождённых кусков
+     */
+    public int compact() {
+        int compacted = 0;
+        while (true) {
+            lock.writeLock().lock();
+            try {
+                int sparse = closed ? -1 : sparseChunk();
+                if (sparse < 0) {
+                    return compacted;
+                }
+                compactChunk(sparse);
+                compacted++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private int sparseChunk() {
+        for (int c = 0; c < chunkCount; c++) {
+            if (chunks[c] != null && c != current && chunkGarbage[c] * 2 >= chunkFill[c]) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private void compactChunk(int c) {
+        MemorySegment source = chunks[c];
+        long offset = 0;
+        while (offset < chunkFill[c]) {
+            long length = recordLength(source, offset);
+            if ((source.get(ValueLayout.JAVA_BYTE, offset + FLAGS) & FLAG_DELETED) == 0) {
+                move(address(c, offset), length);
+            }
+            offset += length;
+        }
+
+        allocatedBytes -= chunkFill[c];
+        garbageBytes -= chunkGarbage[c];
+        chunkArenas[c].close();
+        chunkArenas[c] = null;
+        chunks[c] = null;
+        chunkFill[c] = 0;
+        chunkGarbage[c] = 0;
+    }
+
+    /**
+     * Копия записи в текущий кусок; индекс кодов и соседи по владельцу и по сроку переводятся на неё
+     */
+    private void move(long from, long length) {
+        long to = reserve(length);
+        MemorySegment.copy(chunkOf(from), offsetOf(from), chunkOf(to), offsetOf(to), length);
+
+        codes.replace(codes.slotOfAddress(from), to);
+        long prev = neighbour(to, PREV_BY_OWNER);
+        long next = neighbour(to, NEXT_BY_OWNER);
+        if (next != ABSENT) {
+            setNeighbour(next, PREV_BY_OWNER, to);
+        }
+        if (prev != ABSENT) {
+            setNeighbour(prev, NEXT_BY_OWNER, to);
+        } else {
+            owners.replace(owners.slotOfAddress(from), to);
+        }
+
+        prev = neighbour(to, PREV_BY_EXPIRY);
+        next = neighbour(to, NEXT_BY_EXPIRY);
+        if (next != ABSENT) {
+            setNeighbour(next, PREV_BY_EXPIRY, to);
+        }
+        if (prev != ABSENT) {
+            setNeighbour(prev, NEXT_BY_EXPIRY, to);
+        } else {
+            expiryHeads.put(expiresAt(to), to);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка уплотнения хранилища вне кучи: " + e.getMessage());
+        }
+    }
+
+    /* ===================== Списки владельцев ===================== */
+
+    /**
+     * Новая запись становится головой списка своего владельца
+     */
+    private void linkOwner(long address) {
+        MemorySegment chunk = chunkOf(address);
+        long offset = offsetOf(address);
+        long msb = chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_MSB);
+        long lsb = chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_LSB);
+
+        setNeighbour(address, PREV_BY_OWNER, ABSENT);
+        long slot = owners.slotOf(ownerHash(msb, lsb), head -> isOwnedBy(head, msb, lsb));
+        if (slot == ABSENT) {
+            setNeighbour(address, NEXT_BY_OWNER, ABSENT);
+            owners.insert(address);
+        } else {
+            long head = owners.addressAt(slot);
+            setNeighbour(address, NEXT_BY_OWNER, head);
+            setNeighbour(head, PREV_BY_OWNER, address);
+            owners.replace(slot, address);
+        }
+    }
+
+    private void unlinkOwner(long address) {
+        long prev = neighbour(address, PREV_BY_OWNER);
+        long next = neighbour(address, NEXT_BY_OWNER);
+        if (next != ABSENT) {
+            setNeighbour(next, PREV_BY_OWNER, prev);
+        }
+        if (prev != ABSENT) {
+            setNeighbour(prev, NEXT_BY_OWNER, next);
+            return;
+        }
+
+        // запись — голова списка
+        long slot = owners.slotOfAddress(address);
+        if (next == ABSENT) {
+            owners.remove(slot);
+        } else {
+            owners.replace(slot, next);
+        }
+    }
+
+    private long neighbour(long address, long field) {
+        return chunkOf(address).get(ValueLayout.JAVA_LONG, offsetOf(address) + field) - 1;
+    }
+
+    private void setNeighbour(long address, long field, long neighbour) {
+        chunkOf(address).set(ValueLayout.JAVA_LONG, offsetOf(address) + field, neighbour + 1);
+    }
+
+    private boolean isOwnedBy(long address, long msb, long lsb) {
+        MemorySegment chunk = chunkOf(address);
+        long offset = offsetOf(address);
+        return chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_MSB) == msb
+                && chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_LSB) == lsb;
+    }
+
+    /* ===================== Списки сроков ===================== */
+
+    /**
+     * Запись становится головой списка своей секунды истечения
+     */
+    private void linkExpiry(long address) {
+        Long head = expiryHeads.put(expiresAt(address), address);
+        setNeighbour(address, PREV_BY_EXPIRY, ABSENT);
+        setNeighbour(address, NEXT_BY_EXPIRY, head == null ? ABSENT : head);
+        if (head != null) {
+            setNeighbour(head, PREV_BY_EXPIRY, address);
+        }
+    }
+
+    /**
+     * Вызывается до изменения срока в записи: голова ищется по текущему сроку
+     */
+    private void unlinkExpiry(long address) {
+        long prev = neighbour(address, PREV_BY_EXPIRY);
+        long next = neighbour(address, NEXT_BY_EXPIRY);
+        if (next != ABSENT) {
+            setNeighbour(next, PREV_BY_EXPIRY, prev);
+        }
+        if (prev != ABSENT) {
+            setNeighbour(prev, NEXT_BY_EXPIRY, next);
+        } else if (next == ABSENT) {
+            expiryHeads.remove(expiresAt(address));
+        } else {
+            expiryHeads.put(expiresAt(address), next);
+        }
+    }
+
+    private long expiresAt(long address) {
+        return chunkOf(address).get(ValueLayout.JAVA_LONG, offsetOf(address) + EXPIRES_AT);
+    }
+
+    /* ===================== Индекс ===================== */
+
+    /**
+     * Таблица адресов записей вне кучи с открытой адресацией: слот — адрес + 1, 0 — пусто.
+     * Ключ не хранится, хэш и сравнение читаются из самой записи
+     */
+    private final class AddressTable {
+
+        private final LongToIntFunction hashOf;
+        private Arena arena;
+        private MemorySegment slots;
+        private long mask;
+        private long size;
+
+        private AddressTable(LongToIntFunction hashOf) {
+            this.hashOf = hashOf;
+        }
+
+        private void reset(long count) {
+            arena = Arena.ofShared();
+            slots = arena.allocate(count * Long.BYTES, Long.BYTES);
+            slots.fill((byte) 0);
+            mask = count - 1;
+            size = 0;
+        }
+
+        private void close() {
+            arena.close();
+        }
+
+        private long size() {
+            return size;
+        }
+
+        private long addressAt(long slot) {
+            return slots.getAtIndex(ValueLayout.JAVA_LONG, slot) - 1;
+        }
+
+        private void replace(long slot, long address) {
+            slots.setAtIndex(ValueLayout.JAVA_LONG, slot, address + 1);
+        }
+
+        private long slotOf(int hash, LongPredicate matches) {
+            for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+                long entry = slots.getAtIndex(ValueLayout.JAVA_LONG, slot);
+                if (entry == 0) {
+                    return ABSENT;
+                }
+                if (matches.test(entry - 1)) {
+                    return slot;
+                }
+            }
+        }
+
+        private long slotOfAddress(long address) {
+            return slotOf(hashOf.applyAsInt(address), candidate -> candidate == address);
+        }
+
+        private void insert(long address) {
+            if ((size + 1) * 2 > mask + 1) {
+                resize();
+            }
+
+            long slot = hashOf.applyAsInt(address) & mask;
+            while (slots.getAtIndex(ValueLayout.JAVA_LONG, slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            replace(slot, address);
+            size++;
+        }
+
+        private void resize() {
+            Arena oldArena = arena;
+            MemorySegment oldSlots = slots;
+            long oldCount = mask + 1;
+
+            reset(oldCount * 2);
+            for (long slot = 0; slot < oldCount; slot++) {
+                long entry = oldSlots.getAtIndex(ValueLayout.JAVA_LONG, slot);
+                if (entry != 0) {
+                    insert(entry - 1);
+                }
+            }
+            oldArena.close();
+        }
+
+        /**
+         * Удаление сдвигом: последующие записи кластера подтягиваются в дыру,
+         * если дыра не раньше их домашнего слота
+         */
+        private void remove(long slot) {
+            long hole = slot;
+            for (long next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+                long entry = slots.getAtIndex(ValueLayout.JAVA_LONG, next);
+                if (entry == 0) {
+                    break;
+                }
+                long home = hashOf.applyAsInt(entry - 1) & mask;
+                boolean movable = hole <= next
+                        ? home <= hole || home > next
+                        : home <= hole && home > next;
+                if (movable) {
+                    slots.setAtIndex(ValueLayout.JAVA_LONG, hole, entry);
+                    hole = next;
+                }
+            }
+            slots.setAtIndex(ValueLayout.JAVA_LONG, hole, 0L);
+            size--;
+        }
+    }
+
+    private long find(byte[] code, int hash) {
+        long slot = codes.slotOf(hash, address -> matches(address, code, hash));
+        return slot == ABSENT ? ABSENT : codes.addressAt(slot);
+    }
+
+    private boolean matches(long address, byte[] code, int hash) {
+        MemorySegment chunk = chunkOf(address);
+        long offset = offsetOf(address);
+        if (chunk.get(ValueLayout.JAVA_INT, offset + HASH) != hash
+                || chunk.get(ValueLayout.JAVA_SHORT, offset + CODE_LENGTH) != code.length) {
+            return false;
+        }
+        long start = offset + HEADER;
+        return MemorySegment.mismatch(chunk, start, start + code.length,
+                MemorySegment.ofArray(code), 0, code.length) == -1;
+    }
+
+    private int codeHashAt(long address) {
+        return chunkOf(address).get(ValueLayout.JAVA_INT, offsetOf(address) + HASH);
+    }
+
+    private int ownerHashAt(long address) {
+        MemorySegment chunk = chunkOf(address);
+        long offset = offsetOf(address);
+        return ownerHash(chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_MSB),
+                chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_LSB));
+    }
+
+    private static int ownerHash(long msb, long lsb) {
+        return mix(Long.hashCode(msb) * 31 + Long.hashCode(lsb));
+    }
+
+    private static int hash(byte[] code) {
+        return mix(Arrays.hashCode(code));
+    }
+
+    /**
+     * Финализатор murmur3
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /* ===================== Записи ===================== */
+
+    private MemorySegment chunkOf(long address) {
+        return chunks[(int) (address >>> 32)];
+    }
+
+    private static long offsetOf(long address) {
+        return address & 0xFFFF_FFFFL;
+    }
+
+    private static long address(int chunk, long offset) {
+        return ((long) chunk << 32) | offset;
+    }
+
+    private static long align(long length) {
+        return (length + 7) & ~7L;
+    }
+
+    private static long recordLength(MemorySegment chunk, long offset) {
+        return align(HEADER
+                + chunk.get(ValueLayout.JAVA_SHORT, offset + CODE_LENGTH)
+                + chunk.get(ValueLayout.JAVA_INT, offset + URL_LENGTH));
+    }
+
+    private static void writeMutable(MemorySegment chunk, long offset, ShortLink link) {
+        chunk.set(ValueLayout.JAVA_LONG, offset + EXPIRES_AT, link.getExpiresAt().getEpochSecond());
+        chunk.set(ValueLayout.JAVA_INT, offset + MAX_CLICKS, link.getMaxClicks());
+        chunk.set(ValueLayout.JAVA_INT, offset + CLICKS, link.getCurrentClicks());
+        chunk.set(ValueLayout.JAVA_BYTE, offset + FLAGS, link.isActive() ? FLAG_ACTIVE : 0);
+    }
+
+    private static byte[] readCode(MemorySegment chunk, long offset) {
+        byte[] code = new byte[chunk.get(ValueLayout.JAVA_SHORT, offset + CODE_LENGTH)];
+        MemorySegment.copy(chunk, ValueLayout.JAVA_BYTE, offset + HEADER, code, 0, code.length);
+        return code;
+    }
+
+    private static String readUrl(MemorySegment chunk, long offset) {
+        short codeLength = chunk.get(ValueLayout.JAVA_SHORT, offset + CODE_LENGTH);
+        byte[] url = new byte[chunk.get(ValueLayout.JAVA_INT, offset + URL_LENGTH)];
+        MemorySegment.copy(chunk, ValueLayout.JAVA_BYTE, offset + HEADER + codeLength, url, 0, url.length);
+        return new String(url, StandardCharsets.UTF_8);
+    }
+
+    private static ShortLink read(MemorySegment chunk, long offset) {
+        return new ShortLink(
+                new String(readCode(chunk, offset), StandardCharsets.UTF_8),
+                readUrl(chunk, offset),
+                new UUID(chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_MSB),
+                        chunk.get(ValueLayout.JAVA_LONG, offset + OWNER_LSB)),
+                chunk.get(ValueLayout.JAVA_INT, offset + MAX_CLICKS),
+                chunk.get(ValueLayout.JAVA_INT, offset + CLICKS),
+                Instant.ofEpochSecond(chunk.get(ValueLayout.JAVA_LONG, offset + CREATED_AT)),
+                Instant.ofEpochSecond(chunk.get(ValueLayout.JAVA_LONG, offset + EXPIRES_AT)),
+                (chunk.get(ValueLayout.JAVA_BYTE, offset + FLAGS) & FLAG_ACTIVE) != 0
+        );
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.Shortlink.Storage.Repo;
+
+import java.util.Arrays;
+
+/**
+ * Хэш-таблица "короткий код → адрес записи" с открытой адресацией.
+ *
+ * Два плоских массива вместо HashMap: нет объектов Entry и упаковки long,
+ * линейное пробирование, удаление сдвигом без "надгробий".
+ * Не потокобезопасна — синхронизирует владелец
+ */
+final class OpenAddressingIndex {
+
+    static final long ABSENT = -1;
+
+    private String[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    OpenAddressingIndex(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int mix(int hash) {
+        // финализатор murmur3: хвосты hashCode коротких строк плохо распределены
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    long get(String key) {
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ABSENT;
+    }
+
+    /**
+     * @return прежнее значение или ABSENT
+     */
+    long put(String key, long value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return ABSENT;
+    }
+
+    /**
+     * @return удалённое значение или ABSENT
+     */
+    long remove(String key) {
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                long removed = values[slot];
+                shiftBack(slot);
+                size--;
+                return removed;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Закрывает дыру: ключи цепочки, чей "домашний" слот не после дыры, сдвигаются в неё
+     */
+    private void shiftBack(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            String key = keys[slot];
+            if (key == null) {
+                break;
+            }
+            int home = mix(key.hashCode()) & mask;
+            // home вне циклического интервала (hole, slot] — ключ можно перенести в дыру
+            boolean movable = hole <= slot
+                    ? home <= hole || home > slot
+                    : home <= hole && home > slot;
+            if (movable) {
+                keys[hole] = key;
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = 0;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    interface EntryVisitor {
+        void visit(String key, long value);
+    }
+
+    /**
+     * Обход всех записей; изменять таблицу во время обхода нельзя
+     */
+    void forEach(EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Конкурентный режим хранения SQLite.
+ *
+ * База в режиме WAL: читатели не блокируют писателя и друг друга.
+ * Небольшой пул соединений на чтение и одно выделенное соединение на запись;
+ * подготовленные запросы кэшируются на каждом соединении.
+ * Экземпляр безопасно разделять между потоками запросов.
+ * Нужен путь к файлу — база ":memory:" у каждого соединения своя
+ */
+public class PooledSQLiteLinkRepository implements LinkRepository {
+
+    private static final int BUSY_TIMEOUT_MILLIS = 5_000;
+
+    private final PooledConnection writer;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // PRAGMA synchronous до массовой загрузки; -1 — загрузка не идёт
+    private int syncBeforeBulkLoad = -1;
+
+    private final BlockingQueue<PooledConnection> readers;
+    private final List<PooledConnection> allReaders = new ArrayList<>();
+
+    public PooledSQLiteLinkRepository(String dbPath, int readerCount) {
+        if (readerCount <= 0) {
+            throw new IllegalArgumentException("Число читающих соединений должно быть положительным");
+        }
+
+        String url = "jdbc:sqlite:" + dbPath;
+        try {
+            Connection writeConnection = DriverManager.getConnection(url);
+            try (Statement stmt = writeConnection.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+            }
+            SQLiteSchema.init(writeConnection);
+            this.writer = new PooledConnection(writeConnection);
+
+            this.readers = new ArrayBlockingQueue<>(readerCount);
+            for (int i = 0; i < readerCount; i++) {
+                Connection readConnection = DriverManager.getConnection(url);
+                try (Statement stmt = readConnection.createStatement()) {
+                    stmt.execute("PRAGMA query_only=1");
+                    stmt.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+                }
+                PooledConnection reader = new PooledConnection(readConnection);
+                allReaders.add(reader);
+                readers.add(reader);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка подключения к SQLite", e);
+        }
+    }
+
+    /* ===================== READ ===================== */
+
+    @Override
+    public Optional<ShortLink> findByShortCode(String shortCode) {
+        return Optional.ofNullable(findByShortCodeOrNull(shortCode));
+    }
+
+    @Override
+    public ShortLink findByShortCodeOrNull(String shortCode) {
+        PooledConnection reader = acquireReader();
+        try {
+            PreparedStatement ps = reader.prepared(LinkRows.SELECT_BY_CODE);
+            ps.setString(1, shortCode);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? LinkRows.map(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка поиска ссылки", e);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    @Override
+    public List<ShortLink> findAllByUser(UUID userId) {
+        List<ShortLink> result = new ArrayList<>();
+
+        PooledConnection reader = acquireReader();
+        try {
+            PreparedStatement ps = reader.prepared(LinkRows.SELECT_BY_OWNER);
+            ps.setBytes(1, LinkRows.ownerBytes(userId));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(LinkRows.map(rs));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка получения ссылок пользователя", e);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    @Override
+    public List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit) {
+        List<ShortLink> result = new ArrayList<>(limit);
+
+        PooledConnection reader = acquireReader();
+        try {
+            PreparedStatement ps = reader.prepared(LinkRows.pageQuery(after));
+            LinkRows.bindPage(ps, userId, after, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(LinkRows.map(rs));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка получения ссылок пользователя", e);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    /**
+     * Один запрос по открытому ResultSet: строки читаются по мере обработки.
+     * Соединение на чтение занято до конца обхода, запись не блокируется (WAL)
+     */
+    @Override
+    public void forEachByUser(UUID userId, Consumer<ShortLink> action) {
+        PooledConnection reader = acquireReader();
+        try {
+            PreparedStatement ps = reader.prepared(LinkRows.STREAM_BY_OWNER);
+            ps.setBytes(1, LinkRows.ownerBytes(userId));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(LinkRows.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка получения ссылок пользователя", e);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        PooledConnection reader = acquireReader();
+        try (ResultSet rs = reader.prepared(LinkRows.SELECT_CODES).executeQuery()) {
+            while (rs.next()) {
+                action.accept(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка чтения кодов ссылок", e);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    /**
+     * Одним курсором на читающем соединении: в режиме WAL это согласованный
+     * снимок таблицы, запись на время обхода не останавливается
+     */
+    @Override
+    public void forEachLink(Consumer<ShortLink> action) {
+        PooledConnection reader = acquireReader();
+        try (ResultSet rs = reader.prepared(LinkRows.SELECT_ALL).executeQuery()) {
+            while (rs.next()) {
+                action.accept(LinkRows.map(rs));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка чтения ссылок", e);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    @Override
+    public long count() {
+        PooledConnection reader = acquireReader();
+        try (ResultSet rs = reader.prepared(LinkRows.COUNT).executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка подсчёта ссылок", e);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    @Override
+    public Map<UUID, Integer> countByOwner() {
+        PooledConnection reader = acquireReader();
+        try (ResultSet rs = reader.prepared(LinkRows.COUNT_BY_OWNER).executeQuery()) {
+            return LinkRows.ownerCounts(rs);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка подсчёта ссылок владельцев", e);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    private PooledConnection acquireReader() {
+        try {
+            return readers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Ожидание соединения прервано", e);
+        }
+    }
+
+    /* ===================== WRITE ===================== */
+
+    @Override
+    public void save(ShortLink link) {
+        writeLock.lock();
+        try {
+            PreparedStatement ps = writer.prepared(LinkRows.INSERT);
+            LinkRows.bindInsert(ps, link);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка сохранения ссылки", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> saveAll(Collection<ShortLink> links) {
+        if (links.isEmpty()) {
+            return Set.of();
+        }
+
+        writeLock.lock();
+        try {
+            return LinkRows.insertAll(writer.connection, writer.prepared(LinkRows.INSERT_OR_IGNORE), links);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка пакетного сохранения ссылок", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void update(ShortLink link) {
+        writeLock.lock();
+        try {
+            PreparedStatement ps = writer.prepared(LinkRows.UPDATE);
+            LinkRows.bindUpdate(ps, link);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка обновления ссылки", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt) {
+        writeLock.lock();
+        try {
+            return LinkRows.updateLimits(writer.prepared(LinkRows.UPDATE_LIMITS), shortCode, maxClicks, expiresAt);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка обновления ссылки", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addClicks(Map<String, Integer> clicks) {
+        if (clicks.isEmpty()) {
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            Connection connection = writer.connection;
+            PreparedStatement ps = writer.prepared(LinkRows.ADD_CLICKS);
+            connection.setAutoCommit(false);
+            try {
+                for (Map.Entry<String, Integer> entry : clicks.entrySet()) {
+                    LinkRows.bindAddClicks(ps, entry.getKey(), entry.getValue());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                ps.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка записи переходов", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public ShortLink tryRegisterClick(String shortCode) {
+        writeLock.lock();
+        try {
+            return LinkRows.registerClick(writer.prepared(LinkRows.REGISTER_CLICK), shortCode);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка записи перехода", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        writeLock.lock();
+        try {
+            PreparedStatement ps = writer.prepared(LinkRows.DELETE);
+            ps.setString(1, shortCode);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка удаления ссылки", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+        writeLock.lock();
+        try {
+            return LinkRows.deleteExpiredByOwner(writer.prepared(LinkRows.DELETE_EXPIRED_CHUNK_RETURNING_OWNER), limit);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка при удалении протухших ссылок", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllLinks() throws Exception {
+        deleteAll();
+    }
+
+    @Override
+    public void deleteAll() {
+        writeLock.lock();
+        try {
+            writer.prepared(LinkRows.DELETE_ALL).executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Массовая загрузка: commit соединения записи не ждёт записи на диск
+     * (PRAGMA synchronous = OFF), см. SQLiteLinkRepository.setBulkLoad
+     */
+    public void setBulkLoad(boolean enabled) {
+        writeLock.lock();
+        try {
+            if (enabled && syncBeforeBulkLoad < 0) {
+                syncBeforeBulkLoad = LinkRows.swapSynchronous(writer.connection, 0);
+            } else if (!enabled && syncBeforeBulkLoad >= 0) {
+                LinkRows.swapSynchronous(writer.connection, syncBeforeBulkLoad);
+                syncBeforeBulkLoad = -1;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка переключения режима загрузки", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        writeLock.lock();
+        try {
+            for (PooledConnection reader : allReaders) {
+                reader.close();
+            }
+            writer.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /* ===================== Соединение пула ===================== */
+
+    /**
+     * Соединение с кэшем подготовленных запросов.
+     * В каждый момент используется одним потоком
+     */
+    private static final class PooledConnection {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        private PreparedStatement prepared(String sql) throws SQLException {
+            PreparedStatement ps = statements.get(sql);
+            if (ps == null) {
+                ps = connection.prepareStatement(sql);
+                statements.put(sql, ps);
+            }
+            return ps;
+        }
+
+        private void close() throws SQLException {
+            for (PreparedStatement ps : statements.values()) {
+                ps.close();
+            }
+            statements.clear();
+            connection.close();
+        }
+    }
+}
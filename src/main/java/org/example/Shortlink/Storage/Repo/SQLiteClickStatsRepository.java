@@ -0,0 +1,150 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ClickBucket;
+import org.example.Shortlink.Core.Model.ClickGranularity;
+import org.example.Shortlink.Core.Service.ClickStatsRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Агрегаты переходов в таблице click_rollups.
+ * Своё соединение: запись аналитики не занимает соединения репозитория ссылок
+ */
+public class SQLiteClickStatsRepository implements ClickStatsRepository {
+
+    private static final String UPSERT = """
+            INSERT INTO click_rollups (short_code, granularity, bucket_start, clicks)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (short_code, granularity, bucket_start)
+            DO UPDATE SET clicks = clicks + excluded.clicks
+            """;
+
+    private static final String SELECT_RANGE = """
+            SELECT bucket_start, clicks FROM click_rollups
+            WHERE short_code = ? AND granularity = ? AND bucket_start >= ? AND bucket_start < ?
+            ORDER BY bucket_start
+            """;
+
+    private static final String DELETE_CODE = "DELETE FROM click_rollups WHERE short_code = ?";
+
+    private static final String DELETE_BEFORE =
+            "DELETE FROM click_rollups WHERE granularity = ? AND bucket_start < ?";
+
+    private final Connection connection;
+
+    public SQLiteClickStatsRepository(String dbPath) {
+        try {
+            this.connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout=5000");
+            }
+            SQLiteSchema.init(connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка подключения к SQLite", e);
+        }
+    }
+
+    @Override
+    public synchronized void addBuckets(Collection<ClickBucket> buckets) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(UPSERT)) {
+                for (ClickBucket bucket : buckets) {
+                    ps.setString(1, bucket.getShortCode());
+                    ps.setInt(2, bucket.getGranularity().getSeconds());
+                    ps.setLong(3, bucket.getStart().getEpochSecond());
+                    ps.setLong(4, bucket.getClicks());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка записи аналитики переходов", e);
+        }
+    }
+
+    @Override
+    public synchronized List<ClickBucket> findBuckets(String shortCode, ClickGranularity granularity,
+                                                      Instant from, Instant to) {
+        List<ClickBucket> result = new ArrayList<>();
+
+        try (PreparedStatement ps = connection.prepareStatement(SELECT_RANGE)) {
+            ps.setString(1, shortCode);
+            ps.setInt(2, granularity.getSeconds());
+            ps.setLong(3, from.getEpochSecond());
+            ps.setLong(4, to.getEpochSecond());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new ClickBucket(shortCode, granularity,
+                            Instant.ofEpochSecond(rs.getLong("bucket_start")), rs.getLong("clicks")));
+                }
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка чтения аналитики переходов", e);
+        }
+    }
+
+    @Override
+    public synchronized void deleteBuckets(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(DELETE_CODE)) {
+                for (String shortCode : shortCodes) {
+                    ps.setString(1, shortCode);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка удаления аналитики переходов", e);
+        }
+    }
+
+    @Override
+    public synchronized int deleteBucketsBefore(ClickGranularity granularity, Instant before) {
+        try (PreparedStatement ps = connection.prepareStatement(DELETE_BEFORE)) {
+            ps.setInt(1, granularity.getSeconds());
+            ps.setLong(2, before.getEpochSecond());
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка удаления аналитики переходов", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        connection.close();
+    }
+}
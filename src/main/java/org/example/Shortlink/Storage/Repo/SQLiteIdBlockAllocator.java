@@ -0,0 +1,58 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Util.IdBlockAllocator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Выдаёт блоки идентификаторов из таблицы id_sequence.
+ * Один UPDATE ... RETURNING на блок; несколько процессов на одном файле
+ * получают непересекающиеся диапазоны
+ */
+public class SQLiteIdBlockAllocator implements IdBlockAllocator, AutoCloseable {
+
+    private static final String ALLOCATE = """
+            UPDATE id_sequence SET next_value = next_value + ?
+            WHERE name = 'links'
+            RETURNING next_value
+            """;
+
+    private final Connection connection;
+
+    public SQLiteIdBlockAllocator(String dbPath) {
+        try {
+            this.connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout=5000");
+            }
+            SQLiteSchema.init(connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка подключения к SQLite", e);
+        }
+    }
+
+    @Override
+    public synchronized long allocate(int size) {
+        try (PreparedStatement ps = connection.prepareStatement(ALLOCATE)) {
+            ps.setInt(1, size);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException("Последовательность links не найдена");
+                }
+                return rs.getLong(1) - size;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка резервирования блока кодов", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        connection.close();
+    }
+}
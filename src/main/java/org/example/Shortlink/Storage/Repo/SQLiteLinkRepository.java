@@ -2,196 +2,455 @@ package org.example.Shortlink.Storage.Repo;
 
 import org.example.Shortlink.Core.Model.ShortLink;
 import org.example.Shortlink.Core.Service.LinkRepository;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteErrorCode;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+/**
+ * Репозиторий на одном соединении SQLite.
+ * Методы синхронизированы: экземпляр можно разделять между потоками HTTP-сервера.
+ *
+ * С групповой фиксацией save, update, delete и addClicks из разных потоков
+ * собираются в общие транзакции (см. GroupCommitWriter); без неё каждое
+ * изменение — своя транзакция
+ */
 public class SQLiteLinkRepository implements LinkRepository {
 
+    private static final int SNAPSHOT_BUSY_TIMEOUT_MILLIS = 5_000;
+
     private final Connection connection;
+    // null — групповая фиксация выключена
+    private final GroupCommitWriter groupCommit;
+    // PRAGMA synchronous до массовой загрузки; -1 — загрузка не идёт
+    private int syncBeforeBulkLoad = -1;
 
     public SQLiteLinkRepository(String dbPath) {
+        this(dbPath, 0, 0);
+    }
+
+    /**
+     * @param commitBatch      изменений в одной групповой транзакции; 0 — без групповой фиксации
+     * @param commitWaitMicros сколько добирать пачку после первого изменения
+     */
+    public SQLiteLinkRepository(String dbPath, int commitBatch, long commitWaitMicros) {
         try {
             this.connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
-            initSchema();
+            SQLiteSchema.init(connection);
         } catch (SQLException e) {
             throw new RuntimeException("Ошибка подключения к SQLite", e);
         }
+        this.groupCommit = commitBatch > 0
+                ? new GroupCommitWriter(connection, this, commitBatch, commitWaitMicros, "sqlite-group-commit")
+                : null;
     }
 
-    private void initSchema() throws SQLException {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS links (
-                short_code TEXT PRIMARY KEY,
-                original_url TEXT NOT NULL,
-                owner_id TEXT NOT NULL,
-                max_clicks INTEGER NOT NULL,
-                current_clicks INTEGER NOT NULL,
-                created_at INTEGER NOT NULL,
-                expires_at INTEGER NOT NULL,
-                active INTEGER NOT NULL
-            )
-            """;
-
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(sql);
+    /**
+     * Одиночное изменение: через очередь групповой фиксации или сразу в autocommit.
+     * Не вызывать под монитором репозитория — поток записи берёт тот же монитор
+     */
+    private <T> T write(GroupCommitWriter.Mutation<T> mutation) throws SQLException {
+        if (groupCommit != null) {
+            return groupCommit.execute(mutation);
         }
+        synchronized (this) {
+            return mutation.apply(connection);
+        }
+    }
+
+    /**
+     * Транзакции групповой фиксации; 0 — режим выключен
+     */
+    public long getGroupCommits() {
+        return groupCommit == null ? 0 : groupCommit.getCommits();
+    }
+
+    /**
+     * Изменения, зафиксированные групповыми транзакциями
+     */
+    public long getGroupCommitMutations() {
+        return groupCommit == null ? 0 : groupCommit.getMutations();
     }
 
     @Override
     public void save(ShortLink link) {
-        String sql = """
-            INSERT INTO links (
-                short_code, original_url, owner_id,
-                max_clicks, current_clicks,
-                created_at, expires_at, active
-            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, link.getShortCode());
-            ps.setString(2, link.getOriginalUrl());
-            ps.setString(3, link.getOwnerId().toString());
-            ps.setInt(4, link.getMaxClicks());
-            ps.setInt(5, link.getCurrentClicks());
-            ps.setLong(6, link.getCreatedAt().getEpochSecond());
-            ps.setLong(7, link.getExpiresAt().getEpochSecond());
-            ps.setInt(8, link.isActive() ? 1 : 0);
-            ps.executeUpdate();
+        try {
+            write(c -> {
+                try (PreparedStatement ps = c.prepareStatement(LinkRows.INSERT)) {
+                    LinkRows.bindInsert(ps, link);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Ошибка сохранения ссылки", e);
         }
     }
 
+    @Override
+    public synchronized Set<String> saveAll(Collection<ShortLink> links) {
+        if (links.isEmpty()) {
+            return Set.of();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(LinkRows.INSERT_OR_IGNORE)) {
+            return LinkRows.insertAll(connection, ps, links);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка пакетного сохранения ссылок", e);
+        }
+    }
+
     @Override
     public Optional<ShortLink> findByShortCode(String shortCode) {
-        String sql = "SELECT * FROM links WHERE short_code = ?";
+        return Optional.ofNullable(findByShortCodeOrNull(shortCode));
+    }
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+    @Override
+    public synchronized ShortLink findByShortCodeOrNull(String shortCode) {
+        try (PreparedStatement ps = connection.prepareStatement(LinkRows.SELECT_BY_CODE)) {
             ps.setString(1, shortCode);
 
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
-                return Optional.of(map(rs));
+                return LinkRows.map(rs);
             }
-            return Optional.empty();
+            return null;
 
         } catch (SQLException e) {
             throw new RuntimeException("Ошибка поиска ссылки", e);
         }
     }
 
+    /**
+     * Порциями по первичному ключу, как forEachLink: построение фильтра при старте
+     * и после очистки не держит единственное соединение на весь проход
+     */
     @Override
-    public List<ShortLink> findAllByUser(UUID userId) {
-        String sql = "SELECT * FROM links WHERE owner_id = ?";
-        List<ShortLink> result = new ArrayList<>();
+    public void forEachShortCode(Consumer<String> action) {
+        String after = null;
+        while (true) {
+            List<String> page = codePage(after, LinkRows.SAVE_BATCH_SIZE);
+            page.forEach(action);
+            if (page.size() < LinkRows.SAVE_BATCH_SIZE) {
+                return;
+            }
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    private synchronized List<String> codePage(String after, int limit) {
+        List<String> result = new ArrayList<>(limit);
+        String sql = after == null ? LinkRows.SELECT_CODES_FIRST_PAGE : LinkRows.SELECT_CODES_NEXT_PAGE;
 
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, userId.toString());
+            if (after == null) {
+                ps.setInt(1, limit);
+            } else {
+                ps.setString(1, after);
+                ps.setInt(2, limit);
+            }
 
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
-                result.add(map(rs));
+                result.add(rs.getString(1));
             }
             return result;
 
         } catch (SQLException e) {
-            throw new RuntimeException("Ошибка получения ссылок пользователя", e);
+            throw new RuntimeException("Ошибка чтения кодов ссылок", e);
         }
     }
 
+    /**
+     * Порциями по первичному ключу: монитор отпускается между порциями,
+     * и выгрузка не останавливает остальные запросы. Ссылки, изменённые
+     * во время обхода, могут попасть в выгрузку в любом из состояний —
+     * согласованную копию даёт snapshot
+     */
     @Override
-    public void update(ShortLink link) {
-        String sql = """
-        UPDATE links SET
-            current_clicks = ?,
-            max_clicks = ?,
-            active = ?,
-            expires_at = ?
-        WHERE short_code = ?
-    """;
+    public void forEachLink(Consumer<ShortLink> action) {
+        String after = null;
+        while (true) {
+            List<ShortLink> page = linkPage(after, LinkRows.SAVE_BATCH_SIZE);
+            page.forEach(action);
+            if (page.size() < LinkRows.SAVE_BATCH_SIZE) {
+                return;
+            }
+            after = page.get(page.size() - 1).getShortCode();
+        }
+    }
+
+    private synchronized List<ShortLink> linkPage(String after, int limit) {
+        List<ShortLink> result = new ArrayList<>(limit);
+        String sql = after == null ? LinkRows.SELECT_ALL_FIRST_PAGE : LinkRows.SELECT_ALL_NEXT_PAGE;
 
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, link.getCurrentClicks());
-            ps.setInt(2, link.getMaxClicks());
-            ps.setInt(3, link.isActive() ? 1 : 0);
-            ps.setLong(4, link.getExpiresAt().getEpochSecond());
-            ps.setString(5, link.getShortCode());
-            ps.executeUpdate();
+            if (after == null) {
+                ps.setInt(1, limit);
+            } else {
+                ps.setString(1, after);
+                ps.setInt(2, limit);
+            }
+
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                result.add(LinkRows.map(rs));
+            }
+            return result;
+
         } catch (SQLException e) {
-            throw new RuntimeException("Ошибка обновления ссылки", e);
+            throw new RuntimeException("Ошибка чтения ссылок", e);
         }
     }
 
+    @Override
+    public synchronized List<ShortLink> findAllByUser(UUID userId) {
+        List<ShortLink> result = new ArrayList<>();
+
+        try (PreparedStatement ps = connection.prepareStatement(LinkRows.SELECT_BY_OWNER)) {
+            ps.setBytes(1, LinkRows.ownerBytes(userId));
+
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                result.add(LinkRows.map(rs));
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка получения ссылок пользователя", e);
+        }
+    }
 
+    /**
+     * Потоковый обход не переопределён: открытый ResultSet держал бы
+     * единственное соединение на всё время обработки
+     */
     @Override
-    public void delete(String shortCode) {
-        String sql = "DELETE FROM links WHERE short_code = ?";
+    public synchronized List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit) {
+        List<ShortLink> result = new ArrayList<>(limit);
+
+        try (PreparedStatement ps = connection.prepareStatement(LinkRows.pageQuery(after))) {
+            LinkRows.bindPage(ps, userId, after, limit);
+
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                result.add(LinkRows.map(rs));
+            }
+            return result;
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, shortCode);
-            ps.executeUpdate();
         } catch (SQLException e) {
-            throw new RuntimeException("Ошибка удаления ссылки", e);
+            throw new RuntimeException("Ошибка получения ссылок пользователя", e);
         }
     }
 
     @Override
-    public void deleteExpired() {
-        String sql = "DELETE FROM links WHERE expires_at < ?";
+    public void update(ShortLink link) {
+        try {
+            write(c -> {
+                try (PreparedStatement ps = c.prepareStatement(LinkRows.UPDATE)) {
+                    LinkRows.bindUpdate(ps, link);
+                    return ps.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка обновления ссылки", e);
+        }
+    }
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            long now = Instant.now().getEpochSecond();
-            stmt.setLong(1, now);
-            int deleted = stmt.executeUpdate();
-            System.out.println("Удалено протухших ссылок: " + deleted);
+    @Override
+    public ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt) {
+        try {
+            return write(c -> {
+                try (PreparedStatement ps = c.prepareStatement(LinkRows.UPDATE_LIMITS)) {
+                    return LinkRows.updateLimits(ps, shortCode, maxClicks, expiresAt);
+                }
+            });
         } catch (SQLException e) {
-            throw new RuntimeException("Ошибка при удалении протухших ссылок", e);
+            throw new RuntimeException("Ошибка обновления ссылки", e);
+        }
+    }
+
+    @Override
+    public void addClicks(Map<String, Integer> clicks) {
+        if (clicks.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (groupCommit != null) {
+                // транзакцию и откат при ошибке даёт групповая фиксация
+                groupCommit.execute(addClicksBatch(clicks));
+                return;
+            }
+
+            synchronized (this) {
+                connection.setAutoCommit(false);
+                try {
+                    addClicksBatch(clicks).apply(connection);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка записи переходов", e);
         }
     }
 
+    private static GroupCommitWriter.Mutation<int[]> addClicksBatch(Map<String, Integer> clicks) {
+        return c -> {
+            try (PreparedStatement ps = c.prepareStatement(LinkRows.ADD_CLICKS)) {
+                for (Map.Entry<String, Integer> entry : clicks.entrySet()) {
+                    LinkRows.bindAddClicks(ps, entry.getKey(), entry.getValue());
+                    ps.addBatch();
+                }
+                return ps.executeBatch();
+            }
+        };
+    }
 
-    private ShortLink map(ResultSet rs) throws SQLException {
-        ShortLink link = new ShortLink(
-                rs.getString("short_code"),
-                rs.getString("original_url"),
-                UUID.fromString(rs.getString("owner_id")),
-                rs.getInt("max_clicks"),
-                Instant.ofEpochSecond(rs.getLong("expires_at")) // OK
-        );
+    @Override
+    public ShortLink tryRegisterClick(String shortCode) {
+        try {
+            return write(c -> {
+                try (PreparedStatement ps = c.prepareStatement(LinkRows.REGISTER_CLICK)) {
+                    return LinkRows.registerClick(ps, shortCode);
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка записи перехода", e);
+        }
+    }
 
-        link.restoreState(
-                rs.getInt("current_clicks"),
-                rs.getInt("active") == 1,
-                Instant.ofEpochSecond(rs.getLong("expires_at")) // ← правильно
-        );
+    @Override
+    public boolean delete(String shortCode) {
+        try {
+            return write(c -> {
+                try (PreparedStatement ps = c.prepareStatement(LinkRows.DELETE)) {
+                    ps.setString(1, shortCode);
+                    return ps.executeUpdate();
+                }
+            }) > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка удаления ссылки", e);
+        }
+    }
 
-        return link;
+    @Override
+    public synchronized Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+        try (PreparedStatement stmt = connection.prepareStatement(LinkRows.DELETE_EXPIRED_CHUNK_RETURNING_OWNER)) {
+            return LinkRows.deleteExpiredByOwner(stmt, limit);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка при удалении протухших ссылок", e);
+        }
     }
 
     @Override
-    public void deleteAllLinks() throws Exception {
+    public synchronized void deleteAllLinks() throws Exception {
         try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate("DELETE FROM links");
+            stmt.executeUpdate(LinkRows.DELETE_ALL);
         }
     }
 
     @Override
-    public void deleteAll() {
-        String sql = "DELETE FROM links";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+    public synchronized void deleteAll() {
+        try (PreparedStatement ps = connection.prepareStatement(LinkRows.DELETE_ALL)) {
             ps.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    public synchronized long count() {
+        try (PreparedStatement ps = connection.prepareStatement(LinkRows.COUNT);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка подсчёта ссылок", e);
+        }
+    }
+
+    @Override
+    public synchronized Map<UUID, Integer> countByOwner() {
+        try (PreparedStatement ps = connection.prepareStatement(LinkRows.COUNT_BY_OWNER);
+             ResultSet rs = ps.executeQuery()) {
+            return LinkRows.ownerCounts(rs);
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка подсчёта ссылок владельцев", e);
+        }
+    }
+
+    /* ===================== Загрузка и снимок ===================== */
+
+    /**
+     * Массовая загрузка: commit не ждёт записи на диск (PRAGMA synchronous = OFF).
+     * Сбой питания во время загрузки может потерять её последние транзакции —
+     * загрузку тогда повторяют. false возвращает прежний режим
+     */
+    public synchronized void setBulkLoad(boolean enabled) {
+        try {
+            if (enabled && syncBeforeBulkLoad < 0) {
+                syncBeforeBulkLoad = LinkRows.swapSynchronous(connection, 0);
+            } else if (!enabled && syncBeforeBulkLoad >= 0) {
+                LinkRows.swapSynchronous(connection, syncBeforeBulkLoad);
+                syncBeforeBulkLoad = -1;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка переключения режима загрузки", e);
+        }
+    }
+
+    /**
+     * Согласованная копия базы через SQLite backup API, пока с ней работают.
+     * Копирует отдельное соединение внутри одной читающей транзакции: все страницы
+     * берутся из одного состояния базы. В режиме WAL запись при этом продолжается,
+     * с обычным журналом commit-ы ждут окончания копирования (busy_timeout)
+     */
+    public static void snapshot(String dbPath, Path target) {
+        if (Files.exists(target)) {
+            throw new IllegalArgumentException("Файл снимка уже существует: " + target);
+        }
+
+        try (Connection source = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+             Statement stmt = source.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout=" + SNAPSHOT_BUSY_TIMEOUT_MILLIS);
+            source.setAutoCommit(false);
+            try (ResultSet rs = stmt.executeQuery(LinkRows.COUNT)) {
+                rs.next();
+            }
+
+            int rc = source.unwrap(SQLiteConnection.class).getDatabase()
+                    .backup("main", target.toAbsolutePath().toString(), null);
+            source.commit();
+            if (rc != SQLiteErrorCode.SQLITE_OK.code) {
+                throw new SQLException("backup завершился с кодом " + rc);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка снимка базы " + dbPath, e);
+        }
+    }
+
     @Override
     public void close() throws Exception {
-        connection.close();
+        if (groupCommit != null) {
+            groupCommit.close();
+        }
+        synchronized (this) {
+            connection.close();
+        }
     }
-}
\ No newline at end of file
+}
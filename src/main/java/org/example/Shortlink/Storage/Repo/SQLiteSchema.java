@@ -0,0 +1,136 @@
+package org.example.Shortlink.Storage.Repo;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Схема базы (links, id_sequence, click_rollups) и её миграции.
+ *
+ * Версия схемы хранится в PRAGMA user_version. При открытии базы
+ * применяются по порядку все шаги с номером больше текущей версии,
+ * каждый в своей транзакции — существующий shortlinks.db обновляется на месте
+ */
+final class SQLiteSchema {
+
+    private record Migration(int version, String description, List<String> statements) {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "таблица links", List.of("""
+                    CREATE TABLE IF NOT EXISTS links (
+                        short_code TEXT PRIMARY KEY,
+                        original_url TEXT NOT NULL,
+                        owner_id TEXT NOT NULL,
+                        max_clicks INTEGER NOT NULL,
+                        current_clicks INTEGER NOT NULL,
+                        created_at INTEGER NOT NULL,
+                        expires_at INTEGER NOT NULL,
+                        active INTEGER NOT NULL
+                    )
+                    """)),
+
+            // 16 байт вместо 36 символов: меньше строки и индексы по владельцу
+            new Migration(2, "owner_id как BLOB(16)", List.of("""
+                    CREATE TABLE links_v2 (
+                        short_code TEXT PRIMARY KEY,
+                        original_url TEXT NOT NULL,
+                        owner_id BLOB NOT NULL,
+                        max_clicks INTEGER NOT NULL,
+                        current_clicks INTEGER NOT NULL,
+                        created_at INTEGER NOT NULL,
+                        expires_at INTEGER NOT NULL,
+                        active INTEGER NOT NULL
+                    )
+                    """, """
+                    INSERT INTO links_v2
+                    SELECT short_code, original_url,
+                           unhex(replace(owner_id, '-', '')),
+                           max_clicks, current_clicks, created_at, expires_at, active
+                    FROM links
+                    """,
+                    "DROP TABLE links",
+                    "ALTER TABLE links_v2 RENAME TO links")),
+
+            // (owner_id, created_at) покрывает и поиск по одному owner_id
+            new Migration(3, "индексы по владельцу и сроку действия", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_links_owner_created ON links(owner_id, created_at)",
+                    "CREATE INDEX IF NOT EXISTS idx_links_expires_at ON links(expires_at)")),
+
+            new Migration(4, "последовательность для коротких кодов", List.of(
+                    "CREATE TABLE IF NOT EXISTS id_sequence (name TEXT PRIMARY KEY, next_value INTEGER NOT NULL)",
+                    "INSERT OR IGNORE INTO id_sequence (name, next_value) VALUES ('links', 0)")),
+
+            // ключ постраничной выборки целиком в индексе: без сортировки на каждой странице
+            new Migration(5, "индекс по владельцу, дате создания и коду", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_links_owner_created_code ON links(owner_id, created_at, short_code)",
+                    "DROP INDEX IF EXISTS idx_links_owner_created")),
+
+            // агрегаты переходов: строка на (ссылка, шаг, начало интервала)
+            new Migration(6, "таблица click_rollups", List.of("""
+                    CREATE TABLE IF NOT EXISTS click_rollups (
+                        short_code TEXT NOT NULL,
+                        granularity INTEGER NOT NULL,
+                        bucket_start INTEGER NOT NULL,
+                        clicks INTEGER NOT NULL,
+                        PRIMARY KEY (short_code, granularity, bucket_start)
+                    ) WITHOUT ROWID
+                    """)),
+
+            // срок хранения минутных интервалов: удаление диапазоном по началу интервала
+            new Migration(7, "индекс click_rollups по шагу и началу интервала", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_click_rollups_granularity_start "
+                            + "ON click_rollups(granularity, bucket_start)"))
+    );
+
+    private SQLiteSchema() {
+    }
+
+    static void init(Connection connection) throws SQLException {
+        // актуальная база открывается без транзакции на запись
+        try (Statement stmt = connection.createStatement()) {
+            if (currentVersion(stmt) >= latestVersion()) {
+                return;
+            }
+        }
+
+        for (Migration migration : MIGRATIONS) {
+            apply(connection, migration);
+        }
+    }
+
+    static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // IMMEDIATE: параллельно открывающий базу процесс дождётся и увидит новую версию
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                if (currentVersion(stmt) >= migration.version()) {
+                    stmt.execute("COMMIT");
+                    return;
+                }
+
+                for (String sql : migration.statements()) {
+                    stmt.execute(sql);
+                }
+                stmt.execute("PRAGMA user_version = " + migration.version());
+                stmt.execute("COMMIT");
+            } catch (SQLException e) {
+                stmt.execute("ROLLBACK");
+                throw new SQLException("Ошибка миграции схемы " + migration.version()
+                        + " (" + migration.description() + ")", e);
+            }
+        }
+    }
+
+    private static int currentVersion(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
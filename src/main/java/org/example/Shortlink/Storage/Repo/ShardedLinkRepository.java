@@ -0,0 +1,424 @@
+package org.example.Shortlink.Storage.Repo;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Ссылки, разложенные по N файлам SQLite по хэшу короткого кода.
+ *
+ * У каждого шарда своё соединение и свой поток записи: запись в разные шарды
+ * идёт параллельно, а не в очереди к одной блокировке файла. Чтение по коду
+ * выполняется в вызывающем потоке. Запросы по владельцу и очистка просроченных
+ * рассылаются во все шарды параллельно, результаты сливаются.
+ *
+ * Шард определяется только кодом и числом шардов, поэтому смена числа шардов —
+ * это перенос данных (reshard), а не настройка
+ */
+public class ShardedLinkRepository implements LinkRepository {
+
+    private static final Comparator<ShortLink> PAGE_ORDER = Comparator
+            .comparing(ShortLink::getCreatedAt)
+            .thenComparing(ShortLink::getShortCode);
+
+    private final List<LinkRepository> shards;
+    private final List<ExecutorService> writers;
+
+    /**
+     * Открывает шарды dbPath для заданного числа шардов (см. shardPath)
+     */
+    public ShardedLinkRepository(String dbPath, int shardCount) {
+        this(openShards(dbPath, shardCount));
+    }
+
+    public ShardedLinkRepository(List<? extends LinkRepository> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Нужен хотя бы один шард");
+        }
+        this.shards = List.copyOf(shards);
+        this.writers = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            String name = "shard-writer-" + i;
+            writers.add(Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+    }
+
+    private static List<LinkRepository> openShards(String dbPath, int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Число шардов должно быть положительным");
+        }
+        List<LinkRepository> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new SQLiteLinkRepository(shardPath(dbPath, i, shardCount)));
+        }
+        return shards;
+    }
+
+    /**
+     * shortlinks.db при одном шарде — сам файл, иначе shortlinks-2of4.db:
+     * файлы разных раскладок не пересекаются, и reshard пишет рядом со старыми
+     */
+    public static String shardPath(String dbPath, int shard, int shardCount) {
+        if (shardCount == 1) {
+            return dbPath;
+        }
+        int dot = dbPath.lastIndexOf('.');
+        String base = dot > 0 ? dbPath.substring(0, dot) : dbPath;
+        String extension = dot > 0 ? dbPath.substring(dot) : "";
+        return base + "-" + shard + "of" + shardCount + extension;
+    }
+
+    /**
+     * Стабилен между запусками: String.hashCode задан спецификацией
+     */
+    static int shardOf(String shortCode, int shardCount) {
+        int hash = shortCode.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return Math.floorMod(hash, shardCount);
+    }
+
+    private int shardOf(String shortCode) {
+        return shardOf(shortCode, shards.size());
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /* ===================== Потоки шардов ===================== */
+
+    /**
+     * Выполняет действие в потоке записи шарда и ждёт результата
+     */
+    private <T> T onWriter(int shard, Callable<T> action) {
+        return await(writers.get(shard).submit(action));
+    }
+
+    /**
+     * Выполняет действие во всех шардах параллельно, каждое — в потоке своего шарда
+     */
+    private <T> List<T> fanOut(Function<LinkRepository, T> action) {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            LinkRepository shard = shards.get(i);
+            futures.add(writers.get(i).submit(() -> action.apply(shard)));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Операция с шардом прервана", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Ошибка операции с шардом", e.getCause());
+        }
+    }
+
+    private <V> Map<Integer, List<V>> byShard(Collection<V> items, Function<V, String> code) {
+        Map<Integer, List<V>> grouped = new HashMap<>();
+        for (V item : items) {
+            grouped.computeIfAbsent(shardOf(code.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return grouped;
+    }
+
+    /* ===================== READ ===================== */
+
+    @Override
+    public Optional<ShortLink> findByShortCode(String shortCode) {
+        return Optional.ofNullable(findByShortCodeOrNull(shortCode));
+    }
+
+    @Override
+    public ShortLink findByShortCodeOrNull(String shortCode) {
+        return shards.get(shardOf(shortCode)).findByShortCodeOrNull(shortCode);
+    }
+
+    @Override
+    public List<ShortLink> findAllByUser(UUID userId) {
+        List<ShortLink> result = new ArrayList<>();
+        fanOut(shard -> shard.findAllByUser(userId)).forEach(result::addAll);
+        result.sort(PAGE_ORDER);
+        return result;
+    }
+
+    /**
+     * Каждый шард отдаёт свою страницу после курсора, из объединения берутся первые limit
+     */
+    @Override
+    public List<ShortLink> findPageByUser(UUID userId, ShortLink after, int limit) {
+        List<ShortLink> merged = new ArrayList<>();
+        fanOut(shard -> shard.findPageByUser(userId, after, limit)).forEach(merged::addAll);
+        merged.sort(PAGE_ORDER);
+        return new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        for (LinkRepository shard : shards) {
+            shard.forEachShortCode(action);
+        }
+    }
+
+    @Override
+    public void forEachLink(Consumer<ShortLink> action) {
+        for (LinkRepository shard : shards) {
+            shard.forEachLink(action);
+        }
+    }
+
+    @Override
+    public long count() {
+        long total = 0;
+        for (long rows : fanOut(LinkRepository::count)) {
+            total += rows;
+        }
+        return total;
+    }
+
+    /**
+     * Владелец может иметь ссылки в нескольких шардах: счётчики складываются
+     */
+    @Override
+    public Map<UUID, Integer> countByOwner() {
+        Map<UUID, Integer> total = new HashMap<>();
+        for (Map<UUID, Integer> counts : fanOut(LinkRepository::countByOwner)) {
+            counts.forEach((ownerId, links) -> total.merge(ownerId, links, Integer::sum));
+        }
+        return total;
+    }
+
+    /* ===================== WRITE ===================== */
+
+    @Override
+    public void save(ShortLink link) {
+        int shard = shardOf(link.getShortCode());
+        onWriter(shard, () -> {
+            shards.get(shard).save(link);
+            return null;
+        });
+    }
+
+    @Override
+    public Set<String> saveAll(Collection<ShortLink> links) {
+        List<CompletableFuture<Set<String>>> pending = new ArrayList<>();
+        byShard(links, ShortLink::getShortCode).forEach((shard, part) -> pending.add(
+                CompletableFuture.supplyAsync(() -> shards.get(shard).saveAll(part), writers.get(shard))));
+
+        Set<String> rejected = new HashSet<>();
+        for (CompletableFuture<Set<String>> future : pending) {
+            rejected.addAll(await(future));
+        }
+        return rejected;
+    }
+
+    @Override
+    public void update(ShortLink link) {
+        int shard = shardOf(link.getShortCode());
+        onWriter(shard, () -> {
+            shards.get(shard).update(link);
+            return null;
+        });
+    }
+
+    @Override
+    public ShortLink updateLimits(String shortCode, int maxClicks, Instant expiresAt) {
+        int shard = shardOf(shortCode);
+        return onWriter(shard, () -> shards.get(shard).updateLimits(shortCode, maxClicks, expiresAt));
+    }
+
+    @Override
+    public void addClicks(Map<String, Integer> clicks) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        byShard(clicks.entrySet(), Map.Entry::getKey).forEach((shard, part) -> {
+            Map<String, Integer> shardClicks = new HashMap<>();
+            part.forEach(entry -> shardClicks.put(entry.getKey(), entry.getValue()));
+            pending.add(CompletableFuture.runAsync(() -> shards.get(shard).addClicks(shardClicks), writers.get(shard)));
+        });
+
+        for (CompletableFuture<Void> future : pending) {
+            await(future);
+        }
+    }
+
+    @Override
+    public ShortLink tryRegisterClick(String shortCode) {
+        int shard = shardOf(shortCode);
+        return onWriter(shard, () -> shards.get(shard).tryRegisterClick(shortCode));
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        int shard = shardOf(shortCode);
+        return onWriter(shard, () -> shards.get(shard).delete(shortCode));
+    }
+
+    /**
+     * Каждый шард вычищается до конца порциями по limit, параллельно с остальными:
+     * одна транзакция по-прежнему не длиннее limit строк, но всего может вернуться больше limit
+     */
+    @Override
+    public Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+        Map<UUID, List<String>> total = new HashMap<>();
+        for (Map<UUID, List<String>> removed : fanOut(shard -> drainExpiredByOwner(shard, limit))) {
+            removed.forEach((owner, codes) -> total.computeIfAbsent(owner, id -> new ArrayList<>()).addAll(codes));
+        }
+        return total;
+    }
+
+    private static Map<UUID, List<String>> drainExpiredByOwner(LinkRepository shard, int limit) {
+        Map<UUID, List<String>> total = new HashMap<>();
+        int removed;
+        do {
+            removed = 0;
+            for (Map.Entry<UUID, List<String>> entry : shard.deleteExpiredByOwner(limit).entrySet()) {
+                total.computeIfAbsent(entry.getKey(), owner -> new ArrayList<>()).addAll(entry.getValue());
+                removed += entry.getValue().size();
+            }
+        } while (removed == limit && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    @Override
+    public void deleteAllLinks() {
+        deleteAll();
+    }
+
+    @Override
+    public void deleteAll() {
+        fanOut(shard -> {
+            shard.deleteAll();
+            return null;
+        });
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (ExecutorService writer : writers) {
+            writer.shutdown();
+        }
+        for (ExecutorService writer : writers) {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        for (LinkRepository shard : shards) {
+            shard.close();
+        }
+    }
+
+    /* ===================== Перешардирование ===================== */
+
+    /**
+     * Переносит ссылки из раскладки fromShards в раскладку toShards рядом с dbPath.
+     * Исходные файлы читаются потоково и не меняются; целевые должны быть пустыми
+     *
+     * @return число перенесённых ссылок
+     */
+    public static long reshard(String dbPath, int fromShards, int toShards) throws Exception {
+        if (fromShards == toShards) {
+            throw new IllegalArgumentException("Число шардов не меняется: " + fromShards);
+        }
+        for (int i = 0; i < fromShards; i++) {
+            if (!Files.exists(Path.of(shardPath(dbPath, i, fromShards)))) {
+                throw new IllegalArgumentException("Нет исходного шарда " + shardPath(dbPath, i, fromShards));
+            }
+        }
+
+        long moved = 0;
+        try (ShardedLinkRepository target = new ShardedLinkRepository(dbPath, toShards)) {
+            if (target.count() > 0) {
+                throw new IllegalStateException("Целевые шарды уже содержат ссылки");
+            }
+
+            for (int i = 0; i < fromShards; i++) {
+                try (Connection source = DriverManager.getConnection("jdbc:sqlite:" + shardPath(dbPath, i, fromShards));
+                     Statement stmt = source.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT * FROM links")) {
+
+                    List<ShortLink> batch = new ArrayList<>(LinkRows.SAVE_BATCH_SIZE);
+                    while (rs.next()) {
+                        batch.add(LinkRows.map(rs));
+                        if (batch.size() == LinkRows.SAVE_BATCH_SIZE) {
+                            moved += copy(target, batch);
+                        }
+                    }
+                    moved += copy(target, batch);
+                } catch (SQLException e) {
+                    throw new RuntimeException("Ошибка чтения шарда " + shardPath(dbPath, i, fromShards), e);
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Массовая загрузка во все шарды, см. SQLiteLinkRepository.setBulkLoad
+     */
+    public void setBulkLoad(boolean enabled) {
+        for (LinkRepository shard : shards) {
+            if (shard instanceof SQLiteLinkRepository sqlite) {
+                sqlite.setBulkLoad(enabled);
+            }
+        }
+    }
+
+    /**
+     * Снимок каждого шарда в файлы раскладки target (см. shardPath).
+     * Каждый шард согласован сам по себе; между шардами снимки сделаны в разные моменты
+     */
+    public static void snapshot(String dbPath, int shardCount, Path target) {
+        for (int i = 0; i < shardCount; i++) {
+            SQLiteLinkRepository.snapshot(shardPath(dbPath, i, shardCount),
+                    Path.of(shardPath(target.toString(), i, shardCount)));
+        }
+    }
+
+    private static int copy(ShardedLinkRepository target, List<ShortLink> batch) {
+        int copied = batch.size() - target.saveAll(batch).size();
+        batch.clear();
+        return copied;
+    }
+}
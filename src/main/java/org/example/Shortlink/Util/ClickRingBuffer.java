@@ -0,0 +1,102 @@
+package org.example.Shortlink.Util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченный кольцевой буфер событий перехода без блокировок:
+ * много производителей, один потребитель.
+ *
+ * У каждой ячейки свой номер последовательности: производитель занимает
+ * позицию CAS-ом по tail и публикует событие записью номера,
+ * потребитель освобождает ячейку для следующего круга.
+ * Переполненный буфер не ждёт — offer возвращает false
+ */
+public final class ClickRingBuffer {
+
+    @FunctionalInterface
+    public interface EventHandler {
+        void accept(String shortCode, long epochMillis);
+    }
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final String[] codes;
+    private final long[] times;
+
+    private final AtomicLong tail = new AtomicLong();
+    // читает и пишет только потребитель
+    private long head;
+
+    /**
+     * @param capacity округляется вверх до степени двойки
+     */
+    public ClickRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер буфера должен быть положительным");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.codes = new String[size];
+        this.times = new long[size];
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return false, если буфер полон и событие отброшено
+     */
+    public boolean offer(String shortCode, long epochMillis) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long lag = sequences.get(index) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (lag < 0) {
+                // ячейка ещё не прочитана с прошлого круга
+                return false;
+            }
+        }
+
+        codes[index] = shortCode;
+        times[index] = epochMillis;
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Забирает до max опубликованных событий. Вызывается только одним потоком
+     *
+     * @return число обработанных событий
+     */
+    public int drain(EventHandler handler, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+
+            String shortCode = codes[index];
+            long epochMillis = times[index];
+            codes[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+
+            handler.accept(shortCode, epochMillis);
+            drained++;
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
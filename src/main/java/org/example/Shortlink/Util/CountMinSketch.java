@@ -0,0 +1,96 @@
+package org.example.Shortlink.Util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-min sketch частоты строковых ключей за недавнее окно.
+ *
+ * DEPTH строк по width счётчиков; ключ увеличивает по счётчику в каждой строке,
+ * оценка — минимум из них: никогда не меньше истинной, завышена коллизиями.
+ * Каждые window добавлений все счётчики делятся пополам — старые обращения
+ * затухают, и оценка отражает недавнюю частоту. Без блокировок; во время
+ * старения параллельные добавления могут потеряться — оценка приблизительная
+ */
+public final class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private final AtomicIntegerArray cells;
+    private final int mask;
+    private final int window;
+
+    private final AtomicInteger added = new AtomicInteger();
+    private final AtomicBoolean aging = new AtomicBoolean();
+
+    /**
+     * @param width  счётчиков в строке, округляется вверх до степени двойки
+     * @param window добавлений между старениями
+     */
+    public CountMinSketch(int width, int window) {
+        if (width <= 0 || width > 1 << 26 || window <= 0) {
+            throw new IllegalArgumentException("Ширина и окно должны быть положительными");
+        }
+        int size = Math.max(1, Integer.highestOneBit(width - 1) << 1);
+        this.cells = new AtomicIntegerArray(DEPTH * size);
+        this.mask = size - 1;
+        this.window = window;
+    }
+
+    /**
+     * Учитывает одно обращение к ключу
+     *
+     * @return оценка частоты ключа с учётом этого обращения
+     */
+    public int add(String key) {
+        long h1 = mix(key.hashCode());
+        long h2 = mix(h1) | 1;
+
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int cell = row * (mask + 1) + (int) (h1 + row * h2 >>> 32 & mask);
+            estimate = Math.min(estimate, cells.incrementAndGet(cell));
+        }
+
+        if (added.incrementAndGet() >= window) {
+            age();
+        }
+        return estimate;
+    }
+
+    public int estimate(String key) {
+        long h1 = mix(key.hashCode());
+        long h2 = mix(h1) | 1;
+
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, cells.get(row * (mask + 1) + (int) (h1 + row * h2 >>> 32 & mask)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Делит все счётчики пополам; стареет один поток, остальные не ждут
+     */
+    private void age() {
+        if (!aging.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            added.set(0);
+            for (int i = 0; i < cells.length(); i++) {
+                cells.set(i, cells.get(i) >>> 1);
+            }
+        } finally {
+            aging.set(false);
+        }
+    }
+
+    // финализатор splitmix64
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.Shortlink.Util;
+
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Проверка кода на коллизию фильтром вместо базы.
+ * Код, который фильтр считает возможно занятым, генерируется заново;
+ * после attempts попыток берётся последний — занятый код поймает первичный ключ
+ */
+public class FilteredShortCodeStrategy implements ShortCodeStrategy {
+
+    private final ShortCodeStrategy delegate;
+    private final Predicate<String> mightBeTaken;
+    private final int attempts;
+
+    public FilteredShortCodeStrategy(ShortCodeStrategy delegate, Predicate<String> mightBeTaken, int attempts) {
+        this.delegate = delegate;
+        this.mightBeTaken = mightBeTaken;
+        this.attempts = attempts;
+    }
+
+    @Override
+    public String next(UUID userId, String url) {
+        String code = delegate.next(userId, url);
+        for (int attempt = 1; attempt < attempts && mightBeTaken.test(code); attempt++) {
+            code = delegate.next(userId, url);
+        }
+        return code;
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.Shortlink.Util;
+
+import java.util.UUID;
+
+/**
+ * Исходный режим: SHA-256 от владельца, URL и времени, 7 символов Base64.
+ * Коллизия обнаруживается только при сохранении (первичный ключ)
+ */
+public class HashShortCodeStrategy implements ShortCodeStrategy {
+
+    @Override
+    public String next(UUID userId, String url) {
+        return ShortCodeGenerator.generate(userId, url);
+    }
+}
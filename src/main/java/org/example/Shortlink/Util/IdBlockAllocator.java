@@ -0,0 +1,14 @@
+package org.example.Shortlink.Util;
+
+/**
+ * Источник непересекающихся диапазонов идентификаторов
+ */
+public interface IdBlockAllocator {
+
+    /**
+     * Резервирует size идентификаторов
+     *
+     * @return первый идентификатор диапазона [start, start + size)
+     */
+    long allocate(int size);
+}
@@ -0,0 +1,248 @@
+package org.example.Shortlink.Util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченный запас разрешений, разнесённый по полосам.
+ *
+ * Поток берёт разрешение из своей полосы, полосы лежат в разных кэш-линиях —
+ * при многих потоках нет общего счётчика, за который они борются. Полоса выбирается,
+ * как ячейка LongAdder: начальная — по хэшу потока, при проигранном CAS поток
+ * переходит на другую. Зонд носителя (ThreadLocalRandom.getProbe) снаружи JDK
+ * недоступен; виртуальный поток живёт один запрос, так что начальная полоса у него
+ * случайна, как и зонд нового потока в LongAdder, а разводят потоки переходы при столкновениях.
+ * Опустевшая полоса арендует у общего запаса порцию (не больше lease и не больше
+ * доли остатка, чтобы к концу порции мельчали); когда общий запас пуст —
+ * забирает остаток у соседних полос. Разрешения только переходят между общим
+ * запасом и полосами, поэтому выдать больше, чем было внесено, нельзя.
+ * Отказ — только когда разрешений нет ни в общем запасе, ни в полосах и ни одна
+ * порция не в пути между ними: иначе поток ждёт, пока порция ляжет в полосу.
+ *
+ * Слово полосы — остаток и число выданных ею разрешений, выдача меняет оба одним CAS.
+ * Поэтому issued() после seal() точен: порции, которые в момент закрытия были
+ * в пути между общим запасом и полосой, просто не выдаются и в выданные не попадают
+ */
+public final class LeasedQuota {
+
+    // 16 long = 128 байт: соседние полосы не делят кэш-линию
+    private static final int STRIDE = 16;
+
+    // слово полосы: бит 63 — закрыта, биты 32..62 — выдано, биты 0..31 — остаток
+    private static final long SEALED = 1L << 63;
+    private static final long ISSUED_ONE = 1L << 32;
+    private static final long AVAILABLE_MASK = 0xFFFF_FFFFL;
+
+    // слово передач: биты 32..63 — сколько порций зачислено, биты 0..31 — сколько в пути
+    private static final long IN_FLIGHT_MASK = 0xFFFF_FFFFL;
+    private static final long MOVED_ONE = 1L << 32;
+
+    private final AtomicLongArray slots;
+    private final int stripes;
+    private final int lease;
+    private final AtomicInteger unleased = new AtomicInteger();
+    private final AtomicLong transfers = new AtomicLong();
+
+    /**
+     * @param stripes число полос, округляется вверх до степени двойки
+     * @param lease   наибольшая порция, которую полоса арендует за раз
+     */
+    public LeasedQuota(int stripes, int lease) {
+        if (stripes <= 0 || stripes > 1 << 16 || lease <= 0) {
+            throw new IllegalArgumentException("Число полос и порция аренды должны быть положительными");
+        }
+        this.stripes = Math.max(1, Integer.highestOneBit(stripes - 1) << 1);
+        this.slots = new AtomicLongArray(this.stripes * STRIDE);
+        this.lease = lease;
+    }
+
+    /**
+     * Добавляет разрешения в общий запас
+     */
+    public void deposit(int permits) {
+        if (permits > 0) {
+            unleased.addAndGet(permits);
+        }
+    }
+
+    /**
+     * @return false — разрешений не осталось ни в общем запасе, ни в полосах, или запас закрыт
+     */
+    public boolean tryAcquire() {
+        int probe = probeOfCurrentThread();
+        int slot = (probe & (stripes - 1)) * STRIDE;
+        while (true) {
+            long word = slots.get(slot);
+            if ((word & SEALED) != 0) {
+                return false;
+            }
+            if ((word & AVAILABLE_MASK) > 0) {
+                if (slots.compareAndSet(slot, word, word - 1 + ISSUED_ONE)) {
+                    return true;
+                }
+                // полосу делит другой поток: перейти на другую
+                probe = advanceProbe(probe);
+                slot = (probe & (stripes - 1)) * STRIDE;
+            } else if (!refill(slot)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return false — разрешений нет нигде; true — повторить выдачу из своей полосы
+     */
+    private boolean refill(int slot) {
+        while (true) {
+            if (lease(slot)) {
+                return true;
+            }
+            long word = slots.get(slot);
+            if ((word & SEALED) != 0 || (word & AVAILABLE_MASK) > 0) {
+                return true;
+            }
+            // пусто, только если за всю проверку ни одна порция не была в пути:
+            // порция, взятая из запаса или чужой полосы, ещё не видна ни там, ни там
+            long before = transfers.get();
+            if ((before & IN_FLIGHT_MASK) == 0 && unleased.get() == 0 && availableInStripes() == 0
+                    && transfers.get() == before) {
+                return false;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Одна попытка переложить порцию в полосу: из общего запаса, иначе из соседней полосы.
+     * Передача отмечается в пути до изъятия порции и снимается после зачисления
+     */
+    private boolean lease(int slot) {
+        int left;
+        while ((left = unleased.get()) > 0) {
+            int portion = Math.max(1, Math.min(lease, left / (2 * stripes)));
+            transfers.incrementAndGet();
+            if (unleased.compareAndSet(left, left - portion)) {
+                return moved(credit(slot, portion));
+            }
+            transfers.decrementAndGet();
+        }
+
+        for (int other = 0; other < slots.length(); other += STRIDE) {
+            long word = slots.get(other);
+            if (other != slot && (word & SEALED) == 0 && (word & AVAILABLE_MASK) > 0) {
+                transfers.incrementAndGet();
+                long taken = takeAvailable(other);
+                if (taken > 0) {
+                    return moved(credit(slot, taken));
+                }
+                transfers.decrementAndGet();
+            }
+        }
+        return false;
+    }
+
+    private boolean moved(boolean credited) {
+        transfers.addAndGet(MOVED_ONE - 1);
+        return credited;
+    }
+
+    private long availableInStripes() {
+        long total = 0;
+        for (int slot = 0; slot < slots.length(); slot += STRIDE) {
+            long word = slots.get(slot);
+            if ((word & SEALED) == 0) {
+                total += word & AVAILABLE_MASK;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Кладёт порцию в полосу; в закрытую — не кладёт, порция не будет выдана
+     */
+    private boolean credit(int slot, long permits) {
+        while (true) {
+            long word = slots.get(slot);
+            if ((word & SEALED) != 0) {
+                return false;
+            }
+            if (slots.compareAndSet(slot, word, word + permits)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Забирает остаток полосы, не трогая число выданных
+     */
+    private long takeAvailable(int slot) {
+        while (true) {
+            long word = slots.get(slot);
+            long available = word & AVAILABLE_MASK;
+            if (available == 0 || (word & SEALED) != 0) {
+                return 0;
+            }
+            if (slots.compareAndSet(slot, word, word - available)) {
+                return available;
+            }
+        }
+    }
+
+    /**
+     * Сколько разрешений ещё можно выдать; при параллельной выдаче — приблизительно
+     */
+    public int remaining() {
+        return (int) (unleased.get() + availableInStripes());
+    }
+
+    /**
+     * Сколько разрешений выдано; до seal() при параллельной выдаче — не больше истинного
+     * и не убывает между вызовами
+     */
+    public int issued() {
+        long total = 0;
+        for (int slot = 0; slot < slots.length(); slot += STRIDE) {
+            total += (slots.get(slot) & ~SEALED) >>> 32;
+        }
+        return (int) total;
+    }
+
+    /**
+     * Закрывает запас: tryAcquire дальше отказывает, невыданное пропадает
+     *
+     * @return точное число выданных разрешений
+     */
+    public int seal() {
+        unleased.set(0);
+        long total = 0;
+        for (int slot = 0; slot < slots.length(); slot += STRIDE) {
+            long word;
+            do {
+                word = slots.get(slot);
+            } while ((word & SEALED) == 0 && !slots.compareAndSet(slot, word, word | SEALED));
+            total += (word & ~SEALED) >>> 32;
+        }
+        return (int) total;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    private static int probeOfCurrentThread() {
+        int h = System.identityHashCode(Thread.currentThread());
+        h ^= h >>> 16;
+        return h != 0 ? h : 1;
+    }
+
+    /**
+     * Следующий зонд, как ThreadLocalRandom.advanceProbe: xorshift, ноль недостижим
+     */
+    private static int advanceProbe(int probe) {
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        return probe;
+    }
+}
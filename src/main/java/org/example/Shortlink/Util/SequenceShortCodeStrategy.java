@@ -0,0 +1,96 @@
+package org.example.Shortlink.Util;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Коды из последовательности: узел резервирует блок идентификаторов
+ * у IdBlockAllocator и выдаёт их без обращения к БД.
+ *
+ * Идентификатор переставляется биекцией по модулю 62^6 и кодируется
+ * в 6 символов base62. Уникальность гарантирована без проверки в БД,
+ * а длина 6 не пересекается с 7-символьными кодами хэш-режима
+ */
+public class SequenceShortCodeStrategy implements ShortCodeStrategy {
+
+    public static final int CODE_LENGTH = 6;
+
+    private static final char[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    // 62^6
+    static final long CAPACITY = 56_800_235_584L;
+
+    // (id * MULTIPLIER + OFFSET) mod CAPACITY — биекция, т.к. MULTIPLIER взаимно прост с 62;
+    // соседние id дают непохожие коды, перебор по порядку не работает
+    private static final long MULTIPLIER = 100_000_007L;
+    private static final long OFFSET = 19_088_743_651L;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[CODE_LENGTH]);
+
+    private final IdBlockAllocator allocator;
+    private final int blockSize;
+
+    private volatile Block block;
+
+    public SequenceShortCodeStrategy(IdBlockAllocator allocator, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным");
+        }
+        this.allocator = allocator;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public String next(UUID userId, String url) {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        while (true) {
+            Block current = block;
+            if (current != null) {
+                long id = current.next.getAndIncrement();
+                if (id < current.end) {
+                    return id;
+                }
+            }
+            refill(current);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+        // блок мог уже заменить другой поток
+        if (block != exhausted) {
+            return;
+        }
+
+        long start = allocator.allocate(blockSize);
+        if (start < 0 || start + blockSize > CAPACITY) {
+            throw new IllegalStateException("Пространство коротких кодов исчерпано");
+        }
+        block = new Block(start, start + blockSize);
+    }
+
+    static String encode(long id) {
+        long value = (id * MULTIPLIER + OFFSET) % CAPACITY;
+
+        char[] buffer = BUFFER.get();
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            buffer[i] = ALPHABET[(int) (value % 62)];
+            value /= 62;
+        }
+        return new String(buffer);
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
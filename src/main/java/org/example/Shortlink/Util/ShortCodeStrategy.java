@@ -0,0 +1,11 @@
+package org.example.Shortlink.Util;
+
+import java.util.UUID;
+
+/**
+ * Способ получения короткого кода для новой ссылки
+ */
+public interface ShortCodeStrategy {
+
+    String next(UUID userId, String url);
+}
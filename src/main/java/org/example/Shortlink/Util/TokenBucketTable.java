@@ -0,0 +1,106 @@
+package org.example.Shortlink.Util;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Таблица ведёр токенов, разбитая на полосы по хэшу ключа.
+ *
+ * Ведро полосы — одно число: момент (в наносекундах от создания таблицы), когда
+ * оно снова наполнится. Пополнение ленивое: токены не начисляются по таймеру,
+ * а вычисляются из этого момента при обращении. Поэтому взятие токена — одно
+ * чтение и один CAS без блокировок и без аллокаций, а отказ — одно чтение.
+ *
+ * Ключи с одинаковой полосой делят ведро: при stripes много больше числа
+ * активных ключей это редкость, и ошибка только в сторону лишнего отказа
+ */
+public final class TokenBucketTable {
+
+    private final AtomicLongArray refilledAt;
+    private final int mask;
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final long origin = System.nanoTime();
+
+    /**
+     * @param stripes       число полос, округляется вверх до степени двойки
+     * @param ratePerSecond токенов в секунду на ведро
+     * @param burst         ёмкость ведра — сколько токенов можно взять подряд после простоя
+     */
+    public TokenBucketTable(int stripes, double ratePerSecond, int burst) {
+        if (stripes <= 0 || stripes > 1 << 30 || ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Число полос, скорость и ёмкость ведра должны быть положительными");
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.refilledAt = new AtomicLongArray(Math.max(1, size));
+        this.mask = refilledAt.length() - 1;
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000L / ratePerSecond));
+        this.capacityNanos = Math.multiplyExact(intervalNanos, (long) burst);
+    }
+
+    public boolean tryAcquire(UUID key) {
+        return tryAcquire(hash(key), 1) == 1;
+    }
+
+    public boolean tryAcquire(String key) {
+        return tryAcquire(hash(key), 1) == 1;
+    }
+
+    /**
+     * Берёт до permits токенов из ведра ключа
+     *
+     * @return сколько токенов выдано: от 0 до permits
+     */
+    public int tryAcquire(UUID key, int permits) {
+        return tryAcquire(hash(key), permits);
+    }
+
+    private int tryAcquire(long hash, int permits) {
+        int stripe = (int) hash & mask;
+        long now = System.nanoTime() - origin;
+
+        while (true) {
+            long current = refilledAt.get(stripe);
+            // израсходованная часть ведра, выраженная во времени до пополнения
+            long used = Math.max(0, current - now);
+            long available = (capacityNanos - used) / intervalNanos;
+            if (available <= 0 || permits <= 0) {
+                return 0;
+            }
+
+            int granted = (int) Math.min(permits, available);
+            long next = now + used + granted * intervalNanos;
+            if (refilledAt.compareAndSet(stripe, current, next)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Токенов в ведре ключа сейчас — для метрик и тестов
+     */
+    public long available(UUID key) {
+        long used = Math.max(0, refilledAt.get((int) hash(key) & mask) - (System.nanoTime() - origin));
+        return (capacityNanos - used) / intervalNanos;
+    }
+
+    public int getStripes() {
+        return refilledAt.length();
+    }
+
+    private static long hash(UUID key) {
+        return mix(key.getMostSignificantBits() ^ Long.rotateLeft(key.getLeastSignificantBits(), 32));
+    }
+
+    // String.hashCode кэшируется в строке: полоса кода считается без прохода по символам
+    private static long hash(String key) {
+        return mix(key.hashCode());
+    }
+
+    // финализатор splitmix64
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
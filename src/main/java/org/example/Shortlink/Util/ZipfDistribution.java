@@ -0,0 +1,52 @@
+package org.example.Shortlink.Util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Распределение Ципфа над номерами 0..size-1: номер k выпадает с весом 1 / (k + 1)^exponent.
+ *
+ * Функция распределения считается один раз (size double), выбор — двоичный поиск
+ * по ней, без блокировок: экземпляр разделяется потоками, случайность у каждого своя.
+ * exponent около 1 — типичная картина обращений к ссылкам: немного горячих, длинный хвост
+ */
+public final class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    /**
+     * @param exponent 0 — равномерное распределение; чем больше, тем сильнее перекос к младшим номерам
+     */
+    public ZipfDistribution(int size, double exponent) {
+        if (size <= 0 || exponent < 0) {
+            throw new IllegalArgumentException("Размер должен быть положительным, показатель — неотрицательным");
+        }
+
+        cumulative = new double[size];
+        double total = 0;
+        for (int k = 0; k < size; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < size; k++) {
+            cumulative[k] /= total;
+        }
+    }
+
+    public int next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        // не найдено точно — точка вставки, то есть первый номер с cumulative > u
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    /**
+     * Доля обращений к номеру k
+     */
+    public double probability(int k) {
+        return k == 0 ? cumulative[0] : cumulative[k] - cumulative[k - 1];
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.LinkChangeResult;
+import org.example.Shortlink.Core.Model.LinkStatus;
+import org.example.Shortlink.Core.Model.ResolveResult;
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.AsyncLinkService;
+import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Storage.Config.AppConfig;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLinkServiceTest {
+
+    @Test
+    void results_reportStatusInsteadOfConsole() throws Exception {
+        System.out.println("\nТест 1: results_reportStatusInsteadOfConsole — исход операции в типе результата");
+
+        UUID owner = UUID.randomUUID();
+        UUID stranger = UUID.randomUUID();
+        LinkService service = new LinkService(new InMemoryLinkRepository(), new AppConfig(1, 1, 60));
+
+        try (AsyncLinkService async = new AsyncLinkService(service, 2, 16)) {
+            ShortLink link = async.createLink(owner, "https://example.com", 1).get(5, TimeUnit.SECONDS);
+
+            assertEquals(LinkStatus.FORBIDDEN, async.open(stranger, link.getShortCode()).get().getStatus());
+            assertEquals(LinkStatus.NOT_FOUND, async.resolve("missing").get().getStatus());
+
+            ResolveResult first = async.resolve(link.getShortCode()).get();
+            assertTrue(first.isRedirect());
+            assertEquals("https://example.com", first.getLink().getOriginalUrl());
+            assertEquals(1, first.getCurrentClicks());
+
+            assertEquals(LinkStatus.LIMIT_REACHED, async.resolve(link.getShortCode()).get().getStatus());
+
+            LinkChangeResult edited = async.editLink(owner, link.getShortCode(), null, 5).get();
+            assertTrue(edited.isSuccess());
+            assertEquals(1, edited.getBefore().getMaxClicks());
+            assertEquals(5, edited.getAfter().getMaxClicks());
+            assertEquals(1, edited.getAfter().getCurrentClicks());
+            assertTrue(async.resolve(link.getShortCode()).get().isRedirect(), "Поднятый лимит снова открывает ссылку");
+
+            assertEquals(LinkStatus.FORBIDDEN, async.deleteLink(stranger, link.getShortCode()).get().getStatus());
+            assertTrue(async.deleteLink(owner, link.getShortCode()).get().isSuccess());
+            assertEquals(LinkStatus.NOT_FOUND, async.deleteLink(owner, link.getShortCode()).get().getStatus());
+        }
+    }
+
+    @Test
+    void fullQueue_rejectsImmediately() throws Exception {
+        System.out.println("\nТест 2: fullQueue_rejectsImmediately — ограниченная очередь и отказ без ожидания");
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        InMemoryLinkRepository blocking = new InMemoryLinkRepository() {
+            @Override
+            public ShortLink findByShortCodeOrNull(String shortCode) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findByShortCodeOrNull(shortCode);
+            }
+        };
+        LinkService service = new LinkService(blocking, new AppConfig(1, 1, 60));
+
+        try (AsyncLinkService async = new AsyncLinkService(service, 1, 1)) {
+            CompletableFuture<ResolveResult> running = async.resolve("a");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<ResolveResult> queued = async.resolve("b");
+            CompletableFuture<ResolveResult> overflow = async.resolve("c");
+
+            assertTrue(overflow.isCompletedExceptionally());
+            ExecutionException error = assertThrows(ExecutionException.class, overflow::get);
+            assertInstanceOf(RejectedExecutionException.class, error.getCause());
+            assertEquals(1, async.getRejected());
+            assertEquals(1, async.getQueueDepth());
+
+            release.countDown();
+            assertEquals(LinkStatus.NOT_FOUND, running.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(LinkStatus.NOT_FOUND, queued.get(5, TimeUnit.SECONDS).getStatus());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.BloomFilterLinkRepository;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.example.Shortlink.Util.BloomFilter;
+import org.junit.jupiter.api.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void filter_hasNoFalseNegativesAndKeepsTargetRate() {
+        System.out.println("\nТест 1: filter_hasNoFalseNegativesAndKeepsTargetRate — 100000 кодов, 1% ложных срабатываний");
+
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("code" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("code" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("miss" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "ложных срабатываний: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test
+    void repository_rejectsUnknownCodesAndKeepsDeleted() throws Exception {
+        System.out.println("\nТест 2: repository_rejectsUnknownCodesAndKeepsDeleted — промахи без запроса к хранилищу");
+
+        UUID owner = UUID.randomUUID();
+        InMemoryLinkRepository storage = new InMemoryLinkRepository();
+        storage.save(new ShortLink("existing", "https://example.com", owner, 5, Instant.now().plusSeconds(3600)));
+
+        try (BloomFilterLinkRepository repo = new BloomFilterLinkRepository(storage, 0.01)) {
+            assertNotNull(repo.findByShortCodeOrNull("existing"));
+            assertTrue(repo.mightContain("existing"));
+
+            for (int i = 0; i < 1000; i++) {
+                assertNull(repo.findByShortCodeOrNull("random" + i));
+            }
+            assertTrue(repo.getRejected() > 950);
+            assertEquals(1000 - repo.getRejected(), repo.getFalsePositives());
+
+            repo.save(new ShortLink("expired", "https://example.com", owner, 5, Instant.now().minusSeconds(60)));
+            assertTrue(repo.mightContain("expired"));
+            assertEquals(Map.of(owner, List.of("expired")), repo.deleteExpiredByOwner(100));
+
+            // удалённый код остаётся ложным срабатыванием: хранилище отвечает, что его нет
+            assertTrue(repo.mightContain("expired"));
+            assertNull(repo.findByShortCodeOrNull("expired"));
+            assertTrue(repo.mightContain("existing"));
+        }
+    }
+
+    @Test
+    void repository_rebuildsFilledFilterInBackground() throws Exception {
+        System.out.println("\nТест 3: repository_rebuildsFilledFilterInBackground — рост кодов сверх запаса перестраивает фильтр");
+
+        UUID owner = UUID.randomUUID();
+        InMemoryLinkRepository storage = new InMemoryLinkRepository();
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+
+        try (BloomFilterLinkRepository repo = new BloomFilterLinkRepository(storage, 0.01)) {
+            // пустое хранилище — фильтр на минимальный запас в 65536 кодов
+            for (int i = 0; i < 100_000; i++) {
+                repo.save(new ShortLink("code" + i, "https://example.com", owner, 5, expiresAt));
+            }
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (repo.getExpectedFalsePositiveRate() > 0.02 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(repo.getExpectedFalsePositiveRate() <= 0.02,
+                    "расчётная доля: " + repo.getExpectedFalsePositiveRate());
+            for (int i = 0; i < 100_000; i++) {
+                assertTrue(repo.mightContain("code" + i));
+            }
+        }
+    }
+}
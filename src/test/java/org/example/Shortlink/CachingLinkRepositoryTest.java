@@ -0,0 +1,118 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.CachingLinkRepository;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingLinkRepositoryTest {
+
+    static SQLiteLinkRepository sqlite;
+    CachingLinkRepository cache;
+    UUID userId;
+
+    @BeforeAll
+    static void setup() {
+        sqlite = new SQLiteLinkRepository("test_cache.db");
+    }
+
+    @BeforeEach
+    void clearDatabase() {
+        sqlite.deleteAll();
+        cache = new CachingLinkRepository(sqlite, 2);
+        userId = UUID.randomUUID();
+    }
+
+    @AfterAll
+    static void cleanup() throws Exception {
+        sqlite.close();
+    }
+
+    private ShortLink link(String code, Instant expiresAt) {
+        return new ShortLink(code, "https://example.com/" + code, userId, 5, expiresAt);
+    }
+
+    @Test
+    void savedLink_isServedFromCache() {
+        System.out.println("\nТест 1: savedLink_isServedFromCache — повторное чтение без обращения к БД");
+
+        cache.save(link("aaa1111", Instant.now().plusSeconds(3600)));
+
+        assertNotNull(cache.findByShortCodeOrNull("aaa1111"));
+        assertNotNull(cache.findByShortCodeOrNull("aaa1111"));
+
+        System.out.println("Попаданий: " + cache.getHits() + ", промахов: " + cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void sizeLimit_evictsLeastRecentlyUsed() {
+        System.out.println("\nТест 2: sizeLimit_evictsLeastRecentlyUsed — вытеснение по размеру");
+
+        Instant ttl = Instant.now().plusSeconds(3600);
+        cache.save(link("aaa1111", ttl));
+        cache.save(link("bbb2222", ttl));
+        cache.findByShortCodeOrNull("aaa1111");
+        cache.save(link("ccc3333", ttl));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        // bbb2222 вытеснена, но читается из БД
+        assertNotNull(cache.findByShortCodeOrNull("bbb2222"));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void delete_invalidatesEntry() {
+        System.out.println("\nТест 3: delete_invalidatesEntry — удаление сбрасывает кэш");
+
+        cache.save(link("aaa1111", Instant.now().plusSeconds(3600)));
+        cache.delete("aaa1111");
+
+        assertNull(cache.findByShortCodeOrNull("aaa1111"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expiredLink_isNotCached() {
+        System.out.println("\nТест 4: expiredLink_isNotCached — время жизни записи ограничено expiresAt");
+
+        ShortLink link = link("aaa1111", Instant.now().plusSeconds(3600));
+        cache.save(link);
+
+        link.setExpiresAt(Instant.now().minusSeconds(10));
+        cache.update(link);
+
+        assertEquals(0, cache.size());
+        assertNotNull(cache.findByShortCodeOrNull("aaa1111"), "Просроченная ссылка читается из БД");
+        assertEquals(0, cache.size(), "Просроченная ссылка не кэшируется");
+    }
+
+    @Test
+    void cachedLink_isIsolatedFromCaller() {
+        System.out.println("\nТест 5: cachedLink_isIsolatedFromCaller — кэш хранит и отдаёт копии");
+
+        ShortLink saved = link("aaa1111", Instant.now().plusSeconds(3600));
+        cache.save(saved);
+        saved.setMaxClicks(1);
+
+        ShortLink first = cache.findByShortCodeOrNull("aaa1111");
+        assertEquals(5, first.getMaxClicks(), "Правка сохранённого объекта не видна без update");
+
+        first.registerClick();
+        first.setExpiresAt(Instant.now().minusSeconds(10));
+
+        ShortLink second = cache.findByShortCodeOrNull("aaa1111");
+        assertNotSame(first, second);
+        assertEquals(0, second.getCurrentClicks(), "Правка прочитанного объекта не видна другим читателям");
+        assertFalse(second.isExpired());
+        assertEquals(2, cache.getHits());
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ClickBucket;
+import org.example.Shortlink.Core.Model.ClickGranularity;
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.ClickEventPipeline;
+import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Storage.Config.AppConfig;
+import org.example.Shortlink.Storage.Repo.SQLiteClickStatsRepository;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.example.Shortlink.Util.ClickRingBuffer;
+import org.example.Shortlink.Util.HashShortCodeStrategy;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickEventPipelineTest {
+
+    static final Path DB = Path.of("test_analytics.db");
+
+    @BeforeEach
+    @AfterEach
+    void removeDatabase() throws Exception {
+        Files.deleteIfExists(DB);
+    }
+
+    @Test
+    void ringBuffer_deliversEveryEventOnce() throws Exception {
+        System.out.println("\nТест 1: ringBuffer_deliversEveryEventOnce — 4 производителя и потребитель одновременно");
+
+        ClickRingBuffer buffer = new ClickRingBuffer(1000);
+        assertEquals(1024, buffer.capacity());
+
+        long[] perProducer = new long[4];
+        AtomicBoolean producing = new AtomicBoolean(true);
+
+        ClickRingBuffer.EventHandler count = (code, time) -> perProducer[code.charAt(1) - '0']++;
+        Thread consumer = new Thread(() -> {
+            while (producing.get()) {
+                if (buffer.drain(count, 256) == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+            buffer.drain(count, Integer.MAX_VALUE);
+        });
+        consumer.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int p = 0; p < 4; p++) {
+                String code = "p" + p;
+                pool.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        while (!buffer.offer(code, i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        producing.set(false);
+        consumer.join();
+
+        for (long received : perProducer) {
+            assertEquals(50_000, received);
+        }
+
+        ClickRingBuffer small = new ClickRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(small.offer("x", i));
+        }
+        assertFalse(small.offer("x", 4), "Полный буфер отбрасывает событие");
+    }
+
+    @Test
+    void clickHistory_isAggregatedByMinuteAndHour() throws Exception {
+        System.out.println("\nТест 2: clickHistory_isAggregatedByMinuteAndHour — агрегаты переходов по ссылке");
+
+        UUID owner = UUID.randomUUID();
+        try (SQLiteLinkRepository repo = new SQLiteLinkRepository(DB.toString());
+             SQLiteClickStatsRepository stats = new SQLiteClickStatsRepository(DB.toString());
+             ClickEventPipeline analytics = new ClickEventPipeline(stats, 1024, 60_000)) {
+
+            LinkService service = new LinkService(repo, new AppConfig(1, 10, 60), null,
+                    new HashShortCodeStrategy(), analytics);
+            ShortLink link = service.createLink(owner, "https://example.com", null);
+
+            for (int i = 0; i < 3; i++) {
+                assertNotNull(service.resolve(link.getShortCode()));
+            }
+
+            Instant to = Instant.now().plusSeconds(60);
+            Instant from = to.minus(2, ChronoUnit.HOURS);
+
+            List<ClickBucket> minutes = service.clickHistory(owner, link.getShortCode(), ClickGranularity.MINUTE, from, to);
+            List<ClickBucket> hours = service.clickHistory(owner, link.getShortCode(), ClickGranularity.HOUR, from, to);
+
+            assertEquals(3, minutes.stream().mapToLong(ClickBucket::getClicks).sum());
+            assertEquals(3, hours.stream().mapToLong(ClickBucket::getClicks).sum());
+            assertEquals(0, hours.get(0).getStart().getEpochSecond() % 3600, "Начало часа выровнено");
+            System.out.println("Минутных интервалов: " + minutes.size() + ", часовых: " + hours.size());
+
+            assertTrue(service.clickHistory(UUID.randomUUID(), link.getShortCode(),
+                    ClickGranularity.HOUR, from, to).isEmpty(), "Чужая статистика недоступна");
+
+            // повторный сброс дописывает к существующим интервалам
+            service.resolve(link.getShortCode());
+            assertEquals(4, service.clickHistory(owner, link.getShortCode(), ClickGranularity.HOUR, from, to)
+                    .stream().mapToLong(ClickBucket::getClicks).sum());
+            assertEquals(0, analytics.getDropped());
+        }
+    }
+
+    @Test
+    void deletedLinks_andOldMinutes_leaveNoRollups() throws Exception {
+        System.out.println("\nТест 3: deletedLinks_andOldMinutes_leaveNoRollups — удаление и срок хранения интервалов");
+
+        UUID owner = UUID.randomUUID();
+        try (SQLiteLinkRepository repo = new SQLiteLinkRepository(DB.toString());
+             SQLiteClickStatsRepository stats = new SQLiteClickStatsRepository(DB.toString());
+             ClickEventPipeline analytics = new ClickEventPipeline(stats, 1024, 60_000, 48)) {
+
+            // один и тот же код при каждом создании — как совпадение хэша у повторно выданного кода
+            String code = "reuse12";
+            LinkService service = new LinkService(repo, new AppConfig(1, 10, 60), null,
+                    (userId, url) -> code, analytics);
+            service.createLink(owner, "https://example.com", null);
+
+            service.resolve(code);
+            analytics.flush();
+            Instant to = Instant.now().plusSeconds(60);
+            Instant from = to.minus(2, ChronoUnit.HOURS);
+            assertFalse(stats.findBuckets(code, ClickGranularity.HOUR, from, to).isEmpty());
+
+            // ещё не сброшенный переход удаляется вместе с записанными
+            service.resolve(code);
+            service.deleteLink(owner, code);
+            analytics.flush();
+            for (ClickGranularity granularity : ClickGranularity.values()) {
+                assertTrue(stats.findBuckets(code, granularity, from, to).isEmpty(), "Интервалы удалены с ссылкой");
+            }
+
+            // код выдан заново: переходы до создания ссылки к ней не относятся
+            ShortLink reissued = service.createLink(owner, "https://example.com", null);
+            assertEquals(code, reissued.getShortCode());
+            Instant earlier = Instant.now().minus(90, ChronoUnit.MINUTES);
+            stats.addBuckets(List.of(new ClickBucket(code, ClickGranularity.MINUTE,
+                    Instant.ofEpochSecond(ClickGranularity.MINUTE.bucketStart(earlier.getEpochSecond())), 5)));
+            assertTrue(service.clickHistory(owner, code, ClickGranularity.MINUTE, from, to).isEmpty());
+
+            // минутные интервалы старше срока хранения удаляются, часовые остаются
+            Instant old = Instant.now().minus(72, ChronoUnit.HOURS);
+            Instant oldHour = Instant.ofEpochSecond(ClickGranularity.HOUR.bucketStart(old.getEpochSecond()));
+            stats.addBuckets(List.of(
+                    new ClickBucket("old1234", ClickGranularity.MINUTE, oldHour, 2),
+                    new ClickBucket("old1234", ClickGranularity.HOUR, oldHour, 2)));
+            assertEquals(1, analytics.prune());
+            Instant oldTo = oldHour.plus(1, ChronoUnit.HOURS);
+            assertTrue(stats.findBuckets("old1234", ClickGranularity.MINUTE, oldHour, oldTo).isEmpty());
+            assertEquals(1, stats.findBuckets("old1234", ClickGranularity.HOUR, oldHour, oldTo).size());
+        }
+    }
+}
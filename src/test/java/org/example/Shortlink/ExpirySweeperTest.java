@@ -0,0 +1,76 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.ExpirySweeper;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpirySweeperTest {
+
+    @Test
+    void sweep_removesEveryExpiredLinkInBatches() {
+        System.out.println("\nТест 1: sweep_removesEveryExpiredLinkInBatches — порций меньше, чем просроченных ссылок");
+
+        UUID owner = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        AtomicInteger batches = new AtomicInteger();
+        InMemoryLinkRepository repository = new InMemoryLinkRepository() {
+            @Override
+            public Map<UUID, List<String>> deleteExpiredByOwner(int limit) {
+                batches.incrementAndGet();
+                return super.deleteExpiredByOwner(limit);
+            }
+        };
+
+        Instant past = Instant.now().minusSeconds(60);
+        Set<String> expired = new HashSet<>();
+        for (int i = 0; i < 7; i++) {
+            String code = "old000" + i;
+            repository.save(new ShortLink(code, "https://example.com/" + i, i < 5 ? owner : other, 5, past));
+            expired.add(code);
+        }
+        repository.save(new ShortLink("live001", "https://example.com/live", owner, 5,
+                Instant.now().plusSeconds(3_600)));
+
+        List<Map<UUID, List<String>>> reports = new ArrayList<>();
+        try (ExpirySweeper sweeper = new ExpirySweeper(repository, 3_600, 3, reports::add)) {
+            assertEquals(7, sweeper.sweep());
+            assertEquals(3, batches.get(), "Порции по 3: 3 + 3 + 1");
+            assertEquals(1, sweeper.getSweepCount());
+            assertEquals(7, sweeper.getTotalRemoved());
+            assertEquals(7, sweeper.getLastRemoved());
+
+            // один отчёт за проход со всеми удалёнными кодами по владельцам
+            assertEquals(1, reports.size());
+            Map<UUID, List<String>> removed = reports.get(0);
+            assertEquals(5, removed.get(owner).size());
+            assertEquals(2, removed.get(other).size());
+            Set<String> reported = new HashSet<>(removed.get(owner));
+            reported.addAll(removed.get(other));
+            assertEquals(expired, reported);
+
+            // пустой проход не вызывает колбэк
+            assertEquals(0, sweeper.sweep());
+            assertEquals(2, sweeper.getSweepCount());
+            assertEquals(0, sweeper.getLastRemoved());
+            assertEquals(7, sweeper.getTotalRemoved());
+            assertEquals(1, reports.size());
+        }
+
+        for (String code : expired) {
+            assertNull(repository.findByShortCodeOrNull(code));
+        }
+        assertNotNull(repository.findByShortCodeOrNull("live001"));
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitTest {
+
+    static final String DB = "test_group_commit.db";
+
+    @BeforeEach
+    @AfterEach
+    void removeDatabase() throws Exception {
+        Files.deleteIfExists(Path.of(DB));
+    }
+
+    private static ShortLink link(String code, UUID owner) {
+        return new ShortLink(code, "https://example.com/" + code, owner, 10, Instant.now().plusSeconds(3600));
+    }
+
+    @Test
+    void concurrentWrites_shareTransactions() throws Exception {
+        System.out.println("\nТест 1: concurrentWrites_shareTransactions — запись из 8 потоков общими транзакциями");
+
+        UUID owner = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try (SQLiteLinkRepository repo = new SQLiteLinkRepository(DB, 64, 2_000)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        String code = "t" + thread + "-" + i;
+                        repo.save(link(code, owner));
+                        repo.addClicks(Map.of(code, 2));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(400, repo.count());
+            assertEquals(2, repo.findByShortCodeOrNull("t7-49").getCurrentClicks());
+            assertEquals(800, repo.getGroupCommitMutations());
+            System.out.println("Изменений: " + repo.getGroupCommitMutations() + ", транзакций: " + repo.getGroupCommits());
+            assertTrue(repo.getGroupCommits() < 800);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // после закрытия всё зафиксировано на диске
+        try (SQLiteLinkRepository reopened = new SQLiteLinkRepository(DB)) {
+            assertEquals(400, reopened.count());
+        }
+    }
+
+    @Test
+    void failedMutation_failsOnlyItsCaller() throws Exception {
+        System.out.println("\nТест 2: failedMutation_failsOnlyItsCaller — занятый код не откатывает соседей по транзакции");
+
+        UUID owner = UUID.randomUUID();
+        try (SQLiteLinkRepository repo = new SQLiteLinkRepository(DB, 64, 0)) {
+            repo.save(link("taken", owner));
+
+            assertThrows(RuntimeException.class, () -> repo.save(link("taken", owner)));
+            repo.save(link("free", owner));
+            repo.delete("taken");
+
+            assertNull(repo.findByShortCodeOrNull("taken"));
+            assertNotNull(repo.findByShortCodeOrNull("free"));
+            assertEquals(1, repo.count());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryLinkRepositoryTest {
+
+    InMemoryLinkRepository repo;
+    UUID userId;
+
+    @BeforeEach
+    void setup() {
+        repo = new InMemoryLinkRepository();
+        userId = UUID.randomUUID();
+    }
+
+    private ShortLink link(String code, int maxClicks, Instant expiresAt) {
+        return new ShortLink(code, "https://example.com/" + code, userId, maxClicks, expiresAt);
+    }
+
+    @Test
+    void storedLink_isIsolatedFromCaller() {
+        System.out.println("\nТест 1: storedLink_isIsolatedFromCaller — изменения видны только после update");
+
+        ShortLink link = link("aaa1111", 5, Instant.now().plusSeconds(3600));
+        repo.save(link);
+        link.registerClick();
+
+        assertEquals(0, repo.findByShortCodeOrNull("aaa1111").getCurrentClicks());
+        repo.update(link);
+        assertEquals(1, repo.findByShortCodeOrNull("aaa1111").getCurrentClicks());
+
+        assertThrows(RuntimeException.class, () -> repo.save(link("aaa1111", 5, Instant.now().plusSeconds(3600))));
+    }
+
+    @Test
+    void concurrentAddClicks_areNotLost() throws Exception {
+        System.out.println("\nТест 2: concurrentAddClicks_areNotLost — 8 потоков пишут в одну ссылку");
+
+        repo.save(link("hot1234", 100_000, Instant.now().plusSeconds(3600)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        repo.addClicks(Map.of("hot1234", 1));
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        int clicks = repo.findByShortCodeOrNull("hot1234").getCurrentClicks();
+        System.out.println("Записано переходов: " + clicks);
+        assertEquals(8000, clicks);
+    }
+
+    @Test
+    void ownerAndExpiryIndexes_followDeletes() {
+        System.out.println("\nТест 3: ownerAndExpiryIndexes_followDeletes — выборка по владельцу и очистка по сроку");
+
+        Instant past = Instant.now().minusSeconds(60);
+        Instant future = Instant.now().plusSeconds(3600);
+        repo.save(link("old0001", 5, past));
+        repo.save(link("old0002", 5, past));
+        repo.save(link("old0003", 5, past));
+        repo.save(link("new0001", 5, future));
+        repo.save(new ShortLink("alien01", "https://example.com", UUID.randomUUID(), 5, past));
+
+        assertEquals(4, repo.findAllByUser(userId).size());
+
+        // порядок индекса сроков: alien01 раньше old0001 в ту же секунду
+        Map<UUID, List<String>> first = repo.deleteExpiredByOwner(2);
+        assertEquals(2, first.values().stream().mapToInt(List::size).sum(), "Лимит пачки соблюдается");
+        assertEquals(List.of("old0001"), first.get(userId));
+        assertEquals(Map.of(userId, List.of("old0002", "old0003")), repo.deleteExpiredByOwner(100),
+                "Остальные просроченные удалены");
+
+        List<ShortLink> left = repo.findAllByUser(userId);
+        assertEquals(1, left.size());
+        assertEquals("new0001", left.get(0).getShortCode());
+        assertEquals(1, repo.size());
+    }
+
+    @Test
+    void updateLimits_keepsStoredClicks() {
+        System.out.println("\nТест 4: updateLimits_keepsStoredClicks — правка лимита не затирает переходы");
+
+        ShortLink stale = link("edit001", 2, Instant.now().plusSeconds(3600));
+        repo.save(stale);
+        repo.addClicks(Map.of("edit001", 2));
+        assertFalse(repo.findByShortCodeOrNull("edit001").isActive(), "Лимит исчерпан");
+
+        Instant expiresAt = Instant.now().plusSeconds(7200);
+        ShortLink changed = repo.updateLimits("edit001", 5, expiresAt);
+
+        assertEquals(2, changed.getCurrentClicks(), "Счётчик взят из хранилища, а не из прочитанной копии");
+        assertEquals(5, changed.getMaxClicks());
+        assertEquals(expiresAt, changed.getExpiresAt());
+        assertTrue(changed.isActive(), "Поднятый лимит снова открывает ссылку");
+
+        assertFalse(repo.updateLimits("edit001", 2, expiresAt).isActive());
+        assertNull(repo.updateLimits("missing", 5, expiresAt));
+    }
+}
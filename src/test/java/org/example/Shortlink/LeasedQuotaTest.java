@@ -0,0 +1,74 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Util.LeasedQuota;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeasedQuotaTest {
+
+    @Test
+    void contention_admitsExactlyDepositedPermits() throws Exception {
+        System.out.println("\nТест 1: contention_admitsExactlyDepositedPermits — отказ только когда разрешений нет нигде");
+
+        int threads = 8;
+        int permits = 1_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 300; round++) {
+                // мелкая порция и много полос: порции часто в пути между запасом и полосами
+                LeasedQuota quota = new LeasedQuota(threads, 2);
+                quota.deposit(permits);
+
+                AtomicInteger admitted = new AtomicInteger();
+                CyclicBarrier start = new CyclicBarrier(threads);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        // первый отказ — конец: ложный отказ оставил бы разрешения невыданными
+                        while (quota.tryAcquire()) {
+                            admitted.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                assertEquals(permits, admitted.get(), "Раунд " + round);
+                assertEquals(permits, quota.issued());
+                assertEquals(0, quota.remaining());
+                assertEquals(permits, quota.seal());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void seal_stopsIssuingAndReportsIssued() {
+        System.out.println("\nТест 2: seal_stopsIssuingAndReportsIssued — закрытый запас не выдаёт разрешений");
+
+        LeasedQuota quota = new LeasedQuota(4, 8);
+        quota.deposit(100);
+        for (int i = 0; i < 30; i++) {
+            assertTrue(quota.tryAcquire());
+        }
+
+        assertEquals(70, quota.remaining());
+        assertEquals(30, quota.seal());
+        assertFalse(quota.tryAcquire());
+        assertEquals(0, quota.remaining());
+        assertEquals(30, quota.issued());
+    }
+}
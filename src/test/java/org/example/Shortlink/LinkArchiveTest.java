@@ -0,0 +1,104 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.example.Shortlink.Storage.Repo.LinkArchive;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkArchiveTest {
+
+    static final String DB = "test_archive.db";
+    static final Path ARCHIVE = Path.of("test_archive.bin");
+    static final Path SNAPSHOT = Path.of("test_archive_snapshot.db");
+
+    @BeforeEach
+    @AfterEach
+    void removeFiles() throws Exception {
+        Files.deleteIfExists(Path.of(DB));
+        Files.deleteIfExists(ARCHIVE);
+        Files.deleteIfExists(SNAPSHOT);
+    }
+
+    @Test
+    void exportThenImport_restoresEveryLink() throws Exception {
+        System.out.println("\nТест 1: exportThenImport_restoresEveryLink — выгрузка из SQLite и загрузка в память");
+
+        UUID owner = UUID.randomUUID();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        try (SQLiteLinkRepository source = new SQLiteLinkRepository(DB)) {
+            // больше одной порции чтения и одной пачки загрузки
+            for (int i = 0; i < 2_500; i++) {
+                source.save(new ShortLink("e" + i, "https://example.com/" + i, owner,
+                        10, i % 10, now, now.plusSeconds(3600), i % 7 != 0));
+            }
+            assertEquals(2_500, LinkArchive.export(source, ARCHIVE));
+        }
+
+        InMemoryLinkRepository target = new InMemoryLinkRepository();
+        target.save(new ShortLink("e0", "https://example.com/taken", owner, 10, now.plusSeconds(60)));
+
+        LinkArchive.ImportResult result = LinkArchive.importInto(target, ARCHIVE);
+        System.out.println("Прочитано: " + result.read() + ", загружено: " + result.imported());
+        assertEquals(2_500, result.read());
+        assertEquals(1, result.skipped(), "Занятый код пропущен");
+        assertEquals(2_500, target.count());
+
+        ShortLink restored = target.findByShortCodeOrNull("e42");
+        assertEquals("https://example.com/42", restored.getOriginalUrl());
+        assertEquals(owner, restored.getOwnerId());
+        assertEquals(2, restored.getCurrentClicks());
+        assertFalse(restored.isActive());
+        assertEquals(now.plusSeconds(3600), restored.getExpiresAt());
+    }
+
+    @Test
+    void import_rejectsTruncatedArchive() throws Exception {
+        System.out.println("\nТест 2: import_rejectsTruncatedArchive — обрезанный файл не загружается молча");
+
+        InMemoryLinkRepository source = new InMemoryLinkRepository();
+        for (int i = 0; i < 10; i++) {
+            source.save(new ShortLink("t" + i, "https://example.com/" + i, UUID.randomUUID(),
+                    5, Instant.now().plusSeconds(3600)));
+        }
+        LinkArchive.export(source, ARCHIVE);
+
+        try (FileChannel channel = FileChannel.open(ARCHIVE, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 20);
+        }
+        assertThrows(IOException.class, () -> LinkArchive.importInto(new InMemoryLinkRepository(), ARCHIVE));
+    }
+
+    @Test
+    void snapshot_copiesDatabaseWhileOpen() throws Exception {
+        System.out.println("\nТест 3: snapshot_copiesDatabaseWhileOpen — снимок базы при открытом соединении");
+
+        try (SQLiteLinkRepository live = new SQLiteLinkRepository(DB)) {
+            for (int i = 0; i < 100; i++) {
+                live.save(new ShortLink("s" + i, "https://example.com/" + i, UUID.randomUUID(),
+                        5, Instant.now().plusSeconds(3600)));
+            }
+
+            SQLiteLinkRepository.snapshot(DB, SNAPSHOT);
+            live.save(new ShortLink("after", "https://example.com/after", UUID.randomUUID(),
+                    5, Instant.now().plusSeconds(3600)));
+        }
+
+        try (SQLiteLinkRepository copy = new SQLiteLinkRepository(SNAPSHOT.toString())) {
+            assertEquals(100, copy.count());
+            assertNull(copy.findByShortCodeOrNull("after"), "Снимок не видит изменений после себя");
+        }
+        assertThrows(IllegalArgumentException.class, () -> SQLiteLinkRepository.snapshot(DB, SNAPSHOT));
+    }
+}
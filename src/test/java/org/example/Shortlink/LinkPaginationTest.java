@@ -0,0 +1,100 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkRepository;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.example.Shortlink.Storage.Repo.PooledSQLiteLinkRepository;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkPaginationTest {
+
+    static final Path DB = Path.of("test_pages.db");
+
+    @BeforeEach
+    @AfterEach
+    void removeDatabase() throws Exception {
+        Files.deleteIfExists(DB);
+        Files.deleteIfExists(Path.of(DB + "-wal"));
+        Files.deleteIfExists(Path.of(DB + "-shm"));
+    }
+
+    /**
+     * 25 ссылок с тремя разными created_at: внутри одной секунды порядок задаёт short_code
+     */
+    private static List<ShortLink> seed(LinkRepository repo, UUID owner) {
+        Instant base = Instant.ofEpochSecond(Instant.now().getEpochSecond());
+        Instant expiresAt = base.plusSeconds(3600);
+        List<ShortLink> links = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ShortLink link = new ShortLink(String.format("p%06d", 24 - i), "https://example.com/" + i, owner,
+                    5, 0, base.plusSeconds(i % 3), expiresAt, true);
+            links.add(link);
+        }
+        repo.saveAll(links);
+        repo.save(new ShortLink("alien01", "https://example.com", UUID.randomUUID(), 5, expiresAt));
+        return links;
+    }
+
+    private static void assertKeysetOrder(LinkRepository repo) {
+        UUID owner = UUID.randomUUID();
+        seed(repo, owner);
+
+        List<String> expected = repo.findAllByUser(owner).stream()
+                .sorted((a, b) -> a.getCreatedAt().equals(b.getCreatedAt())
+                        ? a.getShortCode().compareTo(b.getShortCode())
+                        : a.getCreatedAt().compareTo(b.getCreatedAt()))
+                .map(ShortLink::getShortCode)
+                .toList();
+
+        List<String> paged = new ArrayList<>();
+        ShortLink after = null;
+        List<ShortLink> page;
+        do {
+            page = repo.findPageByUser(owner, after, 7);
+            assertTrue(page.size() <= 7);
+            page.forEach(link -> paged.add(link.getShortCode()));
+            after = page.isEmpty() ? after : page.get(page.size() - 1);
+        } while (page.size() == 7);
+
+        List<String> streamed = new ArrayList<>();
+        repo.forEachByUser(owner, link -> streamed.add(link.getShortCode()));
+
+        assertEquals(25, expected.size());
+        assertEquals(expected, paged, "Страницы идут без пропусков и повторов");
+        assertEquals(expected, streamed, "Потоковый обход в том же порядке");
+    }
+
+    @Test
+    void sqlitePages_followKeyset() throws Exception {
+        System.out.println("\nТест 1: sqlitePages_followKeyset — страницы по (created_at, short_code)");
+        try (LinkRepository repo = new SQLiteLinkRepository(DB.toString())) {
+            assertKeysetOrder(repo);
+        }
+    }
+
+    @Test
+    void pooledPages_followKeyset() throws Exception {
+        System.out.println("\nТест 2: pooledPages_followKeyset — страницы и обход по открытому ResultSet");
+        try (LinkRepository repo = new PooledSQLiteLinkRepository(DB.toString(), 2)) {
+            assertKeysetOrder(repo);
+        }
+    }
+
+    @Test
+    void memoryPages_followKeyset() throws Exception {
+        System.out.println("\nТест 3: memoryPages_followKeyset — страницы в памяти");
+        try (LinkRepository repo = new InMemoryLinkRepository()) {
+            assertKeysetOrder(repo);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Metrics.MetricsRegistry;
+import org.example.Shortlink.Core.Model.CreateLinkResult;
+import org.example.Shortlink.Core.Model.LinkStatus;
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.ExpirySweeper;
+import org.example.Shortlink.Core.Service.LimitExceededException;
+import org.example.Shortlink.Core.Service.LinkRateLimiter;
+import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Storage.Config.AppConfig;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.example.Shortlink.Util.HashShortCodeStrategy;
+import org.example.Shortlink.Util.TokenBucketTable;
+import org.junit.jupiter.api.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkRateLimiterTest {
+
+    private static LinkService service(InMemoryLinkRepository repository, LinkRateLimiter limiter) {
+        return new LinkService(repository, new AppConfig(1, 10, 60), null,
+                new HashShortCodeStrategy(), null, new MetricsRegistry(), limiter);
+    }
+
+    @Test
+    void emptyBucket_rejectsWithoutStorage() {
+        System.out.println("\nТест 1: emptyBucket_rejectsWithoutStorage — отказ по частоте без обращения к хранилищу");
+
+        UUID owner = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        AtomicInteger reads = new AtomicInteger();
+        InMemoryLinkRepository repository = new InMemoryLinkRepository() {
+            @Override
+            public ShortLink findByShortCodeOrNull(String shortCode) {
+                reads.incrementAndGet();
+                return super.findByShortCodeOrNull(shortCode);
+            }
+
+            @Override
+            public ShortLink tryRegisterClick(String shortCode) {
+                reads.incrementAndGet();
+                return super.tryRegisterClick(shortCode);
+            }
+        };
+        // пополнение раз в ~3 часа: за время теста ведро не наполняется
+        LinkRateLimiter limiter = new LinkRateLimiter(repository, 1_024, 1e-4, 3, 1e-4, 2, 0);
+        LinkService service = service(repository, limiter);
+
+        ShortLink link = null;
+        for (int i = 0; i < 3; i++) {
+            link = service.createLink(owner, "https://example.com/" + i, null);
+        }
+        LimitExceededException error = assertThrows(LimitExceededException.class,
+                () -> service.createLink(owner, "https://example.com/more", null));
+        assertEquals(LinkStatus.RATE_LIMITED, error.getStatus());
+        // у другого владельца своё ведро
+        assertNotNull(service.createLink(other, "https://example.com/other", null));
+
+        assertTrue(service.tryResolve(link.getShortCode()).isRedirect());
+        assertTrue(service.tryResolve(link.getShortCode()).isRedirect());
+        int before = reads.get();
+        assertEquals(LinkStatus.RATE_LIMITED, service.tryResolve(link.getShortCode()).getStatus());
+        assertEquals(LinkStatus.RATE_LIMITED, service.open(owner, link.getShortCode()).getStatus());
+        assertEquals(before, reads.get());
+
+        assertEquals(1, limiter.getRejectedCreates());
+        assertEquals(2, limiter.getRejectedResolves());
+
+        // пакет получает столько мест, сколько осталось в ведре
+        TokenBucketTable buckets = new TokenBucketTable(16, 1e-4, 5);
+        assertEquals(3, buckets.tryAcquire(owner, 3));
+        assertEquals(2, buckets.tryAcquire(owner, 3));
+        assertEquals(0, buckets.tryAcquire(owner, 1));
+    }
+
+    @Test
+    void ownerQuota_countsCreatesAndDeletes() {
+        System.out.println("\nТест 2: ownerQuota_countsCreatesAndDeletes — лимит ссылок владельца и освобождение мест");
+
+        UUID owner = UUID.randomUUID();
+        InMemoryLinkRepository repository = new InMemoryLinkRepository();
+        LinkService unlimited = service(repository, null);
+        ShortLink existing = unlimited.createLink(owner, "https://example.com/existing", null);
+
+        LinkRateLimiter limiter = new LinkRateLimiter(repository, 1_024, 0, 1, 0, 1, 3);
+        LinkService service = service(repository, limiter);
+
+        // уже сохранённая ссылка учитывается при первом создании
+        List<CreateLinkResult> batch = service.createLinks(owner,
+                List.of("https://example.com/a", "https://example.com/b", "https://example.com/c"), null);
+        assertTrue(batch.get(0).isSuccess());
+        assertTrue(batch.get(1).isSuccess());
+        assertFalse(batch.get(2).isSuccess());
+
+        LimitExceededException error = assertThrows(LimitExceededException.class,
+                () -> service.createLink(owner, "https://example.com/d", null));
+        assertEquals(LinkStatus.QUOTA_EXCEEDED, error.getStatus());
+
+        // удаление и некорректный URL освобождают место
+        assertTrue(service.delete(owner, existing.getShortCode()).isSuccess());
+        assertThrows(IllegalArgumentException.class, () -> service.createLink(owner, "not a url", null));
+        assertNotNull(service.createLink(owner, "https://example.com/d", null));
+        assertThrows(LimitExceededException.class, () -> service.createLink(owner, "https://example.com/e", null));
+
+        assertEquals(3, repository.findAllByUser(owner).size());
+        assertEquals(3, limiter.getRejectedByQuota());
+    }
+
+    @Test
+    void expirySweep_releasesQuotaPerOwnerWithoutRecount() {
+        System.out.println("\nТест 3: expirySweep_releasesQuotaPerOwnerWithoutRecount — очистка освобождает места владельцев точно");
+
+        UUID owner = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        AtomicInteger scans = new AtomicInteger();
+        AtomicInteger seeds = new AtomicInteger();
+        InMemoryLinkRepository repository = new InMemoryLinkRepository() {
+            @Override
+            public void forEachByUser(UUID userId, Consumer<ShortLink> action) {
+                scans.incrementAndGet();
+                super.forEachByUser(userId, action);
+            }
+
+            @Override
+            public Map<UUID, Integer> countByOwner() {
+                seeds.incrementAndGet();
+                return super.countByOwner();
+            }
+        };
+        Instant past = Instant.now().minusSeconds(60);
+        repository.save(new ShortLink("old0001", "https://example.com/1", owner, 5, past));
+        repository.save(new ShortLink("old0002", "https://example.com/2", owner, 5, past));
+        repository.save(new ShortLink("old0003", "https://example.com/3", other, 5, past));
+
+        LinkRateLimiter limiter = new LinkRateLimiter(repository, 1_024, 0, 1, 0, 1, 2);
+        LinkService service = service(repository, limiter);
+        // шаг прогрева: один подсчёт на всех владельцев
+        limiter.seedOwnerCounts();
+        limiter.seedOwnerCounts();
+        assertEquals(2, limiter.getTrackedOwners());
+
+        LimitExceededException error = assertThrows(LimitExceededException.class,
+                () -> service.createLink(owner, "https://example.com/a", null));
+        assertEquals(LinkStatus.QUOTA_EXCEEDED, error.getStatus());
+
+        try (ExpirySweeper sweeper = new ExpirySweeper(repository, 3_600, 1, limiter::removed)) {
+            assertEquals(3, sweeper.sweep());
+        }
+        // опустевшие счётчики не держатся в памяти
+        assertEquals(0, limiter.getTrackedOwners());
+
+        assertNotNull(service.createLink(owner, "https://example.com/a", null));
+        assertNotNull(service.createLink(owner, "https://example.com/b", null));
+        assertThrows(LimitExceededException.class, () -> service.createLink(owner, "https://example.com/c", null));
+        assertEquals(1, seeds.get(), "Число ссылок владельцев прочитано из хранилища один раз");
+        assertEquals(0, scans.get(), "Создание не обходит ссылки владельца");
+        assertEquals(1, limiter.getTrackedOwners());
+    }
+
+    @Test
+    void repeatedDelete_releasesQuotaOnce() {
+        System.out.println("\nТест 4: repeatedDelete_releasesQuotaOnce — проигравший гонку удаления место не освобождает");
+
+        UUID owner = UUID.randomUUID();
+        AtomicReference<ShortLink> stale = new AtomicReference<>();
+        // прочитанная до удаления копия: второй вызов видит ссылку, которой уже нет
+        InMemoryLinkRepository repository = new InMemoryLinkRepository() {
+            @Override
+            public ShortLink findByShortCodeOrNull(String shortCode) {
+                ShortLink read = stale.get();
+                return read != null && read.getShortCode().equals(shortCode)
+                        ? read
+                        : super.findByShortCodeOrNull(shortCode);
+            }
+        };
+
+        LinkRateLimiter limiter = new LinkRateLimiter(repository, 1_024, 0, 1, 0, 1, 2);
+        LinkService service = service(repository, limiter);
+
+        ShortLink first = service.createLink(owner, "https://example.com/a", null);
+        service.createLink(owner, "https://example.com/b", null);
+        stale.set(repository.findByShortCodeOrNull(first.getShortCode()));
+
+        assertTrue(service.delete(owner, first.getShortCode()).isSuccess());
+        assertEquals(LinkStatus.NOT_FOUND, service.delete(owner, first.getShortCode()).getStatus());
+
+        assertNotNull(service.createLink(owner, "https://example.com/c", null));
+        LimitExceededException error = assertThrows(LimitExceededException.class,
+                () -> service.createLink(owner, "https://example.com/d", null));
+        assertEquals(LinkStatus.QUOTA_EXCEEDED, error.getStatus());
+    }
+}
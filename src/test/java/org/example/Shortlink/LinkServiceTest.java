@@ -1,5 +1,6 @@
 package org.example.Shortlink;
 
+import org.example.Shortlink.Core.Model.CreateLinkResult;
 import org.example.Shortlink.Core.Model.ShortLink;
 import org.example.Shortlink.Core.Service.LinkRepository;
 import org.example.Shortlink.Core.Service.LinkService;
@@ -8,8 +9,13 @@ import org.example.Shortlink.Storage.Config.AppConfig;
 import org.junit.jupiter.api.*;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -148,4 +154,72 @@ class LinkServiceTest {
 
         System.out.println("Проверка уникальности для разных пользователей пройдена");
     }
+
+    @Test
+    void createLinks_reportsPerItemResults() {
+        System.out.println("\nТест 6: createLinks_reportsPerItemResults — пакетное создание с ошибками");
+
+        repo.save(new ShortLink("taken01", "https://example.com", userId, 3, Instant.now().plusSeconds(3600)));
+
+        // один код занят в БД, другой повторяется внутри пакета
+        List<String> codes = List.of("taken01", "dup0001", "dup0001", "free001", "free002");
+        AtomicInteger issued = new AtomicInteger();
+        LinkService bulkService = new LinkService(repo, new AppConfig(1, 3, 60), null, (owner, url) -> {
+            int n = issued.getAndIncrement();
+            return n < codes.size() ? codes.get(n) : UUID.randomUUID().toString().substring(0, 7);
+        });
+
+        List<CreateLinkResult> results = bulkService.createLinks(userId,
+                List.of("https://example.com/a", "not a url", "https://example.com/b", "https://example.com/c"), null);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("not a url", results.get(1).getOriginalUrl());
+        assertTrue(results.get(2).isSuccess());
+        assertTrue(results.get(3).isSuccess());
+
+        for (CreateLinkResult result : results) {
+            if (result.isSuccess()) {
+                ShortLink stored = repo.findByShortCodeOrNull(result.getLink().getShortCode());
+                assertEquals(result.getOriginalUrl(), stored.getOriginalUrl());
+            }
+        }
+        assertEquals(4, repo.findAllByUser(userId).size(), "Три новые ссылки и одна существующая");
+        System.out.println("Пакет обработан без прерывания");
+    }
+
+    @Test
+    void concurrentResolve_neverExceedsLimit() throws Exception {
+        System.out.println("\nТест 7: concurrentResolve_neverExceedsLimit — атомарный учёт перехода в SQL");
+
+        ShortLink link = service.createLink(userId, "https://example.com", 25);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger redirects = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        if (service.resolve(link.getShortCode()) != null) {
+                            redirects.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ShortLink stored = repo.findByShortCodeOrNull(link.getShortCode());
+        System.out.println("Переходов: " + redirects.get() + ", в БД: " + stored.getCurrentClicks());
+        assertEquals(25, redirects.get(), "Засчитано ровно maxClicks переходов");
+        assertEquals(25, stored.getCurrentClicks());
+        assertFalse(stored.isActive());
+        assertNull(repo.tryRegisterClick(link.getShortCode()));
+    }
 }
@@ -0,0 +1,142 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.MappedLogLinkRepository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLogLinkRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    MappedLogLinkRepository repo;
+    UUID userId;
+
+    @BeforeEach
+    void setup() {
+        repo = new MappedLogLinkRepository(dir, 4096, 0);
+        userId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        repo.close();
+    }
+
+    private ShortLink link(String code) {
+        return new ShortLink(code, "https://example.com/" + code, userId, 3, Instant.now().plusSeconds(3600));
+    }
+
+    @Test
+    void clicksAndUpdates_surviveReopen() throws Exception {
+        System.out.println("\nТест 1: clicksAndUpdates_surviveReopen — правки на месте и восстановление индекса");
+
+        repo.save(link("aaa1111"));
+        repo.save(link("bbb2222"));
+        assertThrows(RuntimeException.class, () -> repo.save(link("aaa1111")));
+
+        repo.addClicks(Map.of("aaa1111", 3));
+        ShortLink edited = repo.findByShortCodeOrNull("bbb2222");
+        edited.setMaxClicks(10);
+        repo.update(edited);
+
+        repo.close();
+        repo = new MappedLogLinkRepository(dir, 4096, 0);
+
+        ShortLink exhausted = repo.findByShortCodeOrNull("aaa1111");
+        assertEquals(3, exhausted.getCurrentClicks());
+        assertFalse(exhausted.isActive());
+        assertEquals(10, repo.findByShortCodeOrNull("bbb2222").getMaxClicks());
+        assertEquals(2, repo.findAllByUser(userId).size());
+    }
+
+    @Test
+    void compaction_reclaimsDeletedSegments() throws Exception {
+        System.out.println("\nТест 2: compaction_reclaimsDeletedSegments — сегменты с удалёнными записями освобождаются");
+
+        for (int i = 0; i < 200; i++) {
+            repo.save(link("code" + i));
+        }
+        int segmentsBefore = repo.getSegmentCount();
+        assertTrue(segmentsBefore > 2);
+
+        for (int i = 0; i < 200; i++) {
+            if (i % 10 != 0) {
+                repo.delete("code" + i);
+            }
+        }
+
+        assertTrue(repo.compact() > 0);
+        assertTrue(repo.getSegmentCount() < segmentsBefore);
+
+        repo.close();
+        repo = new MappedLogLinkRepository(dir, 4096, 0);
+
+        assertEquals(20, repo.count());
+        assertNotNull(repo.findByShortCodeOrNull("code190"));
+        assertNull(repo.findByShortCodeOrNull("code191"));
+    }
+
+    @Test
+    void compaction_keepsExpiredForSweeper() throws Exception {
+        System.out.println("\nТест 3: compaction_keepsExpiredForSweeper — просроченные удаляет очистка, а не уплотнение");
+
+        Instant past = Instant.now().minusSeconds(60);
+        for (int i = 0; i < 100; i++) {
+            repo.save(i % 10 == 0
+                    ? new ShortLink("old" + i, "https://example.com/old" + i, userId, 3, past)
+                    : link("code" + i));
+        }
+        for (int i = 0; i < 100; i++) {
+            if (i % 10 != 0) {
+                repo.delete("code" + i);
+            }
+        }
+
+        assertTrue(repo.compact() > 0);
+        assertEquals(10, repo.count(), "Уплотнение не удаляет просроченные молча");
+
+        Map<UUID, List<String>> removed = repo.deleteExpiredByOwner(100);
+        assertEquals(10, removed.get(userId).size(), "Очистка сообщает владельца каждой просроченной");
+        assertEquals(0, repo.count());
+    }
+
+    @Test
+    void expiryIndex_followsEditsAndReopen() throws Exception {
+        System.out.println("\nТест 4: expiryIndex_followsEditsAndReopen — очистка по индексу сроков порциями");
+
+        Instant past = Instant.now().minusSeconds(60);
+        Instant future = Instant.now().plusSeconds(3600);
+        for (int i = 0; i < 50; i++) {
+            repo.save(i < 10
+                    ? new ShortLink("old" + i, "https://example.com/old" + i, userId, 3, past)
+                    : link("code" + i));
+        }
+        // продлённая ссылка не удаляется, сокращённая — удаляется
+        repo.updateLimits("old0", 3, future);
+        ShortLink shortened = repo.findByShortCodeOrNull("code10");
+        shortened.setExpiresAt(past);
+        repo.update(shortened);
+        assertEquals(4, repo.deleteExpiredByOwner(4).get(userId).size());
+
+        repo.close();
+        repo = new MappedLogLinkRepository(dir, 4096, 0);
+
+        assertEquals(4, repo.deleteExpiredByOwner(4).get(userId).size());
+        assertEquals(2, repo.deleteExpiredByOwner(4).get(userId).size());
+        assertTrue(repo.deleteExpiredByOwner(4).isEmpty());
+
+        assertEquals(40, repo.count());
+        assertNotNull(repo.findByShortCodeOrNull("old0"));
+        assertNull(repo.findByShortCodeOrNull("code10"));
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Metrics.LatencyHistogram;
+import org.example.Shortlink.Core.Metrics.MetricsMBean;
+import org.example.Shortlink.Core.Metrics.MetricsRegistry;
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Storage.Config.AppConfig;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.example.Shortlink.Storage.Repo.InstrumentedLinkRepository;
+import org.example.Shortlink.Util.HashShortCodeStrategy;
+import org.junit.jupiter.api.*;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void histogram_quantilesWithinBucketError() {
+        System.out.println("\nТест 1: histogram_quantilesWithinBucketError — квантили с погрешностью до 3%");
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(10_000_000, snapshot.getMax());
+
+        long p50 = snapshot.valueAt(0.5);
+        long p99 = snapshot.valueAt(0.99);
+        System.out.println("p50 = " + p50 + " нс, p99 = " + p99 + " нс");
+        assertEquals(5_000_000, p50, 5_000_000 * 0.032);
+        assertEquals(9_900_000, p99, 9_900_000 * 0.032);
+        assertTrue(p50 >= 5_000_000 && p99 >= 9_900_000, "Квантили не занижаются");
+    }
+
+    @Test
+    void serviceOutcomes_areCountedAndExported() throws Exception {
+        System.out.println("\nТест 2: serviceOutcomes_areCountedAndExported — счётчики исходов, текст и JMX");
+
+        MetricsRegistry metrics = new MetricsRegistry();
+        InstrumentedLinkRepository repo = new InstrumentedLinkRepository(new InMemoryLinkRepository(), metrics);
+        LinkService service = new LinkService(repo, new AppConfig(1, 1, 60), null,
+                new HashShortCodeStrategy(), null, metrics);
+        metrics.gauge("links.rows", repo::count);
+
+        UUID owner = UUID.randomUUID();
+        ShortLink link = service.createLink(owner, "https://example.com", 1);
+        repo.save(new ShortLink("old1234", "https://example.com", owner, 5, 0,
+                Instant.now().minusSeconds(7200), Instant.now().minusSeconds(60), true));
+
+        assertNotNull(service.resolve(link.getShortCode()));
+        assertNull(service.resolve(link.getShortCode()), "Лимит исчерпан");
+        assertNull(service.resolve("missing"));
+        assertNull(service.resolve("old1234"));
+
+        assertEquals(1L, metrics.counterValues().get("links.not_found"));
+        assertEquals(1L, metrics.counterValues().get("links.expired"));
+        assertEquals(1L, metrics.counterValues().get("links.limit_reached"));
+        assertEquals(4, metrics.timerSnapshots().get("service.resolve").getCount());
+        // успешный переход — один запрос без чтения; строка читается только для объяснения отказа
+        assertEquals(4, metrics.timerSnapshots().get("storage.register_click").getCount());
+        assertEquals(3, metrics.timerSnapshots().get("storage.select_by_code").getCount());
+
+        String text = metrics.render();
+        assertTrue(text.contains("shortlink_service_resolve_seconds{quantile=\"0.99\"}"));
+        assertTrue(text.contains("shortlink_links_not_found_total 1"));
+        assertTrue(text.contains("shortlink_links_rows 1"), "Просроченная ссылка удалена при переходе");
+
+        try (MetricsMBean ignored = new MetricsMBean(metrics)) {
+            Object value = ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(new ObjectName(MetricsMBean.OBJECT_NAME), "links.expired");
+            assertEquals(1L, value);
+        }
+    }
+
+    @Test
+    void cachedGauge_readsSourceOncePerTtl() throws Exception {
+        System.out.println("\nТест 3: cachedGauge_readsSourceOncePerTtl — дорогой датчик читается не чаще раза за ttl");
+
+        MetricsRegistry metrics = new MetricsRegistry();
+        AtomicInteger reads = new AtomicInteger();
+        metrics.gauge("links.rows", reads::incrementAndGet, 200);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(1L, metrics.gaugeValues().get("links.rows"));
+        }
+        assertEquals(1, reads.get());
+
+        Thread.sleep(250);
+        assertEquals(2L, metrics.gaugeValues().get("links.rows"));
+        assertEquals(2, reads.get());
+
+        // ошибка не запоминается: следующая выгрузка читает снова
+        AtomicInteger failures = new AtomicInteger();
+        metrics.gauge("broken", () -> {
+            if (failures.incrementAndGet() == 1) {
+                throw new IllegalStateException("нет соединения");
+            }
+            return 7;
+        }, 60_000);
+        assertEquals(-1L, metrics.gaugeValues().get("broken"));
+        assertEquals(7L, metrics.gaugeValues().get("broken"));
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.OffHeapLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapLinkRepositoryTest {
+
+    OffHeapLinkRepository repo;
+    UUID userId;
+
+    @BeforeEach
+    void setup() {
+        repo = new OffHeapLinkRepository(4096, 0);
+        userId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repo.close();
+    }
+
+    private ShortLink link(String code, Instant expiresAt) {
+        return new ShortLink(code, "https://example.com/" + code, userId, 3, expiresAt);
+    }
+
+    @Test
+    void fields_roundTripThroughOffHeapRecord() {
+        System.out.println("\nТест 1: fields_roundTripThroughOffHeapRecord — поля читаются из памяти вне кучи");
+
+        repo.save(link("aaa1111", Instant.now().plusSeconds(3600)));
+        assertThrows(RuntimeException.class, () -> repo.save(link("aaa1111", Instant.now().plusSeconds(3600))));
+
+        assertEquals("https://example.com/aaa1111", repo.findByShortCodeOrNull("aaa1111").getOriginalUrl());
+        assertNull(repo.findByShortCodeOrNull("missing"));
+
+        // исчерпанная ссылка: переход не засчитывается
+        repo.addClicks(Map.of("aaa1111", 3));
+        assertNull(repo.tryRegisterClickUrl("aaa1111"));
+
+        ShortLink stored = repo.findByShortCodeOrNull("aaa1111");
+        assertEquals(3, stored.getCurrentClicks());
+        assertEquals(userId, stored.getOwnerId());
+        assertFalse(stored.isActive());
+    }
+
+    @Test
+    void deletes_compactAndKeepIndexConsistent() {
+        System.out.println("\nТест 2: deletes_compactAndKeepIndexConsistent — удаление, уплотнение и рост индекса");
+
+        for (int i = 0; i < 2000; i++) {
+            repo.save(link("code" + i, Instant.now().plusSeconds(3600)));
+        }
+        long allocated = repo.getAllocatedBytes();
+
+        for (int i = 0; i < 2000; i++) {
+            if (i % 10 != 0) {
+                repo.delete("code" + i);
+            }
+        }
+
+        assertEquals(200, repo.count());
+        assertEquals(allocated, repo.getAllocatedBytes(), "Удаление не копирует записи");
+        assertTrue(repo.compact() > 0);
+        assertTrue(repo.getAllocatedBytes() < allocated);
+        assertNotNull(repo.findByShortCodeOrNull("code1990"));
+        assertNull(repo.findByShortCodeOrNull("code1991"));
+        assertEquals(200, repo.findAllByUser(userId).size());
+
+        repo.save(link("old0001", Instant.now().minusSeconds(60)));
+        assertEquals(Map.of(userId, List.of("old0001")), repo.deleteExpiredByOwner(100));
+        assertEquals(200, repo.count());
+    }
+
+    @Test
+    void ownerList_followsDeletesAndCompaction() {
+        System.out.println("\nТест 3: ownerList_followsDeletesAndCompaction — ссылки владельца без прохода по всем кускам");
+
+        UUID other = UUID.randomUUID();
+        for (int i = 0; i < 300; i++) {
+            repo.save(link("mine" + i, Instant.now().plusSeconds(3600)));
+            repo.save(new ShortLink("other" + i, "https://example.com/other" + i, other, 3,
+                    Instant.now().plusSeconds(3600)));
+        }
+
+        // удаляются голова, середина и хвост списка владельца
+        for (int i = 0; i < 300; i++) {
+            if (i % 3 != 0) {
+                repo.delete("mine" + i);
+            }
+        }
+        repo.delete("other0");
+        repo.compact();
+
+        assertEquals(100, repo.findAllByUser(userId).size());
+        assertEquals(299, repo.findAllByUser(other).size());
+        assertTrue(repo.findAllByUser(userId).stream().allMatch(l -> l.getShortCode().startsWith("mine")));
+        assertTrue(repo.findAllByUser(UUID.randomUUID()).isEmpty());
+
+        for (int i = 0; i < 300; i += 3) {
+            repo.delete("mine" + i);
+        }
+        assertTrue(repo.findAllByUser(userId).isEmpty());
+        repo.save(link("mine0", Instant.now().plusSeconds(3600)));
+        assertEquals(1, repo.findAllByUser(userId).size());
+        assertEquals(300, repo.count());
+    }
+
+    @Test
+    void registerClickUrl_countsWithoutShortLink() {
+        System.out.println("\nТест 4: registerClickUrl_countsWithoutShortLink — переход засчитывается и отдаёт только URL");
+
+        repo.save(link("bbb2222", Instant.now().plusSeconds(3600)));
+        repo.save(link("old0002", Instant.now().minusSeconds(60)));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("https://example.com/bbb2222", repo.tryRegisterClickUrl("bbb2222"));
+        }
+        assertNull(repo.tryRegisterClickUrl("bbb2222"), "Лимит исчерпан");
+        assertNull(repo.tryRegisterClickUrl("old0002"), "Срок истёк");
+        assertNull(repo.tryRegisterClickUrl("missing"));
+
+        ShortLink stored = repo.findByShortCodeOrNull("bbb2222");
+        assertEquals(3, stored.getCurrentClicks());
+        assertFalse(stored.isActive());
+    }
+
+    @Test
+    void expiryLists_followEditsAndCompaction() {
+        System.out.println("\nТест 5: expiryLists_followEditsAndCompaction — очистка читает только просроченные записи");
+
+        Instant past = Instant.now().minusSeconds(60);
+        Instant future = Instant.now().plusSeconds(3600);
+        for (int i = 0; i < 400; i++) {
+            // просроченные — с несколькими разными секундами, чтобы списков было больше одного
+            repo.save(link("code" + i, i % 4 == 0 ? past.minusSeconds(i % 3) : future));
+        }
+        for (int i = 0; i < 400; i++) {
+            if (i % 4 == 1 || i % 4 == 2) {
+                repo.delete("code" + i);
+            }
+        }
+        assertTrue(repo.compact() > 0, "Записи списков сроков переехали в другие куски");
+
+        // продлённая ссылка не удаляется, сокращённая — удаляется
+        repo.updateLimits("code0", 3, future);
+        ShortLink shortened = repo.findByShortCodeOrNull("code3");
+        shortened.setExpiresAt(past);
+        repo.update(shortened);
+
+        int removed = 0;
+        Map<UUID, List<String>> batch;
+        while (!(batch = repo.deleteExpiredByOwner(7)).isEmpty()) {
+            assertTrue(batch.get(userId).size() <= 7);
+            removed += batch.get(userId).size();
+        }
+        assertEquals(100, removed);
+        assertEquals(100, repo.count());
+        assertNotNull(repo.findByShortCodeOrNull("code0"));
+        assertNull(repo.findByShortCodeOrNull("code3"));
+        assertNull(repo.findByShortCodeOrNull("code4"));
+        assertNotNull(repo.findByShortCodeOrNull("code7"));
+    }
+}
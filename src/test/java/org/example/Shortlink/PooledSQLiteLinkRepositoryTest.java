@@ -0,0 +1,98 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.PooledSQLiteLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledSQLiteLinkRepositoryTest {
+
+    static final String DB = "test_pooled.db";
+
+    @BeforeEach
+    @AfterEach
+    void removeDatabase() throws Exception {
+        Files.deleteIfExists(Path.of(DB));
+        Files.deleteIfExists(Path.of(DB + "-wal"));
+        Files.deleteIfExists(Path.of(DB + "-shm"));
+    }
+
+    private static ShortLink link(String code, UUID owner) {
+        return new ShortLink(code, "https://example.com/" + code, owner, 10, Instant.now().plusSeconds(3600));
+    }
+
+    @Test
+    void concurrentReadsAndWrites_keepEveryChange() throws Exception {
+        System.out.println("\nТест 1: concurrentReadsAndWrites_keepEveryChange — 8 потоков пишут, читатели пула читают");
+
+        UUID owner = UUID.randomUUID();
+        AtomicInteger missed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try (PooledSQLiteLinkRepository repo = new PooledSQLiteLinkRepository(DB, 4)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        String code = "t" + thread + "-" + i;
+                        repo.save(link(code, owner));
+
+                        // запись видна читателям пула сразу после фиксации
+                        ShortLink stored = repo.findByShortCodeOrNull(code);
+                        if (stored == null) {
+                            missed.incrementAndGet();
+                            continue;
+                        }
+                        stored.setMaxClicks(20);
+                        repo.update(stored);
+                        repo.addClicks(Map.of(code, 2));
+
+                        if (i % 5 == 0) {
+                            repo.delete(code);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(0, missed.get(), "Каждая сохранённая ссылка прочитана");
+            assertEquals(320, repo.count());
+            assertEquals(320, repo.findAllByUser(owner).size());
+
+            ShortLink kept = repo.findByShortCodeOrNull("t7-49");
+            assertEquals(2, kept.getCurrentClicks());
+            assertEquals(20, kept.getMaxClicks());
+            assertNull(repo.findByShortCodeOrNull("t3-45"));
+
+            int clicks = 0;
+            for (ShortLink stored : repo.findAllByUser(owner)) {
+                assertEquals(20, stored.getMaxClicks());
+                clicks += stored.getCurrentClicks();
+            }
+            assertEquals(640, clicks);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // после закрытия всё зафиксировано на диске
+        try (PooledSQLiteLinkRepository reopened = new PooledSQLiteLinkRepository(DB, 1)) {
+            assertEquals(320, reopened.count());
+        }
+    }
+}
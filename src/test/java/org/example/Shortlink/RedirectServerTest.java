@@ -0,0 +1,81 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.App.Http.RedirectServer;
+import org.example.Shortlink.Core.Metrics.MetricsRegistry;
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.AsyncLinkService;
+import org.example.Shortlink.Core.Service.LinkRateLimiter;
+import org.example.Shortlink.Core.Service.LinkService;
+import org.example.Shortlink.Storage.Config.AppConfig;
+import org.example.Shortlink.Storage.Repo.InMemoryLinkRepository;
+import org.example.Shortlink.Util.HashShortCodeStrategy;
+import org.junit.jupiter.api.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedirectServerTest {
+
+    @Test
+    void redirects_andRefusals_overHttp() throws Exception {
+        System.out.println("\nТест 1: redirects_andRefusals_overHttp — 302, 404, 405 и 429 от запущенного сервера");
+
+        UUID owner = UUID.randomUUID();
+        InMemoryLinkRepository repository = new InMemoryLinkRepository();
+        // пополнение раз в ~3 часа: на код не больше трёх переходов за тест
+        LinkRateLimiter limiter = new LinkRateLimiter(repository, 1_024, 0, 1, 1e-4, 3, 0);
+        LinkService service = new LinkService(repository, new AppConfig(1, 10, 60), null,
+                new HashShortCodeStrategy(), null, new MetricsRegistry(), limiter);
+
+        ShortLink link = service.createLink(owner, "https://example.com/page", 5);
+        ShortLink single = service.createLink(owner, "https://example.com/once", 1);
+        String code = link.getShortCode();
+
+        HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+        try (AsyncLinkService async = new AsyncLinkService(service, 2, 16);
+             RedirectServer server = new RedirectServer(async, 0)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort() + "/";
+
+            // HEAD отвечает как редирект, но переход не засчитывает
+            HttpResponse<Void> head = send(client, "HEAD", base + code);
+            assertEquals(302, head.statusCode());
+            assertEquals("https://example.com/page", head.headers().firstValue("Location").orElse(null));
+            assertEquals(0, repository.findByShortCodeOrNull(code).getCurrentClicks());
+
+            HttpResponse<Void> get = send(client, "GET", base + code);
+            assertEquals(302, get.statusCode());
+            assertEquals("https://example.com/page", get.headers().firstValue("Location").orElse(null));
+            assertEquals(1, repository.findByShortCodeOrNull(code).getCurrentClicks());
+
+            assertEquals(404, send(client, "GET", base + "missing").statusCode());
+            assertEquals(404, send(client, "GET", base + code + "/extra").statusCode());
+            // POST клиент не повторяет на оборванном соединении из пула — своё соединение
+            assertEquals(405, send(HttpClient.newHttpClient(), "POST", base + code).statusCode());
+
+            // исчерпанная ссылка: HEAD сообщает отказ, ничего не удаляя
+            assertEquals(302, send(client, "GET", base + single.getShortCode()).statusCode());
+            assertEquals(404, send(client, "HEAD", base + single.getShortCode()).statusCode());
+            assertNotNull(repository.findByShortCodeOrNull(single.getShortCode()));
+
+            // третий запрос к коду исчерпывает ведро, четвёртый отклоняется
+            assertEquals(302, send(client, "GET", base + code).statusCode());
+            HttpResponse<Void> limited = send(client, "GET", base + code);
+            assertEquals(429, limited.statusCode());
+            assertEquals("1", limited.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(2, repository.findByShortCodeOrNull(code).getCurrentClicks());
+        }
+    }
+
+    private static HttpResponse<Void> send(HttpClient client, String method, String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+}
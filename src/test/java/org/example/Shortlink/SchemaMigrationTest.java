@@ -0,0 +1,91 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigrationTest {
+
+    static final Path DB = Path.of("test_migration.db");
+
+    @BeforeEach
+    @AfterEach
+    void removeDatabase() throws Exception {
+        Files.deleteIfExists(DB);
+    }
+
+    @Test
+    void legacyDatabase_isUpgradedInPlace() throws Exception {
+        System.out.println("\nТест 1: legacyDatabase_isUpgradedInPlace — обновление старого shortlinks.db");
+
+        UUID owner = UUID.randomUUID();
+        long now = Instant.now().getEpochSecond();
+
+        // база в формате до миграций: owner_id как TEXT, user_version = 0
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + DB);
+             Statement stmt = c.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE links (
+                        short_code TEXT PRIMARY KEY,
+                        original_url TEXT NOT NULL,
+                        owner_id TEXT NOT NULL,
+                        max_clicks INTEGER NOT NULL,
+                        current_clicks INTEGER NOT NULL,
+                        created_at INTEGER NOT NULL,
+                        expires_at INTEGER NOT NULL,
+                        active INTEGER NOT NULL
+                    )
+                    """);
+            stmt.execute("INSERT INTO links VALUES ('old1234', 'https://example.com', '" + owner + "', 5, 2, "
+                    + now + ", " + (now + 3600) + ", 1)");
+        }
+
+        try (SQLiteLinkRepository repo = new SQLiteLinkRepository(DB.toString())) {
+            List<ShortLink> links = repo.findAllByUser(owner);
+            assertEquals(1, links.size(), "Старая ссылка находится по владельцу");
+            assertEquals(owner, links.get(0).getOwnerId());
+            assertEquals(2, links.get(0).getCurrentClicks());
+        }
+
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + DB);
+             Statement stmt = c.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+                assertEquals(7, rs.getInt(1));
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT typeof(owner_id), length(owner_id) FROM links")) {
+                assertEquals("blob", rs.getString(1));
+                assertEquals(16, rs.getInt(2));
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT count(*) FROM sqlite_master WHERE type = 'index' AND name LIKE 'idx_links_%'")) {
+                assertEquals(2, rs.getInt(1));
+            }
+        }
+        System.out.println("Схема обновлена до версии 7");
+    }
+
+    @Test
+    void reopening_doesNotRepeatMigrations() throws Exception {
+        System.out.println("\nТест 2: reopening_doesNotRepeatMigrations — повторное открытие базы");
+
+        UUID owner = UUID.randomUUID();
+        try (SQLiteLinkRepository repo = new SQLiteLinkRepository(DB.toString())) {
+            repo.save(new ShortLink("new1234", "https://example.com", owner, 5, Instant.now().plusSeconds(3600)));
+        }
+        try (SQLiteLinkRepository repo = new SQLiteLinkRepository(DB.toString())) {
+            assertEquals(1, repo.findAllByUser(owner).size());
+        }
+    }
+}
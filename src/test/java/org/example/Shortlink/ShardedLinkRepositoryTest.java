@@ -0,0 +1,91 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.example.Shortlink.Storage.Repo.ShardedLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedLinkRepositoryTest {
+
+    static final String DB = "test_shards.db";
+
+    @BeforeEach
+    @AfterEach
+    void removeDatabases() throws Exception {
+        Files.deleteIfExists(Path.of(DB));
+        for (int shards : new int[]{3, 5}) {
+            for (int i = 0; i < shards; i++) {
+                Files.deleteIfExists(Path.of(ShardedLinkRepository.shardPath(DB, i, shards)));
+            }
+        }
+    }
+
+    private static ShortLink link(String code, UUID owner, Instant expiresAt) {
+        return new ShortLink(code, "https://example.com/" + code, owner, 10, expiresAt);
+    }
+
+    @Test
+    void operations_routeAndFanOutAcrossShards() throws Exception {
+        System.out.println("\nТест 1: operations_routeAndFanOutAcrossShards — запись по коду, запросы по всем шардам");
+
+        UUID owner = UUID.randomUUID();
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+
+        try (ShardedLinkRepository repo = new ShardedLinkRepository(DB, 3)) {
+            List<ShortLink> links = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                links.add(link("s" + i, owner, expiresAt));
+            }
+            assertTrue(repo.saveAll(links).isEmpty());
+            repo.save(link("old", owner, Instant.now().minusSeconds(60)));
+
+            assertEquals(61, repo.count());
+            assertEquals(61, repo.findAllByUser(owner).size());
+            assertEquals(25, repo.findPageByUser(owner, null, 25).size());
+
+            repo.addClicks(Map.of("s1", 2, "s2", 3));
+            assertEquals(2, repo.findByShortCodeOrNull("s1").getCurrentClicks());
+            assertEquals(3, repo.findByShortCodeOrNull("s2").getCurrentClicks());
+
+            assertEquals(Map.of(owner, List.of("old")), repo.deleteExpiredByOwner(10));
+            assertEquals(60, repo.count());
+        }
+
+        // ни один шард не остался пустым
+        for (int i = 0; i < 3; i++) {
+            try (SQLiteLinkRepository shard = new SQLiteLinkRepository(ShardedLinkRepository.shardPath(DB, i, 3))) {
+                assertTrue(shard.count() > 0);
+            }
+        }
+    }
+
+    @Test
+    void reshard_movesEveryLink() throws Exception {
+        System.out.println("\nТест 2: reshard_movesEveryLink — перенос из 3 шардов в 5");
+
+        UUID owner = UUID.randomUUID();
+        try (ShardedLinkRepository repo = new ShardedLinkRepository(DB, 3)) {
+            for (int i = 0; i < 100; i++) {
+                repo.save(link("r" + i, owner, Instant.now().plusSeconds(3600)));
+            }
+        }
+
+        assertEquals(100, ShardedLinkRepository.reshard(DB, 3, 5));
+
+        try (ShardedLinkRepository repo = new ShardedLinkRepository(DB, 5)) {
+            assertEquals(100, repo.count());
+            assertEquals("https://example.com/r42", repo.findByShortCodeOrNull("r42").getOriginalUrl());
+        }
+        assertThrows(IllegalStateException.class, () -> ShardedLinkRepository.reshard(DB, 3, 5));
+    }
+}
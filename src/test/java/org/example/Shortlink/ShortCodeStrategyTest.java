@@ -0,0 +1,69 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Storage.Repo.SQLiteIdBlockAllocator;
+import org.example.Shortlink.Util.SequenceShortCodeStrategy;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortCodeStrategyTest {
+
+    static final Path DB = Path.of("test_codes.db");
+
+    @BeforeEach
+    @AfterEach
+    void removeDatabase() throws Exception {
+        Files.deleteIfExists(DB);
+    }
+
+    @Test
+    void sequenceCodes_areUniqueUnderConcurrency() throws Exception {
+        System.out.println("\nТест 1: sequenceCodes_areUniqueUnderConcurrency — уникальность без обращения к БД");
+
+        AtomicLong counter = new AtomicLong();
+        SequenceShortCodeStrategy strategy =
+                new SequenceShortCodeStrategy(size -> counter.getAndAdd(size), 100);
+
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        UUID userId = UUID.randomUUID();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    String code = strategy.next(userId, "https://example.com");
+                    assertEquals(SequenceShortCodeStrategy.CODE_LENGTH, code.length());
+                    codes.add(code);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        System.out.println("Сгенерировано уникальных кодов: " + codes.size());
+        assertEquals(80_000, codes.size());
+    }
+
+    @Test
+    void sqliteAllocator_neverReusesRanges() throws Exception {
+        System.out.println("\nТест 2: sqliteAllocator_neverReusesRanges — блоки не пересекаются между запусками");
+
+        long first;
+        try (SQLiteIdBlockAllocator allocator = new SQLiteIdBlockAllocator(DB.toString())) {
+            first = allocator.allocate(1000);
+            assertEquals(first + 1000, allocator.allocate(1000));
+        }
+        try (SQLiteIdBlockAllocator allocator = new SQLiteIdBlockAllocator(DB.toString())) {
+            assertEquals(first + 2000, allocator.allocate(10));
+        }
+    }
+}
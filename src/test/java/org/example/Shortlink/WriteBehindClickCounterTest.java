@@ -0,0 +1,240 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Core.Model.ShortLink;
+import org.example.Shortlink.Core.Service.WriteBehindClickCounter;
+import org.example.Shortlink.Storage.Repo.SQLiteLinkRepository;
+import org.junit.jupiter.api.*;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindClickCounterTest {
+
+    static SQLiteLinkRepository repo;
+
+    @BeforeAll
+    static void setup() {
+        repo = new SQLiteLinkRepository("test_clicks.db");
+    }
+
+    @BeforeEach
+    void clearDatabase() {
+        repo.deleteAll();
+    }
+
+    @AfterAll
+    static void cleanup() throws Exception {
+        repo.close();
+    }
+
+    @Test
+    void concurrentClicks_respectMaxClicksExactly() throws Exception {
+        System.out.println("\nТест 1: concurrentClicks_respectMaxClicksExactly — точный лимит под конкуренцией");
+
+        ShortLink link = new ShortLink("hot1234", "https://example.com", UUID.randomUUID(),
+                100, Instant.now().plusSeconds(3600));
+        repo.save(link);
+
+        AtomicInteger admitted = new AtomicInteger();
+        try (WriteBehindClickCounter counter = new WriteBehindClickCounter(repo, 10)) {
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        if (counter.tryAdmit(link)) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        System.out.println("Допущено переходов: " + admitted.get());
+        assertEquals(100, admitted.get());
+
+        ShortLink stored = repo.findByShortCodeOrNull("hot1234");
+        assertEquals(100, stored.getCurrentClicks(), "Все допущенные переходы записаны при close()");
+        assertFalse(stored.isActive(), "Ссылка деактивирована по достижении лимита");
+    }
+
+    @Test
+    void flush_writesAccumulatedClicksInOneBatch() {
+        System.out.println("\nТест 2: flush_writesAccumulatedClicksInOneBatch — пакетная запись");
+
+        UUID owner = UUID.randomUUID();
+        ShortLink first = new ShortLink("aaa1111", "https://example.com/a", owner, 10, Instant.now().plusSeconds(3600));
+        ShortLink second = new ShortLink("bbb2222", "https://example.com/b", owner, 10, Instant.now().plusSeconds(3600));
+        repo.save(first);
+        repo.save(second);
+
+        try (WriteBehindClickCounter counter = new WriteBehindClickCounter(repo, 60_000)) {
+            counter.tryAdmit(first);
+            counter.tryAdmit(first);
+            counter.tryAdmit(second);
+
+            assertEquals(0, repo.findByShortCodeOrNull("aaa1111").getCurrentClicks(), "До сброса БД не меняется");
+            assertEquals(3, counter.flush());
+            assertEquals(2, counter.currentClicks(first));
+        }
+
+        assertEquals(2, repo.findByShortCodeOrNull("aaa1111").getCurrentClicks());
+        assertEquals(1, repo.findByShortCodeOrNull("bbb2222").getCurrentClicks());
+    }
+
+    @Test
+    void hotLink_isPromotedAndStillRespectsMaxClicks() throws Exception {
+        System.out.println("\nТест 3: hotLink_isPromotedAndStillRespectsMaxClicks — горячая ссылка, точный лимит по полосам");
+
+        ShortLink link = new ShortLink("viral12", "https://example.com/viral", UUID.randomUUID(),
+                5_000, Instant.now().plusSeconds(3600));
+        repo.save(link);
+
+        AtomicInteger admitted = new AtomicInteger();
+        try (WriteBehindClickCounter counter = new WriteBehindClickCounter(repo, 60_000, 100)) {
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        if (counter.tryAdmit(link)) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(1, counter.getPromotions(), "Ссылка переведена на счётчик по полосам");
+            ShortLink copy = counter.hotLink("viral12");
+            assertNotNull(copy, "Горячая ссылка читается из копии");
+            // изменение копии не видно следующим переходам
+            copy.setMaxClicks(1);
+            assertNotSame(copy, counter.hotLink("viral12"));
+            assertEquals(5_000, counter.hotLink("viral12").getMaxClicks());
+            assertEquals(5_000, counter.currentClicks(link));
+        }
+
+        System.out.println("Допущено переходов: " + admitted.get());
+        assertEquals(5_000, admitted.get());
+        assertEquals(5_000, repo.findByShortCodeOrNull("viral12").getCurrentClicks(), "Переходы полос сведены при сбросе");
+    }
+
+    @Test
+    void hotLink_demotedAndReadmittedUnderContention_countsExactly() throws Exception {
+        System.out.println("\nТест 4: hotLink_demotedAndReadmittedUnderContention_countsExactly — перевод туда и обратно без потерь");
+
+        ShortLink link = new ShortLink("flip123", "https://example.com/flip", UUID.randomUUID(),
+                4_000, Instant.now().plusSeconds(3600));
+        repo.save(link);
+
+        AtomicReference<ShortLink> current = new AtomicReference<>(link);
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+
+        try (WriteBehindClickCounter counter = new WriteBehindClickCounter(repo, 60_000, 100)) {
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> {
+                    while (!stop.get()) {
+                        if (counter.tryAdmit(current.get())) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+
+            // лимит поднимается посреди потока допусков: каждый раз горячая ссылка
+            // возвращается на общий счётчик, пока полосы выдают разрешения
+            for (int max = 4_000; max < 16_000; max += 4_000) {
+                awaitClicks(counter, current.get(), max - 2_000);
+                ShortLink raised = new ShortLink("flip123", "https://example.com/flip", link.getOwnerId(),
+                        max + 4_000, 0, link.getCreatedAt(), link.getExpiresAt(), true);
+                repo.update(raised);
+                current.set(raised);
+                counter.refresh(raised);
+            }
+            awaitClicks(counter, current.get(), 16_000);
+
+            stop.set(true);
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+            System.out.println("Переводов на полосы: " + counter.getPromotions());
+            assertTrue(counter.getPromotions() >= 2, "После возврата ссылка снова стала горячей");
+        }
+
+        assertEquals(16_000, admitted.get(), "Ни одно разрешение не потеряно и не выдано дважды");
+        assertEquals(16_000, repo.findByShortCodeOrNull("flip123").getCurrentClicks());
+    }
+
+    @Test
+    void idleCounter_isEvictedOnlyAfterClicksAreWritten() {
+        System.out.println("\nТест 5: idleCounter_isEvictedOnlyAfterClicksAreWritten — простаивающий счётчик снимается с карты");
+
+        ShortLink link = new ShortLink("idle123", "https://example.com/idle", UUID.randomUUID(),
+                10, Instant.now().plusSeconds(3600));
+        repo.save(link);
+
+        try (WriteBehindClickCounter counter = new WriteBehindClickCounter(repo, 60_000)) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(counter.tryAdmit(link));
+            }
+            assertEquals(3, counter.flush());
+            assertEquals(3, counter.currentClicks(link), "Сразу после записи счётчик остаётся");
+
+            counter.flush();
+            counter.flush();
+            assertEquals(0, counter.currentClicks(link), "Снятый счётчик больше не подменяет число из ссылки");
+
+            ShortLink reread = repo.findByShortCodeOrNull("idle123");
+            assertEquals(3, reread.getCurrentClicks());
+
+            int admitted = 0;
+            for (int i = 0; i < 10; i++) {
+                if (counter.tryAdmit(reread)) {
+                    admitted++;
+                }
+            }
+            assertEquals(7, admitted, "Новый счётчик продолжает с записанного числа");
+        }
+
+        assertEquals(10, repo.findByShortCodeOrNull("idle123").getCurrentClicks());
+    }
+
+    @Test
+    void discard_dropsUnwrittenClicksOfDeletedLink() {
+        System.out.println("\nТест 6: discard_dropsUnwrittenClicksOfDeletedLink — счётчик удалённой ссылки закрывается");
+
+        ShortLink link = new ShortLink("gone123", "https://example.com/gone", UUID.randomUUID(),
+                10, Instant.now().plusSeconds(3600));
+        repo.save(link);
+
+        try (WriteBehindClickCounter counter = new WriteBehindClickCounter(repo, 60_000)) {
+            counter.tryAdmit(link);
+            counter.tryAdmit(link);
+            counter.discard("gone123");
+
+            assertEquals(0, counter.currentClicks(link));
+            assertEquals(0, counter.flush(), "Переходы удалённой ссылки не пишутся");
+        }
+        assertEquals(0, repo.findByShortCodeOrNull("gone123").getCurrentClicks());
+    }
+
+    private static void awaitClicks(WriteBehindClickCounter counter, ShortLink link, int clicks) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (counter.currentClicks(link) < clicks) {
+            assertTrue(System.nanoTime() < deadline, "Допущено " + counter.currentClicks(link) + " из " + clicks);
+            Thread.sleep(1);
+        }
+    }
+}
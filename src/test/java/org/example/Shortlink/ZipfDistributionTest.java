@@ -0,0 +1,41 @@
+package org.example.Shortlink;
+
+import org.example.Shortlink.Util.ZipfDistribution;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfDistributionTest {
+
+    @Test
+    void next_followsZipfWeights() {
+        System.out.println("\nТест 1: next_followsZipfWeights — частоты совпадают с весами 1/k");
+
+        ZipfDistribution zipf = new ZipfDistribution(1_000, 1.0);
+        Random random = new Random(42);
+
+        int samples = 200_000;
+        int[] hits = new int[zipf.size()];
+        for (int i = 0; i < samples; i++) {
+            hits[zipf.next(random)]++;
+        }
+
+        // при s = 1 первый номер вдвое чаще второго
+        assertEquals(zipf.probability(0), hits[0] / (double) samples, 0.01);
+        assertEquals(2.0, zipf.probability(0) / zipf.probability(1), 1e-9);
+        assertTrue(hits[0] > hits[1] && hits[1] > hits[9] && hits[9] > hits[999]);
+    }
+
+    @Test
+    void zeroExponent_isUniform() {
+        System.out.println("\nТест 2: zeroExponent_isUniform — показатель 0 даёт равномерное распределение");
+
+        ZipfDistribution uniform = new ZipfDistribution(10, 0);
+        for (int k = 0; k < 10; k++) {
+            assertEquals(0.1, uniform.probability(k), 1e-9);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(0, 1));
+    }
+}